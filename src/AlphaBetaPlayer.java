@@ -0,0 +1,492 @@
+import java.util.Arrays;
+
+/**
+ * Represents a searching computer player in a tic-tac-toe game, implementing the Player interface.
+ * The AlphaBetaPlayer runs an iterative deepening alpha-beta (negamax) search over a Position copy
+ * of the board, until the position is solved, the time budget of the move runs out or an optional
+ * depth limit is reached, which makes the work of a move independent of the machine's speed.
+ * Search results are kept in a Zobrist hashed TranspositionTable of bounded size, which is reused
+ * between the moves of the player. The Position and the evaluator are built once per game
+ * and follow the move log of the board from one turn to the next.
+ * Positions at the search horizon are scored by a ThreatEvaluator, which follows the moves of the search
+ * and keeps the open windows of winStreak cells each mark still has.
+ * The nodes, cutoffs and depth of the last move are exposed to tune the move latency.
+ *
+ * @author Achikam Levy
+ * @see Player
+ * @see Position
+ * @see TranspositionTable
+ * @see ThreatEvaluator
+ */
+public class AlphaBetaPlayer implements Player {
+
+    // search limits and defaults
+    private static final int WIN_SCORE = 1_000_000;
+    private static final int WIN_THRESHOLD = WIN_SCORE - 1000;
+    private static final int INFINITY = 2 * WIN_SCORE;
+    private static final int TIME_CHECK_INTERVAL = 1023;
+    private static final long DEFAULT_TIME_BUDGET_MILLIS = 20;
+    private static final int DEFAULT_TABLE_BITS = 18;
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    // the mark of each Position cell value
+    private static final Mark[] MARKS = Mark.values();
+
+    // boards larger than this only search cells next to an existing mark
+    private static final int FULL_WIDTH_MAX_SIZE = 5;
+
+    // the eight steps to the cells around a cell
+    private static final int[] NEIGHBOR_ROW_STEPS = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] NEIGHBOR_COL_STEPS = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private final int winStreak;  // Number of consecutive marks required for a win
+    private final long timeBudgetNanos;  // Time limit of a single move
+    private final int maxDepth;  // Depth limit of a single move, 0 for no limit
+    private final TranspositionTable table;  // Results of earlier searches
+
+    private Board board;  // The board the position follows
+    private int syncedMoves;  // Moves of the board's log that the position already holds
+    private Position position;  // The position being searched
+    private ThreatEvaluator evaluator;  // The threats of the position being searched
+    private int[] cellOrder;  // The cells of the board, from the center outwards, on dense boards only
+    private LongIntHashMap seenStamps;  // Stamp of the last generation that listed each cell, on sparse boards only
+    private int stamp;  // The current generation of seenStamps
+    private int[][] moveBuffers = new int[0][];  // Candidate moves of each ply, grown as needed and reused
+    private long deadline;  // System.nanoTime() at which the search has to stop
+    private boolean timeUp;  // True once the deadline has passed
+    private int rootMove;  // Best root move of the current iteration
+
+    // statistics of the last move
+    private long nodes;
+    private long cutoffs;
+    private long tableHits;
+    private int completedDepth;
+
+    /**
+     * Constructs an AlphaBetaPlayer with the default time budget and table size.
+     *
+     * @param winStreak The number of consecutive marks required for a win.
+     */
+    public AlphaBetaPlayer(int winStreak) {
+        this(winStreak, DEFAULT_TIME_BUDGET_MILLIS, DEFAULT_TABLE_BITS);
+    }
+
+    /**
+     * Constructs an AlphaBetaPlayer.
+     *
+     * @param winStreak        The number of consecutive marks required for a win.
+     * @param timeBudgetMillis The time limit of a single move, in milliseconds.
+     * @param tableBits        The transposition table holds 2^tableBits entries of 16 bytes.
+     */
+    public AlphaBetaPlayer(int winStreak, long timeBudgetMillis, int tableBits) {
+        this(winStreak, timeBudgetMillis, tableBits, 0);
+    }
+
+    /**
+     * Constructs an AlphaBetaPlayer whose search also stops at a fixed depth.
+     *
+     * @param winStreak        The number of consecutive marks required for a win.
+     * @param timeBudgetMillis The time limit of a single move, in milliseconds.
+     * @param tableBits        The transposition table holds 2^tableBits entries of 16 bytes.
+     * @param maxDepth         The depth limit of a single move, 0 for no limit.
+     */
+    public AlphaBetaPlayer(int winStreak, long timeBudgetMillis, int tableBits, int maxDepth) {
+        this.winStreak = winStreak;
+        this.timeBudgetNanos = timeBudgetMillis * NANOS_PER_MILLI;
+        this.table = new TranspositionTable(tableBits);
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Searches for the best move and places the player's mark there.
+     *
+     * @param board The game board on which the player makes a move.
+     * @param mark  The player's mark (X or O).
+     */
+    @Override
+    public void playTurn(Board board, Mark mark) {
+        prepareSearch(board);
+        byte side = Position.fromMark(mark);
+        int bestMove = generateMoves(0, -1) > 0 ? this.moveBuffers[0][0] : -1;
+        if (bestMove < 0) {
+            return;  // the board is full, shouldn't happened
+        }
+
+        // deepen the search until it is solved, runs out of time or reaches the end of the game or the depth limit
+        int emptyCells = board.getSize() * board.getSize() - this.position.getMoveCount();
+        int lastDepth = this.maxDepth > 0 ? Math.min(this.maxDepth, emptyCells) : emptyCells;
+        for (int depth = 1; depth <= lastDepth; depth++) {
+            int score = negamax(depth, -INFINITY, INFINITY, side, 0);
+            if (this.timeUp) {
+                break;
+            }
+            bestMove = this.rootMove;
+            this.completedDepth = depth;
+            if (Math.abs(score) >= WIN_THRESHOLD) {
+                break;
+            }
+        }
+        board.putMark(mark, bestMove / board.getSize(), bestMove % board.getSize());
+    }
+
+    /**
+     * Resets the statistics and the search state for a new move on the given board.
+     *
+     * @param board The game board on which the player makes a move.
+     */
+    private void prepareSearch(Board board) {
+        int size = board.getSize();
+        if (!followsBoard(board)) {
+            // a new game, copy the whole board once
+            this.board = board;
+            this.syncedMoves = board.getMoveCount();
+            this.position = new Position(board, this.winStreak);
+            this.evaluator = new ThreatEvaluator(size, this.position.getWinStreak());
+            for (int move = 0; move < this.position.getMoveCount(); move++) {
+                int cell = this.position.getMove(move);
+                this.evaluator.markPlaced(MARKS[this.position.get(cell)], cell / size, cell % size);
+            }
+            if (this.position.isSparse()) {
+                this.cellOrder = null;
+                this.seenStamps = new LongIntHashMap();
+            } else if (this.cellOrder == null || this.cellOrder.length != size * size) {
+                this.cellOrder = centerFirstOrder(size);
+            }
+        }
+        // play the moves made since the last turn
+        for (; this.syncedMoves < board.getMoveCount(); this.syncedMoves++) {
+            int row = board.getMoveRow(this.syncedMoves);
+            int col = board.getMoveCol(this.syncedMoves);
+            Mark mark = board.getMoveMark(this.syncedMoves);
+            this.position.play(row * size + col, Position.fromMark(mark));
+            this.evaluator.markPlaced(mark, row, col);
+        }
+        this.table.newGeneration();
+        this.nodes = 0;
+        this.cutoffs = 0;
+        this.tableHits = 0;
+        this.completedDepth = 0;
+        this.timeUp = false;
+        this.deadline = System.nanoTime() + this.timeBudgetNanos;
+    }
+
+    /**
+     * Checks if the position holds the moves of the board, so only the newer moves have to be played on it.
+     *
+     * @param board The game board on which the player makes a move.
+     * @return True if the position follows the board, false if it has to be built again.
+     */
+    private boolean followsBoard(Board board) {
+        if (board != this.board || board.getMoveCount() < this.syncedMoves) {
+            return false;
+        }
+        if (this.syncedMoves == 0) {
+            return true;
+        }
+        // the board may have taken moves back and played others since
+        int last = this.syncedMoves - 1;
+        return this.position.get(board.getMoveRow(last) * board.getSize() + board.getMoveCol(last))
+                == Position.fromMark(board.getMoveMark(last));
+    }
+
+    /**
+     * Sorts the cells of the board by their distance from the center, central cells are usually better moves.
+     *
+     * @param size The size of the board.
+     * @return The cells, as row * size + col, from the center outwards.
+     */
+    private static int[] centerFirstOrder(int size) {
+        Integer[] cells = new Integer[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        Arrays.sort(cells, (a, b) -> Integer.compare(centerDistance(a, size), centerDistance(b, size)));
+        int[] order = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            order[i] = cells[i];
+        }
+        return order;
+    }
+
+    /**
+     * Computes twice the Chebyshev distance of a cell from the center of the board.
+     *
+     * @param cell The cell, as row * size + col.
+     * @param size The size of the board.
+     * @return The doubled distance from the center.
+     */
+    private static int centerDistance(int cell, int size) {
+        return Math.max(Math.abs(2 * (cell / size) - (size - 1)), Math.abs(2 * (cell % size) - (size - 1)));
+    }
+
+    /**
+     * Negamax alpha-beta search of the current position.
+     *
+     * @param depth The remaining depth to search.
+     * @param alpha The lower bound of the search window.
+     * @param beta  The upper bound of the search window.
+     * @param side  The mark to move.
+     * @param ply   The distance from the root.
+     * @return The score of the position for the side to move.
+     */
+    private int negamax(int depth, int alpha, int beta, byte side, int ply) {
+        this.nodes++;
+        if ((this.nodes & TIME_CHECK_INTERVAL) == 0 && System.nanoTime() > this.deadline) {
+            this.timeUp = true;
+        }
+        if (this.timeUp || this.position.isFull()) {
+            return 0;
+        }
+        if (depth == 0) {
+            return evaluate(side);
+        }
+
+        // use the stored result of this position if it is deep enough
+        int originalAlpha = alpha;
+        long hash = this.position.getHash();
+        long entry = this.table.probe(hash);
+        int tableMove = -1;
+        if (entry != 0) {
+            tableMove = TranspositionTable.moveOf(entry);
+            if (ply > 0 && TranspositionTable.depthOf(entry) >= depth) {
+                this.tableHits++;
+                int stored = fromTableScore(TranspositionTable.scoreOf(entry), ply);
+                int bound = TranspositionTable.boundOf(entry);
+                if (bound == TranspositionTable.EXACT) return stored;
+                if (bound == TranspositionTable.LOWER_BOUND) alpha = Math.max(alpha, stored);
+                if (bound == TranspositionTable.UPPER_BOUND) beta = Math.min(beta, stored);
+                if (alpha >= beta) return stored;
+            }
+        }
+
+        int count = generateMoves(ply, tableMove);
+        int[] moves = this.moveBuffers[ply];
+        int size = this.position.getSize();
+        int best = -INFINITY;
+        int bestMove = moves[0];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            this.position.play(move, side);
+            this.evaluator.markPlaced(MARKS[side], move / size, move % size);
+            int score = this.position.isWin(move) ? WIN_SCORE - ply
+                    : -negamax(depth - 1, -beta, -alpha, Position.opponent(side), ply + 1);
+            this.position.undo();
+            this.evaluator.markRemoved(MARKS[side], move / size, move % size);
+            if (this.timeUp) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                this.cutoffs++;
+                break;
+            }
+        }
+
+        int bound = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : best >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+        this.table.store(hash, toTableScore(best, ply), bestMove, depth, bound);
+        if (ply == 0) {
+            this.rootMove = bestMove;
+        }
+        return best;
+    }
+
+    /**
+     * Fills the move buffer of a ply with the candidate moves of the current position.
+     * The stored best move comes first, then the cells from the center outwards.
+     * On large boards only cells next to an existing mark are candidates, and on sparse boards
+     * they are found around the moves made, the latest first, instead of by a scan of all the cells.
+     *
+     * @param ply       The distance from the root.
+     * @param firstMove A move to try first, or -1.
+     * @return The number of candidate moves.
+     */
+    private int generateMoves(int ply, int firstMove) {
+        int size = this.position.getSize();
+        int moveCount = this.position.getMoveCount();
+        boolean nearOnly = size > FULL_WIDTH_MAX_SIZE && moveCount > 0;
+        int emptyCells = size * size - moveCount;
+        // an empty sparse board has the center and the stored move
+        int[] moves = moveBuffer(ply, nearOnly ? Math.min(emptyCells, NEIGHBOR_ROW_STEPS.length * moveCount + 1)
+                : this.cellOrder == null ? 2 : emptyCells);
+        int count = 0;
+        if (firstMove >= 0 && this.position.get(firstMove) == Position.BLANK) {
+            moves[count++] = firstMove;
+        }
+        if (this.cellOrder == null) {
+            return nearOnly ? addNeighbors(moves, count, firstMove) : addCenter(moves, count, firstMove);
+        }
+        for (int cell : this.cellOrder) {
+            if (cell != firstMove && this.position.get(cell) == Position.BLANK
+                    && (!nearOnly || hasNeighbor(cell, size))) {
+                moves[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves the move buffer of a ply, growing it to the given capacity.
+     *
+     * @param ply      The distance from the root.
+     * @param capacity The largest number of candidate moves the ply can have.
+     * @return The move buffer of the ply.
+     */
+    private int[] moveBuffer(int ply, int capacity) {
+        if (ply >= this.moveBuffers.length) {
+            this.moveBuffers = Arrays.copyOf(this.moveBuffers, Math.max(ply + 1, 2 * this.moveBuffers.length));
+        }
+        if (this.moveBuffers[ply] == null || this.moveBuffers[ply].length < capacity) {
+            this.moveBuffers[ply] = new int[Math.max(capacity, 2 * (this.moveBuffers[ply] == null ? 0
+                    : this.moveBuffers[ply].length))];
+        }
+        return this.moveBuffers[ply];
+    }
+
+    /**
+     * Adds the empty cells around the moves made, the latest moves first, each cell once.
+     *
+     * @param moves     The move buffer of the ply.
+     * @param count     The number of moves already in the buffer.
+     * @param firstMove A move that is already in the buffer, or -1.
+     * @return The number of candidate moves.
+     */
+    private int addNeighbors(int[] moves, int count, int firstMove) {
+        int size = this.position.getSize();
+        this.stamp++;
+        for (int i = this.position.getMoveCount() - 1; i >= 0; i--) {
+            int played = this.position.getMove(i);
+            int row = played / size;
+            int col = played % size;
+            for (int step = 0; step < NEIGHBOR_ROW_STEPS.length; step++) {
+                int r = row + NEIGHBOR_ROW_STEPS[step];
+                int c = col + NEIGHBOR_COL_STEPS[step];
+                if (r < 0 || r >= size || c < 0 || c >= size) {
+                    continue;
+                }
+                int cell = r * size + c;
+                if (cell != firstMove && this.seenStamps.get(cell, 0) != this.stamp
+                        && this.position.get(cell) == Position.BLANK) {
+                    this.seenStamps.put(cell, this.stamp);
+                    moves[count++] = cell;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the center cell, the only candidate of the first move on a sparse board.
+     *
+     * @param moves     The move buffer of the ply.
+     * @param count     The number of moves already in the buffer.
+     * @param firstMove A move that is already in the buffer, or -1.
+     * @return The number of candidate moves.
+     */
+    private int addCenter(int[] moves, int count, int firstMove) {
+        int size = this.position.getSize();
+        int center = (size / 2) * size + size / 2;
+        if (center != firstMove) {
+            moves[count++] = center;
+        }
+        return count;
+    }
+
+    /**
+     * Checks if one of the eight cells around the given cell holds a mark.
+     *
+     * @param cell The cell, as row * size + col.
+     * @param size The size of the board.
+     * @return True if the cell has a marked neighbor.
+     */
+    private boolean hasNeighbor(int cell, int size) {
+        int row = cell / size;
+        int col = cell % size;
+        for (int r = Math.max(0, row - 1); r <= Math.min(size - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(size - 1, col + 1); c++) {
+                if (this.position.get(r * size + c) != Position.BLANK) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scores a position by the windows of winStreak cells that only one of the marks occupies.
+     * Each such window is worth more the more marks it already holds.
+     * The evaluator has followed every move of the search, so this takes O(1).
+     *
+     * @param side The mark to move.
+     * @return The score of the position for the side to move.
+     */
+    private int evaluate(byte side) {
+        return this.evaluator.score(MARKS[side]);
+    }
+
+    /**
+     * Converts a win score from relative to the root to relative to the stored node.
+     *
+     * @param score The score of a node.
+     * @param ply   The distance of the node from the root.
+     * @return The score to store.
+     */
+    private static int toTableScore(int score, int ply) {
+        if (score >= WIN_THRESHOLD) return score + ply;
+        if (score <= -WIN_THRESHOLD) return score - ply;
+        return score;
+    }
+
+    /**
+     * Converts a stored win score back to relative to the root.
+     *
+     * @param score The stored score.
+     * @param ply   The distance of the node from the root.
+     * @return The score of the node.
+     */
+    private static int fromTableScore(int score, int ply) {
+        if (score >= WIN_THRESHOLD) return score - ply;
+        if (score <= -WIN_THRESHOLD) return score + ply;
+        return score;
+    }
+
+    /**
+     * Retrieves the number of positions searched for the last move.
+     *
+     * @return The number of nodes of the last search.
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Retrieves the number of beta cutoffs of the last move.
+     *
+     * @return The number of cutoffs of the last search.
+     */
+    public long getCutoffs() {
+        return this.cutoffs;
+    }
+
+    /**
+     * Retrieves the number of transposition table entries that answered a node in the last move.
+     *
+     * @return The number of table hits of the last search.
+     */
+    public long getTableHits() {
+        return this.tableHits;
+    }
+
+    /**
+     * Retrieves the deepest iteration that was completed in the last move.
+     *
+     * @return The completed search depth of the last move.
+     */
+    public int getCompletedDepth() {
+        return this.completedDepth;
+    }
+}
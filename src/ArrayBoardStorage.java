@@ -0,0 +1,72 @@
+
+/**
+ * Stores the board cells in a two dimensional array of marks.
+ * This is the straightforward representation, one enum reference per cell.
+ *
+ * @author Achikam Levy
+ * @see BoardStorage
+ */
+public class ArrayBoardStorage implements BoardStorage {
+
+    private final Mark[][] cells;  // The marks of the board cells
+    private final int size;  // The size of the board
+    private int emptyCells;  // Number of blank cells
+
+    /**
+     * Constructs an ArrayBoardStorage with all the cells blank.
+     *
+     * @param size The size of the square game board.
+     */
+    public ArrayBoardStorage(int size) {
+        this.size = size;
+        this.cells = new Mark[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                this.cells[row][col] = Mark.BLANK;
+            }
+        }
+        this.emptyCells = size * size;
+    }
+
+    /**
+     * Constructs an ArrayBoardStorage holding the same marks as another one.
+     *
+     * @param other The storage to copy.
+     */
+    private ArrayBoardStorage(ArrayBoardStorage other) {
+        this.size = other.size;
+        this.cells = new Mark[this.size][];
+        for (int row = 0; row < this.size; row++) {
+            this.cells[row] = other.cells[row].clone();
+        }
+        this.emptyCells = other.emptyCells;
+    }
+
+    @Override
+    public int getSize() {
+        return this.size;
+    }
+
+    @Override
+    public Mark get(int row, int col) {
+        return this.cells[row][col];
+    }
+
+    @Override
+    public void set(int row, int col, Mark mark) {
+        // keep the blank cells counter in sync with the change
+        if (this.cells[row][col] == Mark.BLANK) this.emptyCells--;
+        if (mark == Mark.BLANK) this.emptyCells++;
+        this.cells[row][col] = mark;
+    }
+
+    @Override
+    public int countEmpty() {
+        return this.emptyCells;
+    }
+
+    @Override
+    public BoardStorage copy() {
+        return new ArrayBoardStorage(this);
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A renderer decorator that renders on a dedicated thread, so a slow renderer doesn't block the game.
+ * renderBoard only copies the board into an immutable snapshot and hands it to the render thread
+ * through a bounded queue. When the render thread falls behind and the queue is full, the oldest
+ * waiting frame is dropped, so the game never waits and the latest board is always shown.
+ *
+ * @author Achikam Levy
+ * @see Renderer
+ * @see RendererFactory
+ */
+public class AsyncRenderer implements Renderer, AutoCloseable {
+
+    // marks the end of the frames for the render thread
+    private static final Board END_OF_FRAMES = new Board(1);
+
+    // how long close waits for the render thread before it interrupts it
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final Renderer renderer;  // The renderer that draws the frames
+    private final BlockingQueue<Board> frames;  // Snapshots waiting to be rendered
+    private final Thread renderThread;  // Takes frames from the queue and renders them
+    private final Object pendingLock = new Object();  // Guards pendingFrames
+    private int pendingFrames = 0;  // Frames handed to the render thread and not rendered or dropped yet
+    private long droppedFrames = 0;  // Frames that were dropped because the queue was full
+
+    /**
+     * Constructs an AsyncRenderer and starts its render thread.
+     *
+     * @param renderer      The renderer that draws the frames, only used by the render thread.
+     * @param queueCapacity The number of frames that can wait for the render thread.
+     */
+    public AsyncRenderer(Renderer renderer, int queueCapacity) {
+        this.renderer = renderer;
+        this.frames = new ArrayBlockingQueue<>(queueCapacity);
+        this.renderThread = new Thread(this::renderFrames, "async-renderer");
+        this.renderThread.setDaemon(true);
+        this.renderThread.start();
+    }
+
+    /**
+     * Hands a snapshot of the board to the render thread, dropping the oldest waiting frame if the queue is full.
+     *
+     * @param board The game board to be rendered.
+     */
+    @Override
+    public void renderBoard(Board board) {
+        Board snapshot = board.copy();
+        synchronized (this.pendingLock) {
+            this.pendingFrames++;
+        }
+        while (!this.frames.offer(snapshot)) {
+            // the render thread is behind, the oldest frame is out of date anyway
+            if (this.frames.poll() != null) {
+                frameDone(true);
+            }
+        }
+    }
+
+    /**
+     * The loop of the render thread: renders frames until the end of frames mark.
+     */
+    private void renderFrames() {
+        try {
+            while (true) {
+                Board frame = this.frames.take();
+                if (frame == END_OF_FRAMES) {
+                    return;
+                }
+                try {
+                    this.renderer.renderBoard(frame);
+                } catch (RuntimeException e) {
+                    // a frame that can't be drawn must not stop the render thread, nor the threads waiting for it
+                    System.err.println("Can't render the board: " + e);
+                } finally {
+                    frameDone(false);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Marks a frame as handled and wakes up threads that wait for all the frames.
+     *
+     * @param dropped True if the frame was dropped, false if it was rendered.
+     */
+    private void frameDone(boolean dropped) {
+        synchronized (this.pendingLock) {
+            this.pendingFrames--;
+            if (dropped) {
+                this.droppedFrames++;
+            }
+            this.pendingLock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until every frame handed to the renderer so far was rendered or dropped.
+     */
+    public void awaitRendered() {
+        synchronized (this.pendingLock) {
+            while (this.pendingFrames > 0) {
+                try {
+                    this.pendingLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of frames that were dropped because the render thread was behind.
+     *
+     * @return The number of dropped frames.
+     */
+    public long getDroppedFrames() {
+        synchronized (this.pendingLock) {
+            return this.droppedFrames;
+        }
+    }
+
+    /**
+     * Renders the frames that are still waiting and stops the render thread. close never blocks on a full queue:
+     * it drops the oldest frame to make room for the end of frames mark, as renderBoard does,
+     * and a render thread that doesn't finish within CLOSE_TIMEOUT_MILLIS is interrupted.
+     */
+    @Override
+    public void close() {
+        while (!this.frames.offer(END_OF_FRAMES)) {
+            if (this.frames.poll() != null) {
+                frameDone(true);
+            }
+        }
+        try {
+            this.renderThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (this.renderThread.isAlive()) {
+            this.renderThread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,345 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.SplittableRandom;
+
+/**
+ * Simulates many games of the built-in computer players at once, for large Monte Carlo runs.
+ * A batch of boards is kept in struct-of-arrays form: for every mark, the bitboards of all the boards
+ * are stored side by side in primitive arrays (two longs per board, a padding bit ending every row).
+ * All the boards are advanced one ply at a time, and the win check of the whole batch runs on SIMD lanes
+ * of the Vector API: each lane holds one board, and the shift-and-AND streak test runs on all of them together.
+ * The moves follow the same rules as WhateverPlayer, CleverPlayer and GeniusPlayer, so the outcomes have the
+ * same distribution as playing each game with Game.run.
+ * Boards of sizes 2 to 10 are supported. The class uses the incubating Vector API, so compile and run
+ * it with --add-modules jdk.incubator.vector.
+ *
+ * @author Achikam Levy
+ * @see Game
+ * @see BitBoardStorage
+ */
+public class BatchSimulator {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+    private static final int MAX_SIZE = 10;
+
+    // player types the simulator can play, as named by the PlayerFactory
+    private static final String WHATEVER = "whatever";
+    private static final String CLEVER = "clever";
+    private static final String GENIUS = "genius";
+
+    // the coin toss of GeniusPlayer
+    private static final int GENIUS_BOUND = 50;
+    private static final int GENIUS_THRESH_HOLD = 48;
+
+    // indexes of the outcome counts
+    public static final int X_WINS = 0;
+    public static final int O_WINS = 1;
+    public static final int DRAWS = 2;
+
+    private final int size;  // The size of the boards
+    private final int winStreak;  // Number of consecutive marks required for a win
+    private final int stride;  // Bits per row, including the padding bit
+    private final int[] lineSteps;  // Bit steps of a row, a column, the main diagonal and the anti diagonal
+    private final int batchSize;  // Number of boards, a multiple of the vector length
+    private final String playerXType;  // The player type that plays X
+    private final String playerOType;  // The player type that plays O
+    private final SplittableRandom random;  // Random moves of whatever and genius players
+
+    // bitboards of the batch, low and high words of every board
+    private final long[] xLow;
+    private final long[] xHigh;
+    private final long[] oLow;
+    private final long[] oHigh;
+    private final long[] streakFound;  // Nonzero for the boards where the last mover has a streak
+
+    // index of the empty cells of every board, see Board
+    private final int[] emptyCells;
+    private final int[] emptyPlaces;
+    private final int[] emptyCount;
+
+    // boards whose game is still running
+    private final int[] activeBoards;
+    private int activeCount;
+
+    /**
+     * Constructs a BatchSimulator.
+     *
+     * @param size        The size of the boards, between 2 and 10.
+     * @param winStreak   The number of consecutive marks required for a win, clamped as in Game.
+     * @param playerXType The type of the player that plays X: whatever, clever or genius.
+     * @param playerOType The type of the player that plays O: whatever, clever or genius.
+     * @param batchSize   The number of boards to simulate at once, rounded up to the vector length.
+     * @param seed        The seed of the random moves.
+     */
+    public BatchSimulator(int size, int winStreak, String playerXType, String playerOType, int batchSize,
+                          long seed) {
+        if (size < 2 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Batch boards must be of size 2 to " + MAX_SIZE);
+        }
+        checkPlayerType(playerXType);
+        checkPlayerType(playerOType);
+        this.size = size;
+        this.winStreak = Math.max(2, Math.min(winStreak, size));
+        this.stride = size + 1;
+        this.lineSteps = new int[]{1, this.stride, this.stride + 1, this.stride - 1};
+        this.batchSize = SPECIES.loopBound(batchSize + SPECIES.length() - 1);
+        this.playerXType = playerXType;
+        this.playerOType = playerOType;
+        this.random = new SplittableRandom(seed);
+
+        this.xLow = new long[this.batchSize];
+        this.xHigh = new long[this.batchSize];
+        this.oLow = new long[this.batchSize];
+        this.oHigh = new long[this.batchSize];
+        this.streakFound = new long[this.batchSize];
+        this.emptyCells = new int[this.batchSize * size * size];
+        this.emptyPlaces = new int[this.batchSize * size * size];
+        this.emptyCount = new int[this.batchSize];
+        this.activeBoards = new int[this.batchSize];
+    }
+
+    /**
+     * Makes sure the simulator knows how to play a player type.
+     *
+     * @param type The player type.
+     */
+    private static void checkPlayerType(String type) {
+        if (!type.equals(WHATEVER) && !type.equals(CLEVER) && !type.equals(GENIUS)) {
+            throw new IllegalArgumentException("Batch simulation supports whatever, clever and genius players, not "
+                    + type);
+        }
+    }
+
+    /**
+     * Simulates games until the given number of games was played.
+     *
+     * @param games The number of games to play.
+     * @return The outcome counts, indexed by X_WINS, O_WINS and DRAWS.
+     */
+    public long[] run(long games) {
+        long[] outcomes = new long[3];
+        for (long played = 0; played < games; played += this.batchSize) {
+            playBatch((int) Math.min(this.batchSize, games - played), outcomes);
+        }
+        return outcomes;
+    }
+
+    /**
+     * Plays one batch of games to the end and adds their outcomes.
+     *
+     * @param games    The number of boards of the batch to play.
+     * @param outcomes The outcome counts to add to.
+     */
+    private void playBatch(int games, long[] outcomes) {
+        resetBoards(games);
+        int maxTurns = this.size * this.size;
+        for (int turn = 0; turn < maxTurns && this.activeCount > 0; turn++) {
+            boolean xTurn = turn % 2 == 0;
+            String playerType = xTurn ? this.playerXType : this.playerOType;
+            for (int i = 0; i < this.activeCount; i++) {
+                int board = this.activeBoards[i];
+                placeMark(board, chooseMove(board, playerType), xTurn);
+            }
+            findStreaks(xTurn ? this.xLow : this.oLow, xTurn ? this.xHigh : this.oHigh);
+
+            // the boards that were won leave the batch
+            int stillActive = 0;
+            for (int i = 0; i < this.activeCount; i++) {
+                int board = this.activeBoards[i];
+                if (this.streakFound[board] != 0) {
+                    outcomes[xTurn ? X_WINS : O_WINS]++;
+                } else {
+                    this.activeBoards[stillActive++] = board;
+                }
+            }
+            this.activeCount = stillActive;
+        }
+        // the boards that are still running are full
+        outcomes[DRAWS] += this.activeCount;
+    }
+
+    /**
+     * Clears the boards and makes the first boards of the batch active.
+     *
+     * @param games The number of boards to play.
+     */
+    private void resetBoards(int games) {
+        int cells = this.size * this.size;
+        for (int board = 0; board < this.batchSize; board++) {
+            this.xLow[board] = 0;
+            this.xHigh[board] = 0;
+            this.oLow[board] = 0;
+            this.oHigh[board] = 0;
+        }
+        for (int board = 0; board < games; board++) {
+            for (int cell = 0; cell < cells; cell++) {
+                this.emptyCells[board * cells + cell] = cell;
+                this.emptyPlaces[board * cells + cell] = cell;
+            }
+            this.emptyCount[board] = cells;
+            this.activeBoards[board] = board;
+        }
+        this.activeCount = games;
+    }
+
+    /**
+     * Chooses the move of a player on a board, by the rules of the player type.
+     *
+     * @param board      The board index in the batch.
+     * @param playerType The type of the player to move.
+     * @return The chosen cell, as row * size + col.
+     */
+    private int chooseMove(int board, String playerType) {
+        int cells = this.size * this.size;
+        switch (playerType) {
+            case WHATEVER -> {
+                return this.emptyCells[board * cells + this.random.nextInt(this.emptyCount[board])];
+            }
+            case CLEVER -> {
+                return firstEmptyByRows(board);
+            }
+            default -> {
+                // genius: usually starts from the second column, rarely from the first one
+                int start = this.random.nextInt(GENIUS_BOUND) > GENIUS_THRESH_HOLD ? 0 : 1;
+                int move = firstEmptyByColumns(board, start);
+                return move >= 0 ? move : firstEmptyByColumns(board, 0);
+            }
+        }
+    }
+
+    /**
+     * Finds the first empty cell of a board, row after row, as CleverPlayer plays.
+     *
+     * @param board The board index in the batch.
+     * @return The first empty cell, as row * size + col.
+     */
+    private int firstEmptyByRows(int board) {
+        long occupiedLow = this.xLow[board] | this.oLow[board];
+        long occupiedHigh = this.xHigh[board] | this.oHigh[board];
+        for (int cell = 0; cell < this.size * this.size; cell++) {
+            int bit = (cell / this.size) * this.stride + cell % this.size;
+            long occupied = bit < Long.SIZE ? occupiedLow >>> bit : occupiedHigh >>> (bit - Long.SIZE);
+            if ((occupied & 1) == 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first empty cell of a board column after column, from a start column, as GeniusPlayer plays.
+     *
+     * @param board The board index in the batch.
+     * @param start The first column to look in.
+     * @return The first empty cell, as row * size + col, or -1 if these columns are full.
+     */
+    private int firstEmptyByColumns(int board, int start) {
+        long occupiedLow = this.xLow[board] | this.oLow[board];
+        long occupiedHigh = this.xHigh[board] | this.oHigh[board];
+        for (int col = start; col < this.size; col++) {
+            for (int row = 0; row < this.size; row++) {
+                int bit = row * this.stride + col;
+                long occupied = bit < Long.SIZE ? occupiedLow >>> bit : occupiedHigh >>> (bit - Long.SIZE);
+                if ((occupied & 1) == 0) {
+                    return row * this.size + col;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Places a mark on a board, and removes the cell from the board's empty cells.
+     *
+     * @param board The board index in the batch.
+     * @param cell  The cell to mark, as row * size + col.
+     * @param isX   True to place X, false to place O.
+     */
+    private void placeMark(int board, int cell, boolean isX) {
+        int bit = (cell / this.size) * this.stride + cell % this.size;
+        if (bit < Long.SIZE) {
+            if (isX) this.xLow[board] |= 1L << bit;
+            else this.oLow[board] |= 1L << bit;
+        } else {
+            if (isX) this.xHigh[board] |= 1L << (bit - Long.SIZE);
+            else this.oHigh[board] |= 1L << (bit - Long.SIZE);
+        }
+
+        // swap the last empty cell into the place of the marked one
+        int cells = this.size * this.size;
+        int base = board * cells;
+        int place = this.emptyPlaces[base + cell];
+        int lastCell = this.emptyCells[base + --this.emptyCount[board]];
+        this.emptyCells[base + place] = lastCell;
+        this.emptyPlaces[base + lastCell] = place;
+    }
+
+    /**
+     * Checks the whole batch for streaks of one mark, a vector of boards at a time.
+     * For every line direction, each board's bitboard is shifted by one step per cell of the streak
+     * and AND-ed with itself, so only the bits that start a full streak survive.
+     * The result of every board is left in streakFound.
+     *
+     * @param low  The low words of the mark's bitboards.
+     * @param high The high words of the mark's bitboards.
+     */
+    private void findStreaks(long[] low, long[] high) {
+        for (int board = 0; board < this.batchSize; board += SPECIES.length()) {
+            LongVector bitsLow = LongVector.fromArray(SPECIES, low, board);
+            LongVector bitsHigh = LongVector.fromArray(SPECIES, high, board);
+            LongVector found = LongVector.zero(SPECIES);
+            for (int step : this.lineSteps) {
+                LongVector streakLow = bitsLow;
+                LongVector streakHigh = bitsHigh;
+                for (int i = 1; i < this.winStreak; i++) {
+                    int shift = i * step;
+                    if (shift < Long.SIZE) {
+                        streakLow = streakLow.and(bitsLow.lanewise(VectorOperators.LSHR, shift)
+                                .or(bitsHigh.lanewise(VectorOperators.LSHL, Long.SIZE - shift)));
+                        streakHigh = streakHigh.and(bitsHigh.lanewise(VectorOperators.LSHR, shift));
+                    } else {
+                        streakLow = streakLow.and(bitsHigh.lanewise(VectorOperators.LSHR, shift - Long.SIZE));
+                        streakHigh = LongVector.zero(SPECIES);
+                    }
+                }
+                found = found.or(streakLow).or(streakHigh);
+            }
+            found.intoArray(this.streakFound, board);
+        }
+    }
+
+    /**
+     * Simulates a tournament between two player types and prints the results as Tournament does.
+     * Player 1 plays X in half of the rounds and O in the other half.
+     *
+     * @param args Command line arguments: [rounds, size, winStreak, player1Type, player2Type]
+     *             optionally followed by --batch=N, the number of boards simulated at once.
+     */
+    public static void main(String[] args) {
+        long rounds = Long.parseLong(args[0]);
+        int size = Integer.parseInt(args[1]);
+        int winStreak = Integer.parseInt(args[2]);
+        String playerAName = args[3].toLowerCase();
+        String playerBName = args[4].toLowerCase();
+        int batchSize = args.length > 5 && args[5].startsWith("--batch=")
+                ? Integer.parseInt(args[5].substring("--batch=".length())) : DEFAULT_BATCH_SIZE;
+
+        long start = System.nanoTime();
+        long seed = System.nanoTime();
+        // player 1 plays X on the even rounds, as in Tournament
+        long[] aFirst = new BatchSimulator(size, winStreak, playerAName, playerBName, batchSize, seed)
+                .run((rounds + 1) / 2);
+        long[] bFirst = new BatchSimulator(size, winStreak, playerBName, playerAName, batchSize, seed + 1)
+                .run(rounds / 2);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("######### Results #########\n" +
+                "Player 1, " + playerAName + " won: " + (aFirst[X_WINS] + bFirst[O_WINS]) + " rounds\n" +
+                "Player 2, " + playerBName + " won: " + (aFirst[O_WINS] + bFirst[X_WINS]) + " rounds\n" +
+                "Ties: " + (aFirst[DRAWS] + bFirst[DRAWS]) + "\n" +
+                String.format("Games per second: %.0f", rounds / seconds));
+    }
+}
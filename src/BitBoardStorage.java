@@ -0,0 +1,215 @@
+
+/**
+ * Stores the board cells as bitboards, one bit set per mark.
+ * Every row takes size + 1 bits: the extra padding bit stays clear, so shifting a bitboard
+ * never carries a streak from the end of one row to the start of the next one.
+ * Boards up to 7x7 fit a single long per mark, larger boards use a few longs.
+ * Empty cells counting and enumeration, and win checks are all bitwise operations.
+ *
+ * @author Achikam Levy
+ * @see BoardStorage
+ */
+public class BitBoardStorage implements BoardStorage {
+
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = 63;
+
+    private final int size;  // The size of the board
+    private final int stride;  // Bits per row, including the padding bit
+    private final long[] xBits;  // Cells marked by X
+    private final long[] oBits;  // Cells marked by O
+    private final long[] cellsMask;  // All the real (not padding) cells of the board
+    private final int[] steps;  // Bit steps of a row, a column, the main diagonal and the anti diagonal
+
+    /**
+     * Constructs a BitBoardStorage with all the cells blank.
+     *
+     * @param size The size of the square game board.
+     */
+    public BitBoardStorage(int size) {
+        this.size = size;
+        this.stride = size + 1;
+        int words = (size * this.stride + WORD_MASK) >>> WORD_SHIFT;
+        this.xBits = new long[words];
+        this.oBits = new long[words];
+        this.cellsMask = new long[words];
+        this.steps = new int[]{1, this.stride, this.stride + 1, this.stride - 1};
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int bit = bitIndex(row, col);
+                this.cellsMask[bit >>> WORD_SHIFT] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * Constructs a BitBoardStorage holding the same marks as another one.
+     *
+     * @param other The storage to copy.
+     */
+    private BitBoardStorage(BitBoardStorage other) {
+        this.size = other.size;
+        this.stride = other.stride;
+        this.xBits = other.xBits.clone();
+        this.oBits = other.oBits.clone();
+        this.cellsMask = other.cellsMask;  // never changes, so it can be shared
+        this.steps = other.steps;
+    }
+
+    /**
+     * Computes the bit of a cell.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return The index of the cell's bit.
+     */
+    private int bitIndex(int row, int col) {
+        return row * this.stride + col;
+    }
+
+    /**
+     * Retrieves the bitboard of the given mark.
+     *
+     * @param mark X or O.
+     * @return The bitboard of the mark.
+     */
+    private long[] bitsOf(Mark mark) {
+        return mark == Mark.X ? this.xBits : this.oBits;
+    }
+
+    @Override
+    public int getSize() {
+        return this.size;
+    }
+
+    @Override
+    public Mark get(int row, int col) {
+        int bit = bitIndex(row, col);
+        long mask = 1L << bit;
+        int word = bit >>> WORD_SHIFT;
+        if ((this.xBits[word] & mask) != 0) return Mark.X;
+        if ((this.oBits[word] & mask) != 0) return Mark.O;
+        return Mark.BLANK;
+    }
+
+    @Override
+    public void set(int row, int col, Mark mark) {
+        int bit = bitIndex(row, col);
+        long mask = 1L << bit;
+        int word = bit >>> WORD_SHIFT;
+        // clear the cell, then set the bit of the new mark
+        this.xBits[word] &= ~mask;
+        this.oBits[word] &= ~mask;
+        if (mark != Mark.BLANK) {
+            bitsOf(mark)[word] |= mask;
+        }
+    }
+
+    @Override
+    public BoardStorage copy() {
+        return new BitBoardStorage(this);
+    }
+
+    @Override
+    public int countEmpty() {
+        int occupied = 0;
+        for (int word = 0; word < this.xBits.length; word++) {
+            occupied += Long.bitCount(this.xBits[word] | this.oBits[word]);
+        }
+        return this.size * this.size - occupied;
+    }
+
+    @Override
+    public int nextEmpty(int cell) {
+        if (cell >= this.size * this.size) {
+            return -1;
+        }
+        int bit = bitIndex(cell / this.size, cell % this.size);
+        int word = bit >>> WORD_SHIFT;
+        // the empty cells of the first word, starting from the given bit
+        long empty = ~(this.xBits[word] | this.oBits[word]) & this.cellsMask[word] & (-1L << bit);
+        while (empty == 0) {
+            if (++word == this.xBits.length) {
+                return -1;
+            }
+            empty = ~(this.xBits[word] | this.oBits[word]) & this.cellsMask[word];
+        }
+        int found = (word << WORD_SHIFT) + Long.numberOfTrailingZeros(empty);
+        return (found / this.stride) * this.size + (found % this.stride);
+    }
+
+    /**
+     * {@inheritDoc}
+     * On a single word board, for every line direction the bitboard is shifted by one step per cell
+     * of the streak and AND-ed with itself, so only the bits that start a full streak survive,
+     * and the cell is on a streak if one of them lies less than winStreak steps behind it.
+     * The padding bits stop rows and diagonals from wrapping around. Larger boards test the bits of the run.
+     */
+    @Override
+    public boolean isStreakThrough(Mark mark, int row, int col, int winStreak) {
+        if (mark == Mark.BLANK || winStreak > this.size) {
+            return false;
+        }
+        long[] bits = bitsOf(mark);
+        int bit = bitIndex(row, col);
+        if (!isSet(bits, bit)) {
+            return false;
+        }
+        if (bits.length == 1) {
+            return hasStreakThrough(bits[0], bit, winStreak);
+        }
+        for (int step : this.steps) {
+            // the cell itself plus its run on both sides of this line
+            int run = 1;
+            for (int i = 1; i < winStreak && bit + i * step < bits.length << WORD_SHIFT
+                    && isSet(bits, bit + i * step); i++) {
+                run++;
+            }
+            for (int i = 1; i < winStreak && bit - i * step >= 0 && isSet(bits, bit - i * step); i++) {
+                run++;
+            }
+            if (run >= winStreak) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a single word bitboard has a streak through the given bit.
+     * All the shifts stay below 64, since winStreak is at most size and size is at most 7.
+     *
+     * @param bits      The bitboard of the mark.
+     * @param bit       The bit of the cell.
+     * @param winStreak The number of consecutive marks required.
+     * @return True if a line through the bit holds winStreak consecutive marks, false otherwise.
+     */
+    private boolean hasStreakThrough(long bits, int bit, int winStreak) {
+        for (int step : this.steps) {
+            long starts = bits;
+            // the bits a streak through the cell may start from
+            long window = 1L << bit;
+            for (int i = 1; i < winStreak; i++) {
+                starts &= bits >>> (i * step);
+                if (bit - i * step >= 0) {
+                    window |= 1L << (bit - i * step);
+                }
+            }
+            if ((starts & window) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a bit of a multi word bitboard is set.
+     *
+     * @param bits The bitboard.
+     * @param bit  The index of the bit.
+     * @return True if the bit is set, false otherwise.
+     */
+    private static boolean isSet(long[] bits, int bit) {
+        return (bits[bit >>> WORD_SHIFT] & (1L << bit)) != 0;
+    }
+}
@@ -1,22 +1,47 @@
+import java.util.Arrays;
 
 /**
  * Represents a game board for a two-player game with methods for managing and checking game state.
  * The board is a square grid with cells that can be marked by players.
+ * The cells are kept in a pluggable BoardStorage, by default a BitBoardStorage, and a SparseBoardStorage
+ * for boards larger than MAX_DENSE_SIZE, so that huge boards cost memory only for the marks placed on them.
+ * The board also logs its moves, so the last move can be taken back and earlier positions can be replayed.
  *
  * @author Achikan Levy
  * @see Mark
+ * @see BoardStorage
  */
 public class Board {
 
-    private final Mark[][] board;  // Represents the game board
+    // move log layout: room for every mark ordinal, and the first capacity of the log
+    private static final int MOVE_MARKS = 4;
+    private static final int INITIAL_LOG_CAPACITY = 16;
+
+    // the mark of each ordinal in the move log, Mark.values() clones its array on every call
+    private static final Mark[] MARKS = Mark.values();
+
+    // the largest board that keeps all of its cells, larger boards keep only the marked cells
+    public static final int MAX_DENSE_SIZE = 64;
+
+    private final BoardStorage board;  // Represents the game board
     private int size = 4;  // Default size of the board
+    private int lastRow = -1;  // Row of the last placed mark, -1 before the first move
+    private int lastCol = -1;  // Column of the last placed mark, -1 before the first move
+
+    // index of the empty cells, built on first use: the cells (row * size + col) and each cell's place in it
+    private int[] emptyCells;
+    private int[] emptyPlaces;
+    private int emptyCount;
+
+    // the moves made so far, in order: each one packed as (row * size + col) * MOVE_MARKS + mark ordinal
+    private long[] moveLog = new long[INITIAL_LOG_CAPACITY];
+    private int moveCount = 0;
 
     /**
      * Constructs a Board object with the default size and initializes the board with blank cells.
      */
     public Board() {
-        this.board = new Mark[this.size][this.size];
-        blankBoard(this.size);
+        this.board = new BitBoardStorage(this.size);
     }
 
     /**
@@ -26,21 +51,45 @@ public class Board {
      */
     public Board(int size) {
         this.size = size;
-        this.board = new Mark[this.size][this.size];
-        blankBoard(this.size);
+        if (size > MAX_DENSE_SIZE) {
+            this.board = new SparseBoardStorage(this.size);
+        } else {
+            this.board = new BitBoardStorage(this.size);
+        }
     }
 
     /**
-     * Initializes the game board with blank cells.
+     * Constructs a Board object on top of the given cells storage.
+     * Marks that are already in the storage are not part of the move log.
      *
-     * @param size The size of the square game board.
+     * @param storage The storage of the board cells, its size is the size of the board.
      */
-    private void blankBoard(int size) {
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                board[row][col] = Mark.BLANK;
-            }
-        }
+    public Board(BoardStorage storage) {
+        this.size = storage.getSize();
+        this.board = storage;
+    }
+
+    /**
+     * Constructs a Board object holding the same marks and moves as another board.
+     *
+     * @param other The board to copy.
+     */
+    private Board(Board other) {
+        this.size = other.size;
+        this.board = other.board.copy();
+        this.lastRow = other.lastRow;
+        this.lastCol = other.lastCol;
+        this.moveLog = other.moveLog.clone();
+        this.moveCount = other.moveCount;
+    }
+
+    /**
+     * Creates an independent copy of the board, a snapshot that later moves on either board don't change.
+     *
+     * @return A copy of the board and its moves.
+     */
+    public Board copy() {
+        return new Board(this);
     }
 
     /**
@@ -73,8 +122,14 @@ public class Board {
      */
     public boolean putMark(Mark mark, int row, int col) {
         if (isIndexLegal(row) && isIndexLegal(col)) {
-            if (this.board[row][col] == Mark.BLANK) {
-                this.board[row][col] = mark;
+            if (this.board.get(row, col) == Mark.BLANK) {
+                this.board.set(row, col, mark);
+                this.lastRow = row;
+                this.lastCol = col;
+                if (this.emptyCells != null && mark != Mark.BLANK) {
+                    removeEmptyCell(row * this.size + col);
+                }
+                logMove(mark, row, col);
                 return true;
             }
         }
@@ -82,6 +137,98 @@ public class Board {
     }
 
 
+    /**
+     * Takes back the last move made on the board, the cell of the move becomes blank again.
+     *
+     * @return True if a move was taken back, false if no move was made.
+     */
+    public boolean undoLastMark() {
+        if (this.moveCount == 0) {
+            return false;
+        }
+        int cell = (int) (this.moveLog[--this.moveCount] / MOVE_MARKS);
+        this.board.set(cell / this.size, cell % this.size, Mark.BLANK);
+        if (this.emptyCells != null) {
+            addEmptyCell(cell);
+        }
+        // the last move is now the one before
+        if (this.moveCount > 0) {
+            this.lastRow = getMoveRow(this.moveCount - 1);
+            this.lastCol = getMoveCol(this.moveCount - 1);
+        } else {
+            this.lastRow = -1;
+            this.lastCol = -1;
+        }
+        return true;
+    }
+
+    /**
+     * Appends a move to the move log, growing the log when it is full.
+     *
+     * @param mark The mark that was placed.
+     * @param row  The row index of the cell.
+     * @param col  The column index of the cell.
+     */
+    private void logMove(Mark mark, int row, int col) {
+        if (this.moveCount == this.moveLog.length) {
+            this.moveLog = Arrays.copyOf(this.moveLog, 2 * this.moveLog.length);
+        }
+        this.moveLog[this.moveCount++] = (long) (row * this.size + col) * MOVE_MARKS + mark.ordinal();
+    }
+
+    /**
+     * Retrieves the number of moves made on the board.
+     *
+     * @return The length of the move log.
+     */
+    public int getMoveCount() {
+        return this.moveCount;
+    }
+
+    /**
+     * Retrieves the row of a logged move.
+     *
+     * @param move The index of the move in the log, 0 for the first move.
+     * @return The row index of the move.
+     */
+    public int getMoveRow(int move) {
+        return (int) (this.moveLog[move] / MOVE_MARKS / this.size);
+    }
+
+    /**
+     * Retrieves the column of a logged move.
+     *
+     * @param move The index of the move in the log, 0 for the first move.
+     * @return The column index of the move.
+     */
+    public int getMoveCol(int move) {
+        return (int) (this.moveLog[move] / MOVE_MARKS % this.size);
+    }
+
+    /**
+     * Retrieves the mark of a logged move.
+     *
+     * @param move The index of the move in the log, 0 for the first move.
+     * @return The mark that was placed in the move.
+     */
+    public Mark getMoveMark(int move) {
+        return MARKS[(int) (this.moveLog[move] % MOVE_MARKS)];
+    }
+
+    /**
+     * Replays the first moves of the log on a new, empty board.
+     *
+     * @param moves The number of moves to replay, between 0 and getMoveCount().
+     * @return A new board holding the position after these moves.
+     */
+    public Board replay(int moves) {
+        Board replayed = new Board(this.size);
+        for (int move = 0; move < moves; move++) {
+            replayed.putMark(getMoveMark(move), getMoveRow(move), getMoveCol(move));
+        }
+        return replayed;
+    }
+
     /**
      * Retrieves the mark at the specified cell on the game board.
      *
@@ -93,6 +240,112 @@ public class Board {
         if (!isIndexLegal(row) || !isIndexLegal(col)) {
             return Mark.BLANK;
         }
-        return this.board[row][col];
+        return this.board.get(row, col);
+    }
+
+    /**
+     * Checks if one of the four lines through a cell holds a streak of the given mark that includes the cell.
+     *
+     * @param mark      The mark to check (X or O).
+     * @param row       The row index of the cell.
+     * @param col       The column index of the cell.
+     * @param winStreak The number of consecutive marks required.
+     * @return True if a line through the cell holds winStreak consecutive marks,
+     * false otherwise or if the indices are out of bounds.
+     */
+    public boolean isStreakThrough(Mark mark, int row, int col, int winStreak) {
+        if (!isIndexLegal(row) || !isIndexLegal(col)) {
+            return false;
+        }
+        return this.board.isStreakThrough(mark, row, col, winStreak);
+    }
+
+    /**
+     * Counts the empty cells left on the game board.
+     *
+     * @return The number of blank cells.
+     */
+    public int countEmptyCells() {
+        return this.board.countEmpty();
+    }
+
+    /**
+     * Checks if the board keeps only its marked cells, as boards larger than MAX_DENSE_SIZE do.
+     * Work that is linear in the board area, like the index of the empty cells, should be avoided on such boards.
+     *
+     * @return True if the cells are kept in a SparseBoardStorage.
+     */
+    public boolean isSparse() {
+        return this.board instanceof SparseBoardStorage;
+    }
+
+    /**
+     * Retrieves an empty cell by its place in the index of the empty cells.
+     * The index is built on the first call and then kept up to date by putMark,
+     * so picking a random empty cell is O(1) at any stage of the game.
+     * The order of the cells in the index changes as cells are marked.
+     * The index holds two ints per cell of the board, so it shouldn't be used on sparse boards.
+     *
+     * @param place The place of the cell in the index, between 0 and countEmptyCells() - 1.
+     * @return The empty cell, as row * size + col.
+     */
+    public int getEmptyCell(int place) {
+        if (this.emptyCells == null) {
+            buildEmptyCellsIndex();
+        }
+        return this.emptyCells[place];
+    }
+
+    /**
+     * Builds the index of the empty cells from the current board.
+     */
+    private void buildEmptyCellsIndex() {
+        this.emptyCells = new int[this.size * this.size];
+        this.emptyPlaces = new int[this.size * this.size];
+        this.emptyCount = 0;
+        for (int cell = this.board.nextEmpty(0); cell >= 0; cell = this.board.nextEmpty(cell + 1)) {
+            this.emptyPlaces[cell] = this.emptyCount;
+            this.emptyCells[this.emptyCount++] = cell;
+        }
+    }
+
+    /**
+     * Adds a cell that became blank to the end of the index of the empty cells.
+     *
+     * @param cell The cell that was cleared, as row * size + col.
+     */
+    private void addEmptyCell(int cell) {
+        this.emptyPlaces[cell] = this.emptyCount;
+        this.emptyCells[this.emptyCount++] = cell;
+    }
+
+    /**
+     * Removes a cell from the index of the empty cells, by moving the last empty cell into its place.
+     *
+     * @param cell The cell that was marked, as row * size + col.
+     */
+    private void removeEmptyCell(int cell) {
+        int place = this.emptyPlaces[cell];
+        int lastCell = this.emptyCells[--this.emptyCount];
+        this.emptyCells[place] = lastCell;
+        this.emptyPlaces[lastCell] = place;
+    }
+
+    /**
+     * Retrieves the row index of the last mark placed on the board.
+     *
+     * @return The row of the last placed mark, or -1 if the board is still empty.
+     */
+    public int getLastRow() {
+        return this.lastRow;
+    }
+
+    /**
+     * Retrieves the column index of the last mark placed on the board.
+     *
+     * @return The column of the last placed mark, or -1 if the board is still empty.
+     */
+    public int getLastCol() {
+        return this.lastCol;
     }
 }
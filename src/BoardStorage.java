@@ -0,0 +1,109 @@
+
+/**
+ * Represents the storage of the cells of a square game board.
+ * The Board class keeps the game rules (bounds checks, occupied cells) and delegates the
+ * actual cell representation to a BoardStorage, so different backends can be plugged in.
+ * Implementations may assume that the given indices are within the board.
+ *
+ * @author Achikam Levy
+ * @see Board
+ * @see ArrayBoardStorage
+ * @see BitBoardStorage
+ */
+public interface BoardStorage {
+
+    /**
+     * Retrieves the size of the stored square board.
+     *
+     * @return The number of rows (and columns) of the board.
+     */
+    int getSize();
+
+    /**
+     * Retrieves the mark stored in a cell.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return The mark in the cell, Mark.BLANK for an empty cell.
+     */
+    Mark get(int row, int col);
+
+    /**
+     * Stores a mark in a cell, Mark.BLANK clears the cell.
+     *
+     * @param row  The row index of the cell.
+     * @param col  The column index of the cell.
+     * @param mark The mark to store.
+     */
+    void set(int row, int col, Mark mark);
+
+    /**
+     * Counts the empty cells of the board.
+     *
+     * @return The number of cells holding Mark.BLANK.
+     */
+    int countEmpty();
+
+    /**
+     * Creates an independent copy of the storage.
+     *
+     * @return A new storage holding the same marks.
+     */
+    BoardStorage copy();
+
+    /**
+     * Finds the first empty cell at or after the given cell, in row major order.
+     * This default scans the cells one by one, storages that can do better override it.
+     *
+     * @param cell The cell to start from, as row * size + col.
+     * @return The empty cell as row * size + col, or -1 if there is no such cell.
+     */
+    default int nextEmpty(int cell) {
+        int size = getSize();
+        for (int next = cell; next < size * size; next++) {
+            if (get(next / size, next % size) == Mark.BLANK) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if one of the four lines through a cell (row, column and both diagonals)
+     * holds a streak of the given mark that includes the cell.
+     * This default counts the run of marks on both sides of the cell, one cell at a time,
+     * so it costs O(winStreak). Storages that can do better override it.
+     *
+     * @param mark      The mark to check (X or O).
+     * @param row       The row index of the cell.
+     * @param col       The column index of the cell.
+     * @param winStreak The number of consecutive marks required.
+     * @return True if a line through the cell holds winStreak consecutive marks, false otherwise.
+     */
+    default boolean isStreakThrough(Mark mark, int row, int col, int winStreak) {
+        if (mark == Mark.BLANK || get(row, col) != mark) {
+            return false;
+        }
+        for (int line = 0; line < Lines.COUNT; line++) {
+            // the cell itself plus its run on both sides of this line
+            int run = 1;
+            for (int sign = -1; sign <= 1; sign += 2) {
+                int rowStep = sign * Lines.rowStep(line);
+                int colStep = sign * Lines.colStep(line);
+                for (int i = 1; i < winStreak; i++) {
+                    int r = row + i * rowStep;
+                    int c = col + i * colStep;
+                    // out of bounds cells are blank, so the streak is broken on the board edges
+                    if (r < 0 || r >= getSize() || c < 0 || c >= getSize() || get(r, c) != mark) {
+                        break;
+                    }
+                    run++;
+                }
+            }
+            if (run >= winStreak) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,200 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks every BoardStorage backend against a plain array of marks: reading and writing cells,
+ * counting and enumerating the empty cells, streaks through a cell and copies.
+ *
+ * @author Achikam Levy
+ * @see BoardStorage
+ * @see ArrayBoardStorage
+ * @see BitBoardStorage
+ * @see SparseBoardStorage
+ */
+public class BoardStorage_Tests {
+
+    // the four line directions: row, column, main diagonal and anti diagonal
+    private static final int[] ROW_STEPS = {0, 1, 1, 1};
+    private static final int[] COL_STEPS = {1, 0, 1, -1};
+
+    // sizes around the word boundaries of the bitboards, a single long holds up to 7x7
+    private static final int[] SIZES = {2, 3, 4, 7, 8, 9, 15, 63, 64};
+    private static final int BACKENDS = 3;
+    private static final long SEED = 20240602L;
+
+    /**
+     * Builds an empty storage of one of the backends.
+     *
+     * @param backend 0 for an ArrayBoardStorage, 1 for a BitBoardStorage, 2 for a SparseBoardStorage.
+     * @param size    The size of the board.
+     * @return The empty storage.
+     */
+    private static BoardStorage emptyStorage(int backend, int size) {
+        switch (backend) {
+            case 0:
+                return new ArrayBoardStorage(size);
+            case 1:
+                return new BitBoardStorage(size);
+            default:
+                return new SparseBoardStorage(size);
+        }
+    }
+
+    /**
+     * Checks that a storage holds exactly the marks of the reference array.
+     *
+     * @param expected The reference marks, by row and column.
+     * @param storage  The storage to check.
+     * @param name     The name of the storage in the failure messages.
+     */
+    private static void assertSameMarks(Mark[][] expected, BoardStorage storage, String name) {
+        int size = expected.length;
+        int empty = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Assertions.assertEquals(expected[row][col], storage.get(row, col), name + " cell " + row + "," + col);
+                if (expected[row][col] == Mark.BLANK) {
+                    empty++;
+                }
+            }
+        }
+        Assertions.assertEquals(empty, storage.countEmpty(), name + " empty cells");
+    }
+
+    /**
+     * Checks the runs of a mark through a cell along the four lines, the cell included.
+     *
+     * @param marks     The reference marks, by row and column.
+     * @param mark      The mark of the streak.
+     * @param row       The row index of the cell.
+     * @param col       The column index of the cell.
+     * @param winStreak The number of consecutive marks required.
+     * @return True if a line through the cell holds winStreak consecutive marks.
+     */
+    private static boolean isStreakThrough(Mark[][] marks, Mark mark, int row, int col, int winStreak) {
+        int size = marks.length;
+        if (marks[row][col] != mark) {
+            return false;
+        }
+        for (int line = 0; line < ROW_STEPS.length; line++) {
+            int run = 1;
+            for (int direction = -1; direction <= 1; direction += 2) {
+                int r = row + direction * ROW_STEPS[line];
+                int c = col + direction * COL_STEPS[line];
+                while (r >= 0 && r < size && c >= 0 && c < size && marks[r][c] == mark) {
+                    run++;
+                    r += direction * ROW_STEPS[line];
+                    c += direction * COL_STEPS[line];
+                }
+            }
+            if (run >= winStreak) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void cellsMatchTheReference() {
+        Random random = new Random(SEED);
+        for (int backend = 0; backend < BACKENDS; backend++) {
+            for (int size : SIZES) {
+                BoardStorage storage = emptyStorage(backend, size);
+                Mark[][] expected = new Mark[size][size];
+                for (Mark[] row : expected) {
+                    Arrays.fill(row, Mark.BLANK);
+                }
+                String name = storage.getClass().getSimpleName() + " " + size;
+                Assertions.assertEquals(size, storage.getSize(), name);
+                assertSameMarks(expected, storage, name);
+                // writes of every mark, blanks included, so cells are cleared as well as set
+                for (int i = 0; i < 4 * size * size; i++) {
+                    int row = random.nextInt(size);
+                    int col = random.nextInt(size);
+                    Mark mark = Mark.values()[random.nextInt(Mark.values().length)];
+                    storage.set(row, col, mark);
+                    expected[row][col] = mark;
+                }
+                assertSameMarks(expected, storage, name);
+            }
+        }
+    }
+
+    @Test
+    public void nextEmptyEnumeratesTheBlankCells() {
+        Random random = new Random(SEED + 1);
+        for (int backend = 0; backend < BACKENDS; backend++) {
+            for (int size : SIZES) {
+                BoardStorage storage = emptyStorage(backend, size);
+                for (int cell = 0; cell < size * size; cell++) {
+                    if (random.nextInt(3) != 0) {
+                        storage.set(cell / size, cell % size, random.nextBoolean() ? Mark.X : Mark.O);
+                    }
+                }
+                String name = storage.getClass().getSimpleName() + " " + size;
+                int expected = -1;
+                for (int cell = size * size - 1; cell >= 0; cell--) {
+                    if (storage.get(cell / size, cell % size) == Mark.BLANK) {
+                        expected = cell;
+                    }
+                    Assertions.assertEquals(expected, storage.nextEmpty(cell), name + " from " + cell);
+                }
+                Assertions.assertEquals(-1, storage.nextEmpty(size * size), name + " past the last cell");
+            }
+        }
+    }
+
+    @Test
+    public void streakThroughMatchesTheReference() {
+        Random random = new Random(SEED + 2);
+        for (int backend = 0; backend < BACKENDS; backend++) {
+            for (int size : SIZES) {
+                BoardStorage storage = emptyStorage(backend, size);
+                Mark[][] marks = new Mark[size][size];
+                for (int row = 0; row < size; row++) {
+                    for (int col = 0; col < size; col++) {
+                        // mostly X, so long streaks show up in every direction
+                        int draw = random.nextInt(10);
+                        marks[row][col] = draw < 6 ? Mark.X : draw < 8 ? Mark.O : Mark.BLANK;
+                        storage.set(row, col, marks[row][col]);
+                    }
+                }
+                String name = storage.getClass().getSimpleName() + " " + size;
+                for (int winStreak = 2; winStreak <= Math.min(size, 8); winStreak++) {
+                    for (int row = 0; row < size; row++) {
+                        for (int col = 0; col < size; col++) {
+                            for (Mark mark : new Mark[]{Mark.X, Mark.O}) {
+                                Assertions.assertEquals(isStreakThrough(marks, mark, row, col, winStreak),
+                                        storage.isStreakThrough(mark, row, col, winStreak),
+                                        name + " " + mark + " at " + row + "," + col + " streak " + winStreak);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        for (int backend = 0; backend < BACKENDS; backend++) {
+            for (int size : SIZES) {
+                BoardStorage storage = emptyStorage(backend, size);
+                storage.set(0, 0, Mark.X);
+                BoardStorage copy = storage.copy();
+                String name = storage.getClass().getSimpleName() + " " + size;
+                Assertions.assertEquals(storage.getClass(), copy.getClass(), name);
+                Assertions.assertEquals(Mark.X, copy.get(0, 0), name);
+                copy.set(size - 1, size - 1, Mark.O);
+                storage.set(0, 0, Mark.BLANK);
+                Assertions.assertEquals(Mark.BLANK, storage.get(size - 1, size - 1), name + " original");
+                Assertions.assertEquals(Mark.X, copy.get(0, 0), name + " copy");
+                Assertions.assertEquals(size * size, storage.countEmpty(), name + " original");
+                Assertions.assertEquals(size * size - 2, copy.countEmpty(), name + " copy");
+            }
+        }
+    }
+}
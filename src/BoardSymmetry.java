@@ -0,0 +1,206 @@
+import java.util.Arrays;
+
+/**
+ * Maps board positions to a canonical form under the eight symmetries of the square
+ * (four rotations, each with or without a mirror), so that rotated or mirrored positions share one key.
+ * A position is packed into 2 bits per cell (the mark ordinal), and a single pass over the cells
+ * builds the packed encodings of all eight transformed positions at once. The canonical form is
+ * the smallest of the eight encodings, together with the id of the transform that produced it.
+ * A move found for the canonical position is mapped back to the real board with inverseCell.
+ * A BoardSymmetry keeps its results in internal buffers, so it should be used by one thread.
+ *
+ * @author Achikam Levy
+ * @see Board
+ * @see Position
+ */
+public class BoardSymmetry {
+
+    // number of symmetries of the square
+    public static final int TRANSFORMS = 8;
+
+    private static final int BITS_PER_CELL = 2;
+    private static final int CELLS_PER_WORD = Long.SIZE / BITS_PER_CELL;
+
+    private final int size;  // The size of the board
+    private final int[][] cellMaps;  // For every transform, the cell each cell moves to
+    private final int[][] inverseMaps;  // For every transform, the cell each cell came from
+    private final long[][] encodings;  // The packed encodings of the transformed positions
+    private int canonicalTransform;  // The transform of the last canonical form
+
+    /**
+     * Constructs a BoardSymmetry for boards of the given size.
+     *
+     * @param size The size of the square board.
+     */
+    public BoardSymmetry(int size) {
+        this.size = size;
+        int cells = size * size;
+        this.cellMaps = new int[TRANSFORMS][cells];
+        this.inverseMaps = new int[TRANSFORMS][cells];
+        for (int transform = 0; transform < TRANSFORMS; transform++) {
+            for (int cell = 0; cell < cells; cell++) {
+                int target = transformCoordinates(transform, cell / size, cell % size);
+                this.cellMaps[transform][cell] = target;
+                this.inverseMaps[transform][target] = cell;
+            }
+        }
+        this.encodings = new long[TRANSFORMS][(cells + CELLS_PER_WORD - 1) / CELLS_PER_WORD];
+    }
+
+    /**
+     * Computes where a cell moves to under a transform.
+     *
+     * @param transform The transform id, between 0 and TRANSFORMS - 1.
+     * @param row       The row index of the cell.
+     * @param col       The column index of the cell.
+     * @return The target cell, as row * size + col.
+     */
+    private int transformCoordinates(int transform, int row, int col) {
+        int last = this.size - 1;
+        return switch (transform) {
+            case 0 -> row * this.size + col;  // identity
+            case 1 -> col * this.size + (last - row);  // rotate 90
+            case 2 -> (last - row) * this.size + (last - col);  // rotate 180
+            case 3 -> (last - col) * this.size + row;  // rotate 270
+            case 4 -> row * this.size + (last - col);  // mirror left to right
+            case 5 -> (last - row) * this.size + col;  // mirror top to bottom
+            case 6 -> col * this.size + row;  // mirror on the main diagonal
+            default -> (last - col) * this.size + (last - row);  // mirror on the anti diagonal
+        };
+    }
+
+    /**
+     * Computes the canonical form of a board.
+     *
+     * @param board The board, its size must be the size of this BoardSymmetry.
+     * @return The id of the transform that maps the board to its canonical form.
+     */
+    public int canonicalize(Board board) {
+        clearEncodings();
+        for (int cell = 0; cell < this.size * this.size; cell++) {
+            addCell(cell, board.getMark(cell / this.size, cell % this.size).ordinal());
+        }
+        return chooseCanonical();
+    }
+
+    /**
+     * Computes the canonical form of a search position.
+     *
+     * @param position The position, its size must be the size of this BoardSymmetry.
+     * @return The id of the transform that maps the position to its canonical form.
+     */
+    public int canonicalize(Position position) {
+        clearEncodings();
+        for (int cell = 0; cell < this.size * this.size; cell++) {
+            // Position cell values are the mark ordinals
+            addCell(cell, position.get(cell));
+        }
+        return chooseCanonical();
+    }
+
+    /**
+     * Clears the encodings before a new position.
+     */
+    private void clearEncodings() {
+        for (long[] encoding : this.encodings) {
+            Arrays.fill(encoding, 0);
+        }
+    }
+
+    /**
+     * Adds a cell to the encodings of all the transformed positions.
+     *
+     * @param cell  The cell, as row * size + col.
+     * @param value The mark ordinal of the cell.
+     */
+    private void addCell(int cell, int value) {
+        if (value == 0) {
+            return;  // blank cells are zero bits
+        }
+        for (int transform = 0; transform < TRANSFORMS; transform++) {
+            int target = this.cellMaps[transform][cell];
+            this.encodings[transform][target / CELLS_PER_WORD] |=
+                    (long) value << (BITS_PER_CELL * (target % CELLS_PER_WORD));
+        }
+    }
+
+    /**
+     * Chooses the smallest encoding as the canonical form.
+     *
+     * @return The id of the transform of the smallest encoding.
+     */
+    private int chooseCanonical() {
+        int best = 0;
+        for (int transform = 1; transform < TRANSFORMS; transform++) {
+            if (compare(this.encodings[transform], this.encodings[best]) < 0) {
+                best = transform;
+            }
+        }
+        this.canonicalTransform = best;
+        return best;
+    }
+
+    /**
+     * Compares two packed encodings as unsigned numbers, the last word being the most significant.
+     *
+     * @param first  A packed encoding.
+     * @param second A packed encoding.
+     * @return A negative number, zero or a positive number, as first is smaller, equal or larger.
+     */
+    private static int compare(long[] first, long[] second) {
+        for (int word = first.length - 1; word >= 0; word--) {
+            int result = Long.compareUnsigned(first[word], second[word]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Retrieves the packed canonical form of the last canonicalized position.
+     * The array is reused by the next call to canonicalize.
+     *
+     * @return The packed canonical encoding, 2 bits per cell.
+     */
+    public long[] getCanonicalKey() {
+        return this.encodings[this.canonicalTransform];
+    }
+
+    /**
+     * Folds the canonical form of the last canonicalized position into a single 64 bit hash,
+     * for caches that key their entries by a long. Boards of up to 32 cells are folded without loss.
+     *
+     * @return A hash of the canonical form.
+     */
+    public long getCanonicalHash() {
+        long[] key = getCanonicalKey();
+        long hash = key[0];
+        for (int word = 1; word < key.length; word++) {
+            hash = hash * 0x9E3779B97F4A7C15L + key[word];
+        }
+        return hash;
+    }
+
+    /**
+     * Maps a cell of the real board to its cell in the transformed board.
+     *
+     * @param transform The transform id.
+     * @param cell      The cell of the real board, as row * size + col.
+     * @return The cell in the transformed board.
+     */
+    public int transformCell(int transform, int cell) {
+        return this.cellMaps[transform][cell];
+    }
+
+    /**
+     * Maps a cell of the transformed board back to the real board, for example a move found for the canonical form.
+     *
+     * @param transform The transform id.
+     * @param cell      The cell of the transformed board, as row * size + col.
+     * @return The cell of the real board.
+     */
+    public int inverseCell(int transform, int cell) {
+        return this.inverseMaps[transform][cell];
+    }
+}
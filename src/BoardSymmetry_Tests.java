@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks that BoardSymmetry maps the cells of every transform back and forth, and gives the same
+ * canonical key to a position and to all of its rotations and mirrors.
+ *
+ * @author Achikam Levy
+ * @see BoardSymmetry
+ */
+public class BoardSymmetry_Tests {
+
+    // odd and even sizes, and a board whose key needs more than one long
+    private static final int[] SIZES = {2, 3, 4, 5, 6, 9};
+    private static final int POSITIONS = 50;
+    private static final long SEED = 20240607L;
+
+    /**
+     * Builds the board of a position with one of the transforms applied to every cell.
+     *
+     * @param board     The board to transform.
+     * @param symmetry  The symmetry of the board's size.
+     * @param transform The id of the transform, between 0 and BoardSymmetry.TRANSFORMS - 1.
+     * @return The transformed board.
+     */
+    private static Board transformed(Board board, BoardSymmetry symmetry, int transform) {
+        int size = board.getSize();
+        Board result = new Board(size);
+        for (int cell = 0; cell < size * size; cell++) {
+            Mark mark = board.getMark(cell / size, cell % size);
+            if (mark != Mark.BLANK) {
+                int target = symmetry.transformCell(transform, cell);
+                result.putMark(mark, target / size, target % size);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void inverseCellUndoesTransformCell() {
+        for (int size : SIZES) {
+            BoardSymmetry symmetry = new BoardSymmetry(size);
+            for (int transform = 0; transform < BoardSymmetry.TRANSFORMS; transform++) {
+                Set<Integer> targets = new HashSet<>();
+                for (int cell = 0; cell < size * size; cell++) {
+                    int target = symmetry.transformCell(transform, cell);
+                    String name = size + " transform " + transform + " cell " + cell;
+                    Assertions.assertTrue(target >= 0 && target < size * size, name);
+                    Assertions.assertEquals(cell, symmetry.inverseCell(transform, target), name);
+                    targets.add(target);
+                }
+                // every transform is a permutation of the cells
+                Assertions.assertEquals(size * size, targets.size(), size + " transform " + transform);
+            }
+        }
+    }
+
+    @Test
+    public void canonicalKeyIgnoresRotationsAndMirrors() {
+        Random random = new Random(SEED);
+        for (int size : SIZES) {
+            BoardSymmetry symmetry = new BoardSymmetry(size);
+            for (int i = 0; i < POSITIONS; i++) {
+                Board board = new Board(size);
+                int moves = random.nextInt(size * size + 1);
+                for (int move = 0; move < moves; move++) {
+                    int cell = board.getEmptyCell(random.nextInt(board.countEmptyCells()));
+                    board.putMark(move % 2 == 0 ? Mark.X : Mark.O, cell / size, cell % size);
+                }
+                symmetry.canonicalize(board);
+                long[] key = symmetry.getCanonicalKey().clone();
+                for (int transform = 0; transform < BoardSymmetry.TRANSFORMS; transform++) {
+                    symmetry.canonicalize(transformed(board, symmetry, transform));
+                    Assertions.assertTrue(Arrays.equals(key, symmetry.getCanonicalKey()),
+                            size + " position " + i + " transform " + transform);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void canonicalMoveMapsBackToTheBoard() {
+        Random random = new Random(SEED + 1);
+        for (int size : SIZES) {
+            BoardSymmetry symmetry = new BoardSymmetry(size);
+            for (int i = 0; i < POSITIONS; i++) {
+                Board board = new Board(size);
+                int moves = random.nextInt(size * size);
+                for (int move = 0; move < moves; move++) {
+                    int cell = board.getEmptyCell(random.nextInt(board.countEmptyCells()));
+                    board.putMark(move % 2 == 0 ? Mark.X : Mark.O, cell / size, cell % size);
+                }
+                int transform = symmetry.canonicalize(board);
+                Board canonical = transformed(board, symmetry, transform);
+                // every cell of the canonical position maps back to a board cell with the same mark
+                for (int cell = 0; cell < size * size; cell++) {
+                    int boardCell = symmetry.inverseCell(transform, cell);
+                    Assertions.assertEquals(canonical.getMark(cell / size, cell % size),
+                            board.getMark(boardCell / size, boardCell % size),
+                            size + " position " + i + " cell " + cell);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void differentPositionsHaveDifferentKeys() {
+        BoardSymmetry symmetry = new BoardSymmetry(3);
+        Board corner = new Board(3);
+        corner.putMark(Mark.X, 0, 0);
+        Board edge = new Board(3);
+        edge.putMark(Mark.X, 0, 1);
+        Board otherCorner = new Board(3);
+        otherCorner.putMark(Mark.X, 2, 2);
+        symmetry.canonicalize(corner);
+        long[] cornerKey = symmetry.getCanonicalKey().clone();
+        symmetry.canonicalize(edge);
+        Assertions.assertFalse(Arrays.equals(cornerKey, symmetry.getCanonicalKey()));
+        symmetry.canonicalize(otherCorner);
+        Assertions.assertTrue(Arrays.equals(cornerKey, symmetry.getCanonicalKey()));
+    }
+}
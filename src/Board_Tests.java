@@ -0,0 +1,158 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Checks the move log of the Board: undoing moves on every board storage, copies and replays.
+ *
+ * @author Achikam Levy
+ * @see Board
+ */
+public class Board_Tests {
+
+    private static final int[] SIZES = {3, 8, 9};
+    private static final int BACKENDS = 3;
+    private static final long SEED = 20240606L;
+
+    /**
+     * Builds an empty board on one of the storages.
+     *
+     * @param backend 0 for an ArrayBoardStorage, 1 for a BitBoardStorage, 2 for a SparseBoardStorage.
+     * @param size    The size of the board.
+     * @return The empty board.
+     */
+    private static Board emptyBoard(int backend, int size) {
+        switch (backend) {
+            case 0:
+                return new Board(new ArrayBoardStorage(size));
+            case 1:
+                return new Board(new BitBoardStorage(size));
+            default:
+                return new Board(new SparseBoardStorage(size));
+        }
+    }
+
+    /**
+     * Checks that two boards hold the same marks.
+     *
+     * @param expected The board with the expected marks.
+     * @param actual   The board to check.
+     * @param name     The name of the check in the failure messages.
+     */
+    private static void assertSameMarks(Board expected, Board actual, String name) {
+        int size = expected.getSize();
+        Assertions.assertEquals(size, actual.getSize(), name);
+        for (int cell = 0; cell < size * size; cell++) {
+            Assertions.assertEquals(expected.getMark(cell / size, cell % size),
+                    actual.getMark(cell / size, cell % size), name + " cell " + cell);
+        }
+        Assertions.assertEquals(expected.countEmptyCells(), actual.countEmptyCells(), name + " empty cells");
+    }
+
+    @Test
+    public void undoRestoresEveryPosition() {
+        Random random = new Random(SEED);
+        for (int backend = 0; backend < BACKENDS; backend++) {
+            for (int size : SIZES) {
+                Board board = emptyBoard(backend, size);
+                String name = backend + " " + size;
+                // the position before every move, the moves are picked through the empty cells index
+                Board[] before = new Board[size * size];
+                for (int move = 0; move < size * size; move++) {
+                    before[move] = board.copy();
+                    int cell = board.getEmptyCell(random.nextInt(board.countEmptyCells()));
+                    Assertions.assertTrue(board.putMark(move % 2 == 0 ? Mark.X : Mark.O, cell / size, cell % size),
+                            name + " move " + move);
+                    Assertions.assertEquals(cell / size, board.getLastRow(), name);
+                    Assertions.assertEquals(cell % size, board.getLastCol(), name);
+                }
+                Assertions.assertEquals(0, board.countEmptyCells(), name);
+                for (int move = size * size - 1; move >= 0; move--) {
+                    Assertions.assertTrue(board.undoLastMark(), name + " undo " + move);
+                    assertSameMarks(before[move], board, name + " undo " + move);
+                    Assertions.assertEquals(before[move].getLastRow(), board.getLastRow(), name);
+                    Assertions.assertEquals(before[move].getLastCol(), board.getLastCol(), name);
+                    Assertions.assertEquals(move, board.getMoveCount(), name);
+                }
+                Assertions.assertFalse(board.undoLastMark(), name);
+                // the empty cells index follows the undos
+                for (int place = 0; place < board.countEmptyCells(); place++) {
+                    int cell = board.getEmptyCell(place);
+                    Assertions.assertEquals(Mark.BLANK, board.getMark(cell / size, cell % size), name);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void moveLogHoldsTheMovesInOrder() {
+        Board board = new Board(4);
+        board.putMark(Mark.X, 1, 2);
+        board.putMark(Mark.O, 3, 0);
+        // a rejected move is not logged
+        Assertions.assertFalse(board.putMark(Mark.X, 1, 2));
+        board.putMark(Mark.X, 0, 3);
+        Assertions.assertEquals(3, board.getMoveCount());
+        Assertions.assertEquals(1, board.getMoveRow(0));
+        Assertions.assertEquals(2, board.getMoveCol(0));
+        Assertions.assertEquals(Mark.X, board.getMoveMark(0));
+        Assertions.assertEquals(3, board.getMoveRow(1));
+        Assertions.assertEquals(0, board.getMoveCol(1));
+        Assertions.assertEquals(Mark.O, board.getMoveMark(1));
+        Assertions.assertEquals(0, board.getMoveRow(2));
+        Assertions.assertEquals(3, board.getMoveCol(2));
+        Assertions.assertEquals(Mark.X, board.getMoveMark(2));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        Random random = new Random(SEED + 1);
+        for (int backend = 0; backend < BACKENDS; backend++) {
+            for (int size : SIZES) {
+                Board board = emptyBoard(backend, size);
+                for (int move = 0; move < size; move++) {
+                    int cell = board.getEmptyCell(random.nextInt(board.countEmptyCells()));
+                    board.putMark(move % 2 == 0 ? Mark.X : Mark.O, cell / size, cell % size);
+                }
+                String name = backend + " " + size;
+                Board snapshot = board.copy();
+                Board copy = board.copy();
+                assertSameMarks(board, copy, name);
+                Assertions.assertEquals(board.getMoveCount(), copy.getMoveCount(), name);
+
+                // moves and undos on either board leave the other one as it was
+                int cell = copy.getEmptyCell(0);
+                copy.putMark(Mark.X, cell / size, cell % size);
+                board.undoLastMark();
+                board.undoLastMark();
+                Assertions.assertEquals(size + 1, copy.getMoveCount(), name + " copy");
+                Assertions.assertEquals(Mark.X, copy.getMark(cell / size, cell % size), name + " copy");
+                copy.undoLastMark();
+                assertSameMarks(snapshot, copy, name + " copy");
+                Assertions.assertEquals(size - 2, board.getMoveCount(), name + " original");
+                assertSameMarks(snapshot.replay(size - 2), board, name + " original");
+            }
+        }
+    }
+
+    @Test
+    public void replayRebuildsEveryPrefix() {
+        Random random = new Random(SEED + 2);
+        for (int size : SIZES) {
+            Board board = new Board(size);
+            Board[] before = new Board[size * size + 1];
+            for (int move = 0; move < size * size; move++) {
+                before[move] = board.copy();
+                int cell = board.getEmptyCell(random.nextInt(board.countEmptyCells()));
+                board.putMark(move % 2 == 0 ? Mark.X : Mark.O, cell / size, cell % size);
+            }
+            before[size * size] = board.copy();
+            for (int moves = 0; moves <= size * size; moves++) {
+                Board replayed = board.replay(moves);
+                assertSameMarks(before[moves], replayed, size + " replay " + moves);
+                Assertions.assertEquals(moves, replayed.getMoveCount(), size + " replay " + moves);
+            }
+        }
+    }
+}
@@ -1,16 +1,29 @@
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.logging.Logger;
 
 /**
  * A supplied class for the Tic Tac Toe exercise in the OOP MOOC by the Hebrew University.
  * Renders a given part_2.Board to the console.
+ * The whole frame is kept in a single char array, only the cells whose mark changed since the
+ * previous frame are redrawn in it, and the frame is written to the console with a single Writer call.
+ * By default every frame is printed in full, as it always was. An incremental renderer clears the screen and
+ * prints the first frame, and then sends only the changed cells, each one behind an ANSI cursor move,
+ * so a turn costs a few dozen bytes instead of the whole board. It needs an ANSI terminal tall enough for
+ * the frame, and nothing else may print while it renders.
  *
  * @author Dan Nirel
  */
 public class ConsoleRenderer implements Renderer {
-    private static final Character FIRST_ROW = '0';
-    private static final Character FIRST_COL = '0';
+    private static final int FIRST_ROW = 0;
+    private static final int FIRST_COL = 0;
+    private static final int MAX_SIZE = 99;
     private static final int ROWS_PER_MARK = 3;
     private static final int COLS_PER_MARK = 9;
     private static final char DEFAULT_CHAR = ' ';
@@ -38,18 +51,45 @@ public class ConsoleRenderer implements Renderer {
                     "         "}
     );
 
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    // ANSI escape sequences of the incremental renderer, terminal rows and columns count from 1
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+    private static final String CURSOR_TO_START = "\033[";
+    private static final char CURSOR_TO_SEPARATOR = ';';
+    private static final char CURSOR_TO_END = 'H';
+
     private final char[][] buffer;// = new char[BUFFER_ROWS][BUFFER_COLS];
+    private final char[] frame;  // the buffer rows one after the other, each followed by a line separator
+    private final int frameRowLength;  // chars of a single buffer row in the frame, with its line separator
+    private final Mark[] drawnMarks;  // the mark currently drawn in each cell of the frame
+    private final Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+    private final boolean incremental;  // True to send only the changed cells after the first frame
+    private final StringBuilder updates = new StringBuilder();  // the cursor moves and cells of the next update
+    private boolean framePrinted = false;  // True once the incremental renderer printed its first frame
 
     /**
-     * Initializes the renderer.
+     * Initializes the renderer, that prints every frame in full.
      */
     public ConsoleRenderer(int size) {
+        this(size, false);
+    }
+
+    /**
+     * Initializes the renderer.
+     *
+     * @param size        the size of the rendered boards.
+     * @param incremental true to print the first frame on a cleared screen and then only the changed cells,
+     *                    addressed with ANSI cursor moves, false to print every frame in full.
+     */
+    public ConsoleRenderer(int size, boolean incremental) {
+        this.incremental = incremental;
         int bufferRows = size * ROWS_PER_MARK + (size - 1) + NUM_ROWS_BEFORE_BOARD;
         int bufferCols = size * COLS_PER_MARK + (size - 1) + NUM_COLS_BEFORE_BOARD;
         this.buffer = new char[bufferRows][bufferCols];
 
-        if (size > 9 || size < 2) {
-            String errorMsg = "part_2.Board size must be in the range [2, 9]";
+        if (size > MAX_SIZE || size < 2) {
+            String errorMsg = "part_2.Board size must be in the range [2, " + MAX_SIZE + "]";
             Logger.getGlobal().severe(errorMsg);
             throw new Error(errorMsg);
         }
@@ -72,15 +112,31 @@ public class ConsoleRenderer implements Renderer {
                 buffer[j][i] = VERTICAL_LINE_CHAR;
         }
 
-        //draw indices
-        char index = FIRST_COL; // start counting column indexes here
-        for (int col = NUM_COLS_BEFORE_BOARD + COLS_PER_MARK / 2; col < bufferCols; col += COLS_PER_MARK + 1)
-            buffer[NUM_ROWS_BEFORE_BOARD / 2][col] = index++;
+        //draw indices, column indices are centered over their column and row indices end at the same place
+        int index = FIRST_COL; // start counting column indexes here
+        for (int col = NUM_COLS_BEFORE_BOARD + COLS_PER_MARK / 2; col < bufferCols; col += COLS_PER_MARK + 1) {
+            String label = Integer.toString(index++);
+            label.getChars(0, label.length(), buffer[NUM_ROWS_BEFORE_BOARD / 2], col - (label.length() - 1) / 2);
+        }
         index = FIRST_ROW; // start counting row indexes here: 00
         for (int row = NUM_ROWS_BEFORE_BOARD + ROWS_PER_MARK / 2; row < bufferRows; row += ROWS_PER_MARK + 1) {
-            buffer[row][NUM_COLS_BEFORE_BOARD / 2 - 1] = index++;
+            String label = Integer.toString(index++);
+            label.getChars(0, label.length(), buffer[row], NUM_COLS_BEFORE_BOARD / 2 - label.length());
 //			buffer[row][NUM_COLS_BEFORE_BOARD/2] = ' ';//'0';
         }
+
+        // flatten the buffer into the frame, the board starts blank
+        this.frameRowLength = bufferCols + LINE_SEPARATOR.length();
+        this.frame = new char[bufferRows * this.frameRowLength + LINE_SEPARATOR.length()];
+        for (int i = 0; i <= bufferRows; i++) {
+            if (i < bufferRows) {
+                System.arraycopy(buffer[i], 0, this.frame, i * this.frameRowLength, bufferCols);
+            }
+            LINE_SEPARATOR.getChars(0, LINE_SEPARATOR.length(), this.frame, i * this.frameRowLength
+                    + (i < bufferRows ? bufferCols : 0));
+        }
+        this.drawnMarks = new Mark[size * size];
+        Arrays.fill(this.drawnMarks, Mark.BLANK);
     }
 
     /**
@@ -92,25 +148,69 @@ public class ConsoleRenderer implements Renderer {
     public void renderBoard(Board board) {
         for (int i = 0; i < board.getSize(); i++) {
             for (int j = 0; j < board.getSize(); j++) {
-                drawMarkInBuffer(NUM_ROWS_BEFORE_BOARD + i * (ROWS_PER_MARK + 1),
-                        NUM_COLS_BEFORE_BOARD + j * (COLS_PER_MARK + 1), board.getMark(i, j));
+                Mark mark = board.getMark(i, j);
+                // redraw only the cells that changed since the last frame
+                if (this.drawnMarks[i * board.getSize() + j] != mark) {
+                    this.drawnMarks[i * board.getSize() + j] = mark;
+                    int rowStart = NUM_ROWS_BEFORE_BOARD + i * (ROWS_PER_MARK + 1);
+                    int colStart = NUM_COLS_BEFORE_BOARD + j * (COLS_PER_MARK + 1);
+                    drawMarkInBuffer(rowStart, colStart, mark);
+                    if (this.incremental && this.framePrinted) {
+                        addUpdate(rowStart, colStart, mark);
+                    }
+                }
             }
         }
 
-        for (int i = 0; i < buffer.length; i++) {
-            for (int j = 0; j < buffer[i].length; j++)
-                System.out.print(buffer[i][j]);
-            System.out.println();
+        try {
+            if (!this.incremental) {
+                this.out.write(this.frame);
+            } else if (!this.framePrinted) {
+                this.out.write(CLEAR_SCREEN);
+                this.out.write(this.frame);
+                this.framePrinted = true;
+            } else {
+                // park the cursor under the frame and its empty line, where the full frame would have left it
+                moveCursor(this.frame.length / this.frameRowLength + 1, 0);
+                this.out.append(this.updates);
+                this.updates.setLength(0);
+            }
+            this.out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        System.out.println();
+    }
+
+    /**
+     * Adds the drawing of a changed cell to the next update, each line of it behind a cursor move.
+     *
+     * @param rowStart the frame row of the top line of the cell.
+     * @param colStart the frame column of the left end of the cell.
+     * @param mark     the mark drawn in the cell.
+     */
+    private void addUpdate(int rowStart, int colStart, Mark mark) {
+        String[] markLines = MARKS_DRAWINGS.get(mark);
+        for (int i = 0; i < markLines.length; i++) {
+            moveCursor(rowStart + i, colStart);
+            this.updates.append(markLines[i]);
+        }
+    }
+
+    /**
+     * Adds a cursor move to a frame row and column to the next update.
+     *
+     * @param row the frame row, 0 for the top row of the frame.
+     * @param col the frame column, 0 for the left end of the frame.
+     */
+    private void moveCursor(int row, int col) {
+        this.updates.append(CURSOR_TO_START).append(row + 1).append(CURSOR_TO_SEPARATOR).append(col + 1)
+                .append(CURSOR_TO_END);
     }
 
     private void drawMarkInBuffer(int rowStart, int colStart, Mark mark) {
         String[] markLines = MARKS_DRAWINGS.get(mark);
         for (int i = 0; i < markLines.length; i++) {
-            for (int j = 0; j < markLines[i].length(); j++) {
-                buffer[rowStart + i][colStart + j] = markLines[i].charAt(j);
-            }
+            markLines[i].getChars(0, markLines[i].length(), this.frame, (rowStart + i) * this.frameRowLength + colStart);
         }
     }
 }
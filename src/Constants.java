@@ -1,9 +1,9 @@
 public class Constants {
     public final static String UNKNOWN_PLAYER_NAME =
-            "Choose a player, and start again.\nThe players: [human, clever, whatever, genius]";
+            "Choose a player, and start again.\nThe players: [human, clever, whatever, genius, alphabeta, mcts, tablebase]";
 
     public final static String UNKNOWN_RENDERER_NAME =
-            "Choose a renderer, and start again. \nPlease choose one of the following [console, none]";
+            "Choose a renderer, and start again. \nPlease choose one of the following [console, none, async, ansi]";
 
     public final static String INVALID_COORDINATE =
             "Invalid mark position, please choose a different position.\n" +
@@ -0,0 +1,90 @@
+
+/**
+ * Detects a dead draw: a position where no line of winStreak cells can be completed by any player anymore.
+ * Every candidate winning line (a window of winStreak cells in a row, a column or a diagonal) remembers
+ * which marks it holds. A window that holds both X and O is closed, and once all the windows are closed
+ * the game can only end with a tie. Each move updates only the windows that contain its cell,
+ * so it costs O(winStreak).
+ *
+ * @author Achikam Levy
+ * @see Game
+ * @see WinDetector
+ */
+public class DrawDetector {
+
+    // marks a window holds
+    private static final byte HAS_X = 1;
+    private static final byte HAS_O = 2;
+    private static final byte CLOSED = HAS_X | HAS_O;
+
+    private final int size;  // The size of the board
+    private final int winStreak;  // Number of consecutive marks required for a win
+    private final byte[] windows;  // Marks held by each window, by direction and first cell
+    private int openWindows;  // Windows that at least one player can still complete
+
+    /**
+     * Constructs a DrawDetector for an empty board.
+     *
+     * @param size      The size of the square game board.
+     * @param winStreak The number of consecutive marks required for a win.
+     */
+    public DrawDetector(int size, int winStreak) {
+        this.size = size;
+        this.winStreak = winStreak;
+        this.windows = new byte[Lines.COUNT * size * size];
+        // windows along rows and columns, then along both diagonals
+        int startsPerLine = size - winStreak + 1;
+        this.openWindows = 2 * size * startsPerLine + 2 * startsPerLine * startsPerLine;
+    }
+
+    /**
+     * Updates the windows that contain a newly marked cell.
+     *
+     * @param mark The mark that was placed.
+     * @param row  The row index of the marked cell.
+     * @param col  The column index of the marked cell.
+     */
+    public void markPlaced(Mark mark, int row, int col) {
+        byte held = mark == Mark.X ? HAS_X : HAS_O;
+        for (int line = 0; line < Lines.COUNT; line++) {
+            // every window of this direction whose first cell is up to winStreak - 1 steps back
+            for (int i = 0; i < this.winStreak; i++) {
+                int startRow = row - i * Lines.rowStep(line);
+                int startCol = col - i * Lines.colStep(line);
+                if (!isWindow(line, startRow, startCol)) {
+                    continue;
+                }
+                int window = (line * this.size + startRow) * this.size + startCol;
+                byte before = this.windows[window];
+                this.windows[window] |= held;
+                if (before != CLOSED && this.windows[window] == CLOSED) {
+                    this.openWindows--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a window that starts at the given cell fits on the board.
+     *
+     * @param line     The direction of the window.
+     * @param startRow The row index of the first cell.
+     * @param startCol The column index of the first cell.
+     * @return True if all the cells of the window are on the board.
+     */
+    private boolean isWindow(int line, int startRow, int startCol) {
+        int endRow = startRow + (this.winStreak - 1) * Lines.rowStep(line);
+        int endCol = startCol + (this.winStreak - 1) * Lines.colStep(line);
+        return startRow >= 0 && startCol >= 0 && startCol < this.size
+                && endRow < this.size && endCol >= 0 && endCol < this.size;
+    }
+
+    /**
+     * Checks if every window holds both marks, so no player can win anymore.
+     *
+     * @return True if the game is a dead draw.
+     */
+    public boolean isDeadDraw() {
+        return this.openWindows == 0;
+    }
+}
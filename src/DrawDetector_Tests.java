@@ -0,0 +1,92 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Checks the DrawDetector against a brute-force scan of every window of the board,
+ * after every move of random games.
+ *
+ * @author Achikam Levy
+ * @see DrawDetector
+ */
+public class DrawDetector_Tests {
+
+    // the four line directions: row, column, main diagonal and anti diagonal
+    private static final int[] ROW_STEPS = {0, 1, 1, 1};
+    private static final int[] COL_STEPS = {1, 0, 1, -1};
+
+    private static final int GAMES = 300;
+    private static final long SEED = 20240605L;
+
+    /**
+     * Scans every window of winStreak cells on the board for one that doesn't hold both marks.
+     *
+     * @param board     The board to scan.
+     * @param winStreak The number of consecutive marks required.
+     * @return True if every window holds both marks, so no player can win anymore.
+     */
+    private static boolean isDeadDraw(Board board, int winStreak) {
+        int size = board.getSize();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                for (int line = 0; line < ROW_STEPS.length; line++) {
+                    int endRow = row + ROW_STEPS[line] * (winStreak - 1);
+                    int endCol = col + COL_STEPS[line] * (winStreak - 1);
+                    if (endRow >= size || endCol < 0 || endCol >= size) {
+                        continue;
+                    }
+                    boolean hasX = false;
+                    boolean hasO = false;
+                    for (int i = 0; i < winStreak; i++) {
+                        Mark mark = board.getMark(row + ROW_STEPS[line] * i, col + COL_STEPS[line] * i);
+                        hasX |= mark == Mark.X;
+                        hasO |= mark == Mark.O;
+                    }
+                    if (!hasX || !hasO) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Test
+    public void matchesFullScan() {
+        Random random = new Random(SEED);
+        for (int game = 0; game < GAMES; game++) {
+            int size = 2 + random.nextInt(8);
+            int winStreak = 2 + random.nextInt(size - 1);
+            Board board = new Board(size);
+            DrawDetector detector = new DrawDetector(size, winStreak);
+            for (int move = 0; move < size * size; move++) {
+                Mark mark = move % 2 == 0 ? Mark.X : Mark.O;
+                int cell;
+                do {
+                    cell = random.nextInt(size * size);
+                } while (board.getMark(cell / size, cell % size) != Mark.BLANK);
+                board.putMark(mark, cell / size, cell % size);
+                detector.markPlaced(mark, cell / size, cell % size);
+                Assertions.assertEquals(isDeadDraw(board, winStreak), detector.isDeadDraw(),
+                        "size " + size + ", streak " + winStreak + ", move " + move);
+            }
+        }
+    }
+
+    @Test
+    public void emptyBoardIsNotADeadDraw() {
+        Assertions.assertFalse(new DrawDetector(3, 3).isDeadDraw());
+    }
+
+    @Test
+    public void blockedBoardIsADeadDraw() {
+        // X O X / X O O / O X - : the last cell can't complete any line for either mark
+        Mark[] marks = {Mark.X, Mark.O, Mark.X, Mark.X, Mark.O, Mark.O, Mark.O, Mark.X};
+        DrawDetector detector = new DrawDetector(3, 3);
+        for (int cell = 0; cell < marks.length; cell++) {
+            detector.markPlaced(marks[cell], cell / 3, cell % 3);
+        }
+        Assertions.assertTrue(detector.isDeadDraw());
+    }
+}
@@ -0,0 +1,247 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the tic-tac-toe engine: the Board operations, a whole Game.run with a VoidRenderer,
+ * a single playTurn of every computer player and a pair of Tournament rounds.
+ * The Board benchmark runs for every board size from 2 to 9, the others for every distinct
+ * "size:winStreak" configuration of those sizes with win streaks 3 to 5, clamped to the board size as in a game.
+ * The searching players get a fixed depth or playout budget instead of their time budget, so a benchmark
+ * measures the work of a move rather than the clock, and every player is built once per trial.
+ * Run the main method to get the throughput of each benchmark together with the
+ * allocation rate of the GC profiler.
+ *
+ * @author Achikam Levy
+ * @see Board
+ * @see Game
+ * @see Tournament
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    // fixed seed, so every run benchmarks the same positions
+    private static final long SEED = 208764944L;
+
+    // fixed search budgets, the time budget is only a guard that is never reached
+    private static final int ALPHA_BETA_DEPTH = 4;
+    private static final int ALPHA_BETA_TABLE_BITS = 18;
+    private static final long MCTS_PLAYOUTS = 2000;
+    private static final long GUARD_TIME_BUDGET_MILLIS = 60_000;
+
+    // players names constants.
+    private static final String ALPHA_BETA = "alphabeta";
+    private static final String MCTS = "mcts";
+    private static final String WHATEVER = "whatever";
+
+    private static final Renderer RENDERER = new VoidRenderer();
+
+    /**
+     * The board size of the Board benchmark.
+     */
+    @State(Scope.Thread)
+    public static class BoardSizeState {
+
+        @Param({"2", "3", "4", "5", "6", "7", "8", "9"})
+        public int size;
+    }
+
+    /**
+     * The board size and win streak of the benchmarks that play games.
+     */
+    @State(Scope.Thread)
+    public static class ConfigurationState {
+
+        @Param({"2:2", "3:3", "4:3", "4:4", "5:3", "5:4", "5:5", "6:3", "6:4", "6:5",
+                "7:3", "7:4", "7:5", "8:3", "8:4", "8:5", "9:3", "9:4", "9:5"})
+        public String configuration;
+
+        private int size;
+        private int winStreak;
+
+        /**
+         * Parses the configuration.
+         */
+        @Setup(Level.Trial)
+        public void parseConfiguration() {
+            String[] fields = this.configuration.split(":");
+            this.size = Integer.parseInt(fields[0]);
+            this.winStreak = Integer.parseInt(fields[1]);
+        }
+    }
+
+    /**
+     * The computer player of the benchmarks that play turns, and its whatever opponent in the tournament
+     * rounds, built once per trial.
+     */
+    @State(Scope.Thread)
+    public static class PlayerState {
+
+        @Param({"whatever", "clever", "genius", "alphabeta", "mcts"})
+        public String playerType;
+
+        private Player player;
+        private int playerId;
+        private Player opponent;
+        private int opponentId;
+
+        /**
+         * Builds the players for the win streak of the configuration.
+         *
+         * @param configuration The configuration state, holds the win streak.
+         */
+        @Setup(Level.Trial)
+        public void buildPlayers(ConfigurationState configuration) {
+            PlayerFactory playerFactory = new PlayerFactory();
+            int winStreak = configuration.winStreak;
+            this.player = switch (this.playerType) {
+                case ALPHA_BETA -> new AlphaBetaPlayer(winStreak, GUARD_TIME_BUDGET_MILLIS, ALPHA_BETA_TABLE_BITS,
+                        ALPHA_BETA_DEPTH);
+                case MCTS -> new MctsPlayer(winStreak, 1, GUARD_TIME_BUDGET_MILLIS, MCTS_PLAYOUTS);
+                default -> playerFactory.buildPlayer(this.playerType, winStreak);
+            };
+            this.playerId = playerFactory.getPlayerId(this.playerType);
+            this.opponent = playerFactory.buildPlayer(WHATEVER, winStreak);
+            this.opponentId = playerFactory.getPlayerId(WHATEVER);
+        }
+
+        /**
+         * Releases what the players hold, such as the threads of an MctsPlayer.
+         */
+        @TearDown(Level.Trial)
+        public void closePlayers() {
+            Tournament.closePlayer(this.player);
+            Tournament.closePlayer(this.opponent);
+        }
+    }
+
+    /**
+     * A board with random marks on half of its cells, rebuilt before every turn.
+     */
+    @State(Scope.Thread)
+    public static class HalfFullBoardState {
+
+        private final Random random = new Random(SEED);
+        private Board board;
+        private Mark markToMove;
+
+        /**
+         * Builds a new half full board.
+         *
+         * @param configuration The configuration state, holds the board size.
+         */
+        @Setup(Level.Invocation)
+        public void buildBoard(ConfigurationState configuration) {
+            int size = configuration.size;
+            this.board = new Board(size);
+            int moves = size * size / 2;
+            for (int i = 0; i < moves; i++) {
+                Mark mark = i % 2 == 0 ? Mark.X : Mark.O;
+                while (!this.board.putMark(mark, this.random.nextInt(size), this.random.nextInt(size))) {
+                    // try another cell
+                }
+            }
+            this.markToMove = moves % 2 == 0 ? Mark.X : Mark.O;
+        }
+    }
+
+    /**
+     * Fills a board cell by cell and reads every cell back.
+     *
+     * @param boardSize The board size state.
+     * @param blackhole Consumes the marks that were read.
+     */
+    @Benchmark
+    public void boardPutAndGetMark(BoardSizeState boardSize, Blackhole blackhole) {
+        int size = boardSize.size;
+        Board board = new Board(size);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                blackhole.consume(board.putMark((row + col) % 2 == 0 ? Mark.X : Mark.O, row, col));
+            }
+        }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                blackhole.consume(board.getMark(row, col));
+            }
+        }
+    }
+
+    /**
+     * Plays a whole game of the player against itself, without rendering.
+     *
+     * @param configuration The board size and win streak of the game.
+     * @param playerState   The player of the game.
+     * @return The result of the game.
+     */
+    @Benchmark
+    public Mark gameRun(ConfigurationState configuration, PlayerState playerState) {
+        Player player = playerState.player;
+        return new Game(player, player, configuration.size, configuration.winStreak, RENDERER).run();
+    }
+
+    /**
+     * Plays a single turn on a board that is half full.
+     *
+     * @param playerState The player that plays the turn.
+     * @param boardState  The board to play on.
+     * @return The board after the turn.
+     */
+    @Benchmark
+    public Board playTurn(PlayerState playerState, HalfFullBoardState boardState) {
+        playerState.player.playTurn(boardState.board, boardState.markToMove);
+        return boardState.board;
+    }
+
+    /**
+     * Plays two tournament rounds of the player against a whatever player, one as X and one as O.
+     *
+     * @param configuration The board size and win streak of the rounds.
+     * @param playerState   The player and its whatever opponent.
+     * @return The score of the rounds.
+     */
+    @Benchmark
+    public TournamentScore tournamentRounds(ConfigurationState configuration, PlayerState playerState) {
+        TournamentScore score = new TournamentScore();
+        Tournament.playRounds(0, 2, configuration.size, configuration.winStreak, playerState.player,
+                playerState.playerId, playerState.opponent, playerState.opponentId, RENDERER, null, null, score);
+        return score;
+    }
+
+    /**
+     * Runs all the benchmarks with the GC profiler.
+     *
+     * @param args not used.
+     * @throws RunnerException if JMH fails to run the benchmarks.
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EngineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,160 @@
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Starts and commits the Java Flight Recorder events of games and tournaments.
+ * Nothing is created until the flight recorder runs: the first use of an event class starts the
+ * recorder up, which takes a good part of a second, so until then every method returns after a single check.
+ * Once the recorder runs, an event is created only if a recording enables its type, e.g. with
+ * java -XX:StartFlightRecording=filename=rounds.jfr Tournament ... or jcmd PID JFR.start on a running tournament.
+ *
+ * @author Achikam Levy
+ * @see RoundEvent
+ * @see MoveEvent
+ * @see RenderEvent
+ */
+public class FlightEvents {
+
+    // the types of the events, looked up once the flight recorder runs
+    private static volatile EventType moveType = null;
+    private static volatile EventType renderType = null;
+    private static volatile EventType roundType = null;
+
+    /**
+     * Constructs a FlightEvents.
+     * nothing is need to be done in this constructor, all the methods are static.
+     */
+    private FlightEvents() {
+    }
+
+    /**
+     * Starts the event of a move, if a recording enables it.
+     *
+     * @return The started event, or null if no recording enables move events.
+     */
+    static MoveEvent startMove() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        if (moveType == null) {
+            moveType = EventType.getEventType(MoveEvent.class);
+        }
+        if (!moveType.isEnabled()) {
+            return null;
+        }
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event of a move, and commits it if a recording asks for it.
+     *
+     * @param event  The event, as returned by startMove.
+     * @param player The player that moved.
+     * @param mark   The mark of the player.
+     * @param board  The board, its last move is the move of the player.
+     */
+    static void finishMove(MoveEvent event, Player player, Mark mark, Board board) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = player.getClass().getSimpleName();
+            event.mark = mark.name();
+            event.moveNumber = board.getMoveCount() - 1;
+            event.row = board.getLastRow();
+            event.col = board.getLastCol();
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts the event of a renderBoard call, if a recording enables it.
+     *
+     * @return The started event, or null if no recording enables render events.
+     */
+    static RenderEvent startRender() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        if (renderType == null) {
+            renderType = EventType.getEventType(RenderEvent.class);
+        }
+        if (!renderType.isEnabled()) {
+            return null;
+        }
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event of a renderBoard call, and commits it if a recording asks for it.
+     *
+     * @param event    The event, as returned by startRender.
+     * @param renderer The renderer that was called.
+     * @param board    The rendered board.
+     */
+    static void finishRender(RenderEvent event, Renderer renderer, Board board) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.renderer = renderer.getClass().getSimpleName();
+            event.moveNumber = board.getMoveCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts the event of a round, if a recording enables it.
+     *
+     * @return The started event, or null if no recording enables round events.
+     */
+    static RoundEvent startRound() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        if (roundType == null) {
+            roundType = EventType.getEventType(RoundEvent.class);
+        }
+        if (!roundType.isEnabled()) {
+            return null;
+        }
+        RoundEvent event = new RoundEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event of a round, and commits it if a recording asks for it.
+     *
+     * @param event      The event, as returned by startRound.
+     * @param game       The game of the round, after it ended.
+     * @param roundIndex The index of the round.
+     * @param playerXId  The record id of the player who played as 'X'.
+     * @param playerOId  The record id of the player who played as 'O'.
+     * @param result     The winning mark (X, O) or Mark.BLANK for a draw.
+     */
+    static void finishRound(RoundEvent event, Game game, int roundIndex, int playerXId, int playerOId,
+                            Mark result) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            PlayerFactory playerFactory = new PlayerFactory();
+            event.round = roundIndex;
+            event.playerX = playerFactory.getPlayerType(playerXId);
+            event.playerO = playerFactory.getPlayerType(playerOId);
+            event.size = game.getBoardSize();
+            event.winStreak = game.getWinStreak();
+            event.moves = game.getBoard().getMoveCount();
+            event.result = result.name();
+            event.commit();
+        }
+    }
+}
@@ -2,6 +2,9 @@
  * Represents a two-player game with a game board, players, and rendering capabilities.
  * The game follows a turn-based system where players make moves and attempt to achieve a winning streak.
  * The outcome of the game can be one of three possibilities: player X wins, player O wins, or a draw (blank).
+ * The game ends with a draw as soon as no line on the board can be won by any player anymore.
+ * With a GameMetrics set, the game times every move, the win checks and the rendering.
+ * Every move and every rendering is also a Java Flight Recorder event, recorded only when a recording is on.
  *
  * @author Achikam Levy
  * @see Board
@@ -11,17 +14,16 @@
  */
 public class Game {
 
-    // directions of moving for winning checks
-    private final int STATIC = 0;
-    private final int FORWARD = 1;
-    private final int BACKWARD = -1;
-
     private final int MAX_TURNS;  // Maximum number of turns in the game
     private final Renderer renderer;  // Renderer for displaying the game state
     private final Player playerX;  // Player X
     private final Player playerO;  // Player O
     private final Board board;  // The game board
     private int winStreak = 3;  // Number of consecutive marks required for a win
+    private final WinDetector winDetector;  // Checks the lines through the last marked cell
+    private final DrawDetector drawDetector;  // Tracks the lines that can still be won
+    private GameMetrics metrics = null;  // Times the moves, checks and rendering, null to time nothing
+    private Mark playerAMark = Mark.X;  // The mark of player 1 of the metrics
 
     /**
      * Constructs a Game object with default settings and initializes the game components.
@@ -40,6 +42,9 @@ public class Game {
 
         // Maximum turns based on board size
         this.MAX_TURNS = this.board.getSize() * this.board.getSize();
+
+        this.winDetector = new WinDetector(this.winStreak);
+        this.drawDetector = new DrawDetector(this.board.getSize(), this.winStreak);
     }
 
     /**
@@ -65,6 +70,10 @@ public class Game {
         // Adjusts win streak within valid range : if winStreak > size so winStreak = size,
         // if 2 > winStreak so winStreak = 2, else stay winStreak.
         this.winStreak = Math.max(2, Math.min(winStreak, size));
+
+        this.winDetector = new WinDetector(this.winStreak);
+        // a dead draw on a sparse board is too far away to be worth a window per cell
+        this.drawDetector = this.board.isSparse() ? null : new DrawDetector(this.board.getSize(), this.winStreak);
     }
 
     /**
@@ -86,111 +95,38 @@ public class Game {
     }
 
     /**
-     * Checks if a player mark has won the game based on getting a winStreak in given length.
-     *
-     * @param winStreak The number of consecutive marks required for a win.
-     * @param mark      The player's mark to check for a win.
-     * @param row       The row index of the last marked cell.
-     * @param col       The column index of the last marked cell.
-     * @return true winning player's is mark, else false.
-     */
-    private boolean checkWinStreak(int winStreak, Mark mark, int row, int col) {
-        // checks if the player mark Sign has won in one of tree options
-        return checkRow(winStreak, mark, row, col)
-                || checkCol(winStreak, mark, row, col)
-                || checkDiagonals(winStreak, mark, row, col);
-    }
-
-    /**
-     * Checks for a win condition in a row.
-     *
-     * @param winStreak The number of consecutive marks required for a win.
-     * @param mark      The player's mark to check for a win.
-     * @param row       The row index of the last marked cell.
-     * @param col       The column index of the last marked cell.
-     * @return True if there is a win in the row, false otherwise.
-     */
-    private boolean checkRow(int winStreak, Mark mark, int row, int col) {
-        if (checkStreak(winStreak, mark, row, col, STATIC, FORWARD)) return true;
-        return checkStreak(winStreak, mark, row, col, STATIC, BACKWARD);
-    }
-
-    /**
-     * Checks for a win condition in a column.
+     * Retrieves the game board, its move log holds the moves played so far.
      *
-     * @param winStreak The number of consecutive marks required for a win.
-     * @param mark      The player's mark to check for a win.
-     * @param row       The row index of the last marked cell.
-     * @param col       The column index of the last marked cell.
-     * @return True if there is a win in the column, false otherwise.
+     * @return The game board.
      */
-    private boolean checkCol(int winStreak, Mark mark, int row, int col) {
-        if (checkStreak(winStreak, mark, row, col, FORWARD, STATIC)) return true;
-        return checkStreak(winStreak, mark, row, col, BACKWARD, STATIC);
+    public Board getBoard() {
+        return this.board;
     }
 
     /**
-     * Checks for a win condition in a diagonal.
+     * Times the game to a GameMetrics.
      *
-     * @param winStreak The number of consecutive marks required for a win.
-     * @param mark      The player's mark to check for a win.
-     * @param row       The row index of the last marked cell.
-     * @param col       The column index of the last marked cell.
-     * @return True if there is a win in a diagonal, false otherwise.
+     * @param metrics     The metrics to record to, or null to time nothing.
+     * @param playerAMark The mark played by player 1 of the metrics in this game.
      */
-    private boolean checkDiagonals(int winStreak, Mark mark, int row, int col) {
-        if (checkStreak(winStreak, mark, row, col, FORWARD, FORWARD)) return true;
-        if (checkStreak(winStreak, mark, row, col, BACKWARD, BACKWARD)) return true;
-        if (checkStreak(winStreak, mark, row, col, FORWARD, BACKWARD)) return true;
-        return checkStreak(winStreak, mark, row, col, BACKWARD, FORWARD);
-    }
-
-    /**
-     * checks if there is a winning streak on the given direction.
-     * using the signRow and the signCol to determine the direction.
-     *
-     * @param winStreak The number of consecutive marks required for a win.
-     * @param mark      The player's mark to check for a win.
-     * @param row       The row index of the last marked cell.
-     * @param col       The column index of the last marked cell.
-     * @param signRow   direction to move in the rows
-     * @param signCol   direction to move in the columns
-     * @return True if there is a win in this direction, false otherwise.
-     */
-    private boolean checkStreak(int winStreak, Mark mark, int row, int col, int signRow, int signCol) {
-        int curStreak = 0;
-        for (int i = 0; i < winStreak; i++) {
-            // if the streak was broken
-            if (this.board.getMark(row + (i * signRow), col + (i * signCol)) != mark) {
-                break;
-            }
-            curStreak++;
-            if (curStreak == winStreak) {
-                return true;
-            }
-        }
-        return false;
+    public void setMetrics(GameMetrics metrics, Mark playerAMark) {
+        this.metrics = metrics;
+        this.playerAMark = playerAMark;
     }
 
-
     /**
-     * Checks for a win based on the specified mark,
-     * iterating through all possible positions on the game board.
+     * Checks if the last move of the given mark won the game.
+     * Only the lines that pass through the last marked cell are checked,
+     * since any new winning streak must contain that cell.
      *
      * @param mark The mark to check for a win (X or O).
      * @return The winning mark if found, Mark.BLANK otherwise.
      */
     private Mark checkIfWin(Mark mark) {
-
-        for (int i = 0; i < this.board.getSize(); ++i) {
-            for (int j = 0; j < this.board.getSize(); ++j) {
-                // Check for a winning condition of mark at each position on the board
-                if (checkWinStreak(this.winStreak, mark, i, j)) {
-                    return mark;
-                }
-            }
+        if (this.winDetector.isWinningMove(this.board, mark, this.board.getLastRow(), this.board.getLastCol())) {
+            return mark;
         }
-        // in case of tie, return
+        // no new streak was made by this move
         return Mark.BLANK;
     }
 
@@ -202,22 +138,68 @@ public class Game {
      */
     private Mark markTurnWin(Player player, Mark mark) {
         // Player mark's turn
+        MoveEvent moveEvent = FlightEvents.startMove();
+        long start = this.metrics == null ? 0 : System.nanoTime();
         player.playTurn(this.board, mark);
+        long moved = this.metrics == null ? 0 : System.nanoTime();
+        FlightEvents.finishMove(moveEvent, player, mark, this.board);
+        if (this.metrics != null) {
+            this.metrics.recordMove(mark == this.playerAMark, moved - start);
+            // neither the move nor the win check is timed with the commit of the move event
+            start = moveEvent == null ? moved : System.nanoTime();
+        }
 
         // Check for a win after each move by Player X
         if (this.checkIfWin(mark) == mark) {
-            this.renderer.renderBoard(this.board);
+            if (this.metrics != null) {
+                this.metrics.recordWinCheck(System.nanoTime() - start);
+            }
+            render();
             return mark;
         }
+        if (this.drawDetector != null) {
+            this.drawDetector.markPlaced(mark, this.board.getLastRow(), this.board.getLastCol());
+        }
+        if (this.metrics != null) {
+            this.metrics.recordWinCheck(System.nanoTime() - start);
+        }
         return null;
     }
 
+    /**
+     * Renders the board, timing the renderer if there are metrics or a flight recording.
+     */
+    private void render() {
+        RenderEvent renderEvent = FlightEvents.startRender();
+        if (this.metrics == null) {
+            this.renderer.renderBoard(this.board);
+        } else {
+            long start = System.nanoTime();
+            this.renderer.renderBoard(this.board);
+            this.metrics.recordRender(System.nanoTime() - start);
+        }
+        FlightEvents.finishRender(renderEvent, this.renderer, this.board);
+    }
+
     /**
      * Runs the game, allowing players to take turns until a winner is determined or the game ends in a draw.
      *
      * @return The winning mark (X, O) or Mark.BLANK for a draw.
      */
     public Mark run() {
+        Mark result = play();
+        if (this.metrics != null) {
+            this.metrics.recordGame(this.board.getMoveCount());
+        }
+        return result;
+    }
+
+    /**
+     * Plays the turns of the game until a winner is determined or the game ends in a draw.
+     *
+     * @return The winning mark (X, O) or Mark.BLANK for a draw.
+     */
+    private Mark play() {
         for (int i = 0; i < this.MAX_TURNS; ++i) {
             if (i % 2 == 0) {
                 Mark x = markTurnWin(this.playerX, Mark.X);
@@ -226,7 +208,12 @@ public class Game {
                 Mark o = markTurnWin(this.playerO, Mark.O);
                 if (o != null) return o;
             }
-            this.renderer.renderBoard(this.board);
+            render();
+
+            // no line can be completed anymore, the rest of the game can only end with a tie
+            if (this.drawDetector != null && this.drawDetector.isDeadDraw()) {
+                return Mark.BLANK;
+            }
         }
         return Mark.BLANK;
     }
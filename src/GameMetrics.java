@@ -0,0 +1,190 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Collects timing metrics of the games of a tournament: a move latency histogram for every player,
+ * histograms of the time Game.run spends checking for a win or a draw and rendering the board,
+ * the number of games and moves, and the wall time of the tournament.
+ * Recording allocates nothing. A GameMetrics is not thread safe, every worker thread records to its own
+ * and they are merged with add.
+ *
+ * @author Achikam Levy
+ * @see LatencyHistogram
+ * @see Game
+ * @see Tournament
+ */
+public class GameMetrics {
+
+    // percentiles printed
+    private static final double MEDIAN = 50;
+    private static final double TAIL = 99;
+
+    // time units
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    // header of the CSV file, a row is appended for every tournament
+    private static final String CSV_HEADER = "player1,player2,size,win_streak,games,seconds,games_per_second,"
+            + "moves_per_game,player1_p50_ns,player1_p99_ns,player1_max_ns,player2_p50_ns,player2_p99_ns,"
+            + "player2_max_ns,win_check_p50_ns,win_check_p99_ns,win_check_max_ns,render_p50_ns,render_p99_ns,"
+            + "render_max_ns";
+
+    private final LatencyHistogram playerAMoves = new LatencyHistogram();  // playTurn durations of player 1
+    private final LatencyHistogram playerBMoves = new LatencyHistogram();  // playTurn durations of player 2
+    private final LatencyHistogram winChecks = new LatencyHistogram();  // Win and draw checks after every move
+    private final LatencyHistogram renders = new LatencyHistogram();  // renderBoard calls
+    private long games = 0;  // Games played to the end
+    private long moves = 0;  // Moves of all the games
+    private long elapsedNanos = 0;  // Wall time of the tournament
+
+    /**
+     * Constructs an empty GameMetrics.
+     * nothing is need to be done in this constructor.
+     */
+    public GameMetrics() {
+    }
+
+    /**
+     * Records the duration of a playTurn call.
+     *
+     * @param playerA True if player 1 of the tournament made the move, false for player 2.
+     * @param nanos   The duration in nanoseconds.
+     */
+    public void recordMove(boolean playerA, long nanos) {
+        (playerA ? this.playerAMoves : this.playerBMoves).record(nanos);
+    }
+
+    /**
+     * Records the duration of the win and draw checks after a move.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void recordWinCheck(long nanos) {
+        this.winChecks.record(nanos);
+    }
+
+    /**
+     * Records the duration of a renderBoard call.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void recordRender(long nanos) {
+        this.renders.record(nanos);
+    }
+
+    /**
+     * Records a game that ended.
+     *
+     * @param gameMoves The number of moves of the game.
+     */
+    public void recordGame(int gameMoves) {
+        this.games++;
+        this.moves += gameMoves;
+    }
+
+    /**
+     * Sets the wall time the games took, for the games per second.
+     *
+     * @param elapsedNanos The wall time in nanoseconds.
+     */
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Adds the metrics of another worker to these, safe to call from several workers at once.
+     *
+     * @param other The metrics to add.
+     */
+    public synchronized void add(GameMetrics other) {
+        this.playerAMoves.add(other.playerAMoves);
+        this.playerBMoves.add(other.playerBMoves);
+        this.winChecks.add(other.winChecks);
+        this.renders.add(other.renders);
+        this.games += other.games;
+        this.moves += other.moves;
+    }
+
+    /**
+     * Retrieves the number of games played per second of wall time.
+     *
+     * @return The games per second, 0 if the wall time was not set.
+     */
+    public double getGamesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.games * NANOS_PER_SECOND / this.elapsedNanos;
+    }
+
+    /**
+     * Retrieves the average number of moves in a game.
+     *
+     * @return The moves per game, 0 if no game was played.
+     */
+    public double getMovesPerGame() {
+        return this.games == 0 ? 0 : (double) this.moves / this.games;
+    }
+
+    /**
+     * Prints the metrics, after the tournament results.
+     *
+     * @param playerName1 The name of player 1.
+     * @param playerName2 The name of player 2.
+     */
+    public void print(String playerName1, String playerName2) {
+        System.out.printf("######### Metrics #########%n"
+                        + "Games: %d in %.3f seconds, %.1f games per second, %.2f moves per game%n",
+                this.games, this.elapsedNanos / NANOS_PER_SECOND, getGamesPerSecond(), getMovesPerGame());
+        printHistogram("Player 1, " + playerName1 + " moves", this.playerAMoves);
+        printHistogram("Player 2, " + playerName2 + " moves", this.playerBMoves);
+        printHistogram("Win checks", this.winChecks);
+        printHistogram("Rendering", this.renders);
+    }
+
+    /**
+     * Prints a single histogram.
+     *
+     * @param name      The name of the histogram.
+     * @param histogram The histogram.
+     */
+    private static void printHistogram(String name, LatencyHistogram histogram) {
+        System.out.printf("%s (ns): p50 %d, p99 %d, max %d, mean %.0f over %d%n", name,
+                histogram.getValueAtPercentile(MEDIAN), histogram.getValueAtPercentile(TAIL), histogram.getMax(),
+                histogram.getMean(), histogram.getCount());
+    }
+
+    /**
+     * Appends a row of the metrics to a CSV file, writing the header first if the file is new.
+     *
+     * @param file        The CSV file.
+     * @param playerName1 The name of player 1.
+     * @param playerName2 The name of player 2.
+     * @param size        The size of the game board.
+     * @param winStreak   The number of consecutive marks required to win a game.
+     * @throws IOException if the file can't be written.
+     */
+    public void writeCsv(Path file, String playerName1, String playerName2, int size, int winStreak)
+            throws IOException {
+        boolean newFile = !Files.exists(file) || Files.size(file) == 0;
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            if (newFile) {
+                out.println(CSV_HEADER);
+            }
+            StringBuilder row = new StringBuilder();
+            row.append(playerName1).append(',').append(playerName2).append(',').append(size).append(',')
+                    .append(winStreak).append(',').append(this.games).append(',')
+                    .append(String.format(Locale.ROOT, "%.3f,%.1f,%.2f", this.elapsedNanos / NANOS_PER_SECOND,
+                            getGamesPerSecond(), getMovesPerGame()));
+            for (LatencyHistogram histogram : new LatencyHistogram[]{this.playerAMoves, this.playerBMoves,
+                    this.winChecks, this.renders}) {
+                row.append(',').append(histogram.getValueAtPercentile(MEDIAN))
+                        .append(',').append(histogram.getValueAtPercentile(TAIL))
+                        .append(',').append(histogram.getMax());
+            }
+            out.println(row);
+        }
+    }
+}
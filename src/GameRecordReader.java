@@ -0,0 +1,220 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streams the game records of a file written by a GameRecordWriter, one record at a time.
+ * The file is read through a fixed buffer, so files of any length are read in constant memory.
+ * After next() returns true, the getters describe the current record; the moves array is reused
+ * by the following records.
+ *
+ * @author Achikam Levy
+ * @see GameRecordWriter
+ */
+public class GameRecordReader implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = 0x7F;
+    private static final int VARINT_MORE = 0x80;
+
+    // the mark of each result ordinal, Mark.values() clones its array on every call
+    private static final Mark[] MARKS = Mark.values();
+
+    private final FileChannel channel;  // The records file
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);  // Bytes read and not decoded yet
+
+    // the current record
+    private int size;
+    private int winStreak;
+    private int playerX;
+    private int playerO;
+    private Mark result;
+    private int moveCount;
+    private int[] moves = new int[0];
+
+    /**
+     * Opens a records file.
+     *
+     * @param path The records file.
+     * @throws IOException if the file can't be read or is not a records file.
+     */
+    public GameRecordReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.buffer.flip();  // starts empty
+        if (!fill(Integer.BYTES) || this.buffer.getInt() != GameRecordWriter.MAGIC) {
+            this.channel.close();
+            throw new IOException("Not a game records file: " + path);
+        }
+    }
+
+    /**
+     * Reads more of the file into the buffer, until it holds the given number of bytes or the file ends.
+     *
+     * @param bytes The number of bytes needed.
+     * @return True if the buffer holds that many bytes.
+     * @throws IOException if the file can't be read.
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes) {
+            return true;
+        }
+        this.buffer.compact();
+        while (this.buffer.position() < bytes) {
+            if (this.channel.read(this.buffer) < 0) {
+                break;
+            }
+        }
+        this.buffer.flip();
+        return this.buffer.remaining() >= bytes;
+    }
+
+    /**
+     * Reads a single byte of the current record.
+     *
+     * @return The byte, as an unsigned number.
+     * @throws IOException if the file can't be read or ends in the middle of a record.
+     */
+    private int readByte() throws IOException {
+        if (!fill(1)) {
+            throw new EOFException("The last game record is cut");
+        }
+        return this.buffer.get() & 0xFF;
+    }
+
+    /**
+     * Decodes a varint of the current record.
+     *
+     * @return The number.
+     * @throws IOException if the file can't be read or ends in the middle of a record.
+     */
+    private int readVarint() throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= (b & VARINT_MASK) << shift;
+            shift += VARINT_BITS;
+        } while ((b & VARINT_MORE) != 0);
+        return value;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return True if a record was read, false at the end of the file.
+     * @throws IOException if the file can't be read or ends in the middle of a record.
+     */
+    public boolean next() throws IOException {
+        if (!fill(1)) {
+            return false;
+        }
+        this.size = readVarint();
+        this.winStreak = readVarint();
+        this.playerX = readVarint();
+        this.playerO = readVarint();
+        this.result = MARKS[readVarint()];
+        this.moveCount = readVarint();
+        if (this.moves.length < this.moveCount) {
+            this.moves = Arrays.copyOf(this.moves, Math.max(this.moveCount, 2 * this.moves.length));
+        }
+        boolean byteMoves = this.size * this.size <= GameRecordWriter.BYTE_MOVES_MAX_CELLS;
+        for (int move = 0; move < this.moveCount; move++) {
+            this.moves[move] = byteMoves ? readByte() : readVarint();
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the board size of the current record.
+     *
+     * @return The size of the board.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Retrieves the win streak of the current record.
+     *
+     * @return The number of consecutive marks required for a win.
+     */
+    public int getWinStreak() {
+        return this.winStreak;
+    }
+
+    /**
+     * Retrieves the id of the X player of the current record.
+     *
+     * @return The id the writer was given for the X player.
+     */
+    public int getPlayerX() {
+        return this.playerX;
+    }
+
+    /**
+     * Retrieves the id of the O player of the current record.
+     *
+     * @return The id the writer was given for the O player.
+     */
+    public int getPlayerO() {
+        return this.playerO;
+    }
+
+    /**
+     * Retrieves the result of the current record.
+     *
+     * @return The winning mark, or Mark.BLANK for a tie.
+     */
+    public Mark getResult() {
+        return this.result;
+    }
+
+    /**
+     * Retrieves the number of moves of the current record.
+     *
+     * @return The number of moves played in the game.
+     */
+    public int getMoveCount() {
+        return this.moveCount;
+    }
+
+    /**
+     * Retrieves a move of the current record.
+     *
+     * @param move The index of the move, 0 for the first move.
+     * @return The cell of the move, as row * size + col.
+     */
+    public int getMove(int move) {
+        return this.moves[move];
+    }
+
+    /**
+     * Replays the current record on a new board.
+     *
+     * @return The board at the end of the game.
+     */
+    public Board toBoard() {
+        Board board = new Board(this.size);
+        for (int move = 0; move < this.moveCount; move++) {
+            Mark mark = move % 2 == 0 ? Mark.X : Mark.O;
+            board.putMark(mark, this.moves[move] / this.size, this.moves[move] % this.size);
+        }
+        return board;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
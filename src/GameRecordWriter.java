@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends compact binary records of played games to a file.
+ * The file starts with a magic number, followed by one record per game:
+ * the size, the win streak, the ids of the X and O players, the result (the mark ordinal of the winner,
+ * 0 for a tie) and the number of moves, each as a varint, then the cells of the moves (row * size + col)
+ * in the order they were played. On boards of up to 256 cells every move takes a single byte,
+ * larger boards use a varint per move. The marks are not stored, since X and O always alternate from X.
+ * A 3x3 game takes about a dozen bytes.
+ * Records are encoded into a direct buffer that is written to a FileChannel when it fills up.
+ * Writing is synchronized, so games played on several threads can share a writer.
+ *
+ * @author Achikam Levy
+ * @see GameRecordReader
+ * @see Tournament
+ */
+public class GameRecordWriter implements AutoCloseable {
+
+    // file layout
+    public static final int MAGIC = 0x54545247;  // "TTRG"
+    public static final int BYTE_MOVES_MAX_CELLS = 256;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_VARINT_BYTES = 5;
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = 0x7F;
+    private static final int VARINT_MORE = 0x80;
+
+    private final FileChannel channel;  // The records file
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);  // Records not written yet
+    private long records = 0;  // Number of records written
+
+    /**
+     * Creates a records file, replacing an existing one.
+     *
+     * @param path The records file.
+     * @throws IOException if the file can't be created.
+     */
+    public GameRecordWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer.putInt(MAGIC);
+    }
+
+    /**
+     * Appends the record of a finished game.
+     *
+     * @param board     The board of the game, its move log holds the moves of the game.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @param playerX   The id of the X player.
+     * @param playerO   The id of the O player.
+     * @param result    The winning mark, or Mark.BLANK for a tie.
+     */
+    public synchronized void write(Board board, int winStreak, int playerX, int playerO, Mark result) {
+        int size = board.getSize();
+        int moves = board.getMoveCount();
+        ensureRoom(6 * MAX_VARINT_BYTES);
+        putVarint(size);
+        putVarint(winStreak);
+        putVarint(playerX);
+        putVarint(playerO);
+        putVarint(result.ordinal());
+        putVarint(moves);
+        boolean byteMoves = size * size <= BYTE_MOVES_MAX_CELLS;
+        for (int move = 0; move < moves; move++) {
+            int cell = board.getMoveRow(move) * size + board.getMoveCol(move);
+            ensureRoom(MAX_VARINT_BYTES);
+            if (byteMoves) {
+                this.buffer.put((byte) cell);
+            } else {
+                putVarint(cell);
+            }
+        }
+        this.records++;
+    }
+
+    /**
+     * Encodes an unsigned number in 7 bit groups, the low group first,
+     * with the high bit of every byte but the last set.
+     *
+     * @param value The number, not negative.
+     */
+    private void putVarint(int value) {
+        while ((value & ~VARINT_MASK) != 0) {
+            this.buffer.put((byte) ((value & VARINT_MASK) | VARINT_MORE));
+            value >>>= VARINT_BITS;
+        }
+        this.buffer.put((byte) value);
+    }
+
+    /**
+     * Writes the buffer to the file if it has less room than needed.
+     *
+     * @param bytes The number of bytes about to be encoded.
+     */
+    private void ensureRoom(int bytes) {
+        if (this.buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the encoded records to the file.
+     */
+    public synchronized void flush() {
+        this.buffer.flip();
+        try {
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Retrieves the number of records written so far.
+     *
+     * @return The number of games recorded.
+     */
+    public synchronized long getRecords() {
+        return this.records;
+    }
+
+    /**
+     * Writes the remaining records and closes the file.
+     *
+     * @throws IOException if the file can't be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        this.channel.close();
+    }
+}
@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes games with a GameRecordWriter and reads them back with a GameRecordReader,
+ * on both sides of the 256 cells boundary between a byte and a varint per move.
+ *
+ * @author Achikam Levy
+ * @see GameRecordWriter
+ * @see GameRecordReader
+ */
+public class GameRecord_Tests {
+
+    private static final long SEED = 20240603L;
+
+    /**
+     * Plays random moves on a new board, X first.
+     *
+     * @param random The source of the moves.
+     * @param size   The size of the board.
+     * @param moves  The number of moves, at most size * size.
+     * @return The board, its move log holds the moves.
+     */
+    private static Board randomGame(Random random, int size, int moves) {
+        Board board = new Board(size);
+        for (int move = 0; move < moves; move++) {
+            int cell;
+            do {
+                cell = random.nextInt(size * size);
+            } while (board.getMark(cell / size, cell % size) != Mark.BLANK);
+            board.putMark(move % 2 == 0 ? Mark.X : Mark.O, cell / size, cell % size);
+        }
+        return board;
+    }
+
+    /**
+     * Writes the games to a temporary file and checks that every field and move reads back the same.
+     *
+     * @param boards The games, as boards with their move logs.
+     * @throws IOException if the temporary file can't be written or read.
+     */
+    private static void assertRoundTrip(List<Board> boards) throws IOException {
+        Path path = Files.createTempFile("records", ".bin");
+        try {
+            Mark[] results = {Mark.BLANK, Mark.X, Mark.O};
+            try (GameRecordWriter writer = new GameRecordWriter(path)) {
+                for (int i = 0; i < boards.size(); i++) {
+                    Board board = boards.get(i);
+                    writer.write(board, board.getSize(), i, i * 1000, results[i % results.length]);
+                }
+                Assertions.assertEquals(boards.size(), writer.getRecords());
+            }
+            try (GameRecordReader reader = new GameRecordReader(path)) {
+                for (int i = 0; i < boards.size(); i++) {
+                    Board board = boards.get(i);
+                    String name = "record " + i + ", size " + board.getSize();
+                    Assertions.assertTrue(reader.next(), name);
+                    Assertions.assertEquals(board.getSize(), reader.getSize(), name);
+                    Assertions.assertEquals(board.getSize(), reader.getWinStreak(), name);
+                    Assertions.assertEquals(i, reader.getPlayerX(), name);
+                    Assertions.assertEquals(i * 1000, reader.getPlayerO(), name);
+                    Assertions.assertEquals(results[i % results.length], reader.getResult(), name);
+                    Assertions.assertEquals(board.getMoveCount(), reader.getMoveCount(), name);
+                    for (int move = 0; move < board.getMoveCount(); move++) {
+                        Assertions.assertEquals(board.getMoveRow(move) * board.getSize() + board.getMoveCol(move),
+                                reader.getMove(move), name + " move " + move);
+                    }
+                    Board replayed = reader.toBoard();
+                    for (int cell = 0; cell < board.getSize() * board.getSize(); cell++) {
+                        int row = cell / board.getSize();
+                        int col = cell % board.getSize();
+                        Assertions.assertEquals(board.getMark(row, col), replayed.getMark(row, col), name);
+                    }
+                }
+                Assertions.assertFalse(reader.next());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void fullBoardsAroundTheByteBoundary() throws IOException {
+        Random random = new Random(SEED);
+        List<Board> boards = new ArrayList<>();
+        // 15x15 and 16x16 take a byte per move, up to cell 255, 17x17 a varint from cell 128 on
+        for (int size : new int[]{15, 16, 17}) {
+            boards.add(randomGame(random, size, size * size));
+        }
+        assertRoundTrip(boards);
+    }
+
+    @Test
+    public void manyGamesOfMixedSizes() throws IOException {
+        Random random = new Random(SEED + 1);
+        List<Board> boards = new ArrayList<>();
+        // enough records to refill the buffers of the writer and the reader several times
+        for (int i = 0; i < 2000; i++) {
+            int size = 2 + random.nextInt(19);
+            boards.add(randomGame(random, size, random.nextInt(size * size + 1)));
+        }
+        boards.add(randomGame(random, 200, 500));
+        assertRoundTrip(boards);
+    }
+
+    @Test
+    public void emptyFileHasNoRecords() throws IOException {
+        assertRoundTrip(new ArrayList<>());
+    }
+}
@@ -0,0 +1,371 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts games for clients connected over loopback TCP, many games at a time in one JVM.
+ * Every connection plays one game and runs on its own thread: a virtual thread when the JVM has them
+ * (Java 21 and up), otherwise a platform thread with a small stack, so thousands of games can wait
+ * on their clients at once. A client opens the game with a line "PLAY size winStreak opponent [X|O]":
+ * the opponent is a PlayerFactory type, or "remote" to be matched with the next client that asks for
+ * a remote opponent on the same board. The client is then a RemotePlayer, see there for the protocol.
+ * A client that finds no remote opponent within PARTNER_TIMEOUT_MILLIS, or that breaks its connection
+ * while it waits, is taken off the waiting clients. Errors are answered with a line "ERROR reason".
+ * Computer opponents play boards up to Board.MAX_DENSE_SIZE only, their searches are sized by the board
+ * area, while two remote clients may play boards up to SparseBoardStorage.MAX_SIZE.
+ * A game keeps little memory: the board, the two players and a connection buffer, and an alphabeta
+ * opponent gets a 64 KB transposition table instead of the 4 MB table it has in tournaments.
+ * Before Java 21 every connection also holds a platform thread, which reserves a 256 KB stack.
+ *
+ * @author Achikam Levy
+ * @see RemotePlayer
+ * @see LoadGenerator
+ */
+public class GameServer {
+
+    // protocol
+    public static final String PLAY = "PLAY";
+    public static final String ERROR = "ERROR";
+    public static final String REMOTE = "remote";
+    public static final int DEFAULT_PORT = 4747;
+
+    // command line options
+    private static final String PORT_OPTION = "--port=";
+
+    // connections
+    private static final int BACKLOG = 4096;
+    private static final int CLIENT_TIMEOUT_MILLIS = 5 * 60 * 1000;
+    private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+    private static final long STATUS_INTERVAL_MILLIS = 5000;
+    private static final long PARTNER_TIMEOUT_MILLIS = 10_000;
+    private static final int POLL_MILLIS = 50;
+    private static final int NOTHING_READ = -2;
+
+    // computer opponents of a game, with a small transposition table since many games run at once
+    private static final long SERVER_MOVE_MILLIS = 20;
+    private static final int SERVER_TABLE_BITS = 12;
+
+    // players names constants.
+    private static final String HUMAN = "human";
+    private static final String ALPHA_BETA = "alphabeta";
+
+    private final PlayerFactory playerFactory = new PlayerFactory();
+    private final Map<String, WaitingClient> waitingClients = new HashMap<>();  // Clients waiting for a remote opponent
+    private final AtomicInteger activeGames = new AtomicInteger(0);  // Games being played
+    private final AtomicLong finishedGames = new AtomicLong(0);  // Games played to the end
+
+    /**
+     * A client that asked for a remote opponent and waits for one.
+     *
+     * @author Achikam Levy
+     * @see GameServer
+     */
+    private static class WaitingClient {
+
+        private final Socket socket;  // The connection of the waiting client
+        private final RemotePlayer player;  // The waiting client
+        private final CountDownLatch claimed = new CountDownLatch(1);  // Counted down when an opponent takes it
+        private final CountDownLatch released = new CountDownLatch(1);  // Counted down once it stops polling
+        private final CountDownLatch done = new CountDownLatch(1);  // Counted down when its game is over
+
+        /**
+         * Constructs a WaitingClient.
+         *
+         * @param socket The connection of the waiting client.
+         * @param player The waiting client.
+         */
+        WaitingClient(Socket socket, RemotePlayer player) {
+            this.socket = socket;
+            this.player = player;
+        }
+    }
+
+    /**
+     * Constructs a GameServer.
+     * nothing is need to be done in this constructor.
+     */
+    public GameServer() {
+    }
+
+    /**
+     * Creates an executor that runs every task on a new thread: a virtual thread when the JVM has them,
+     * otherwise a daemon platform thread with a small stack.
+     *
+     * @param name The name prefix of the threads.
+     * @return The executor.
+     */
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor exists from Java 21 on
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threads = new AtomicInteger(0);
+            ThreadFactory threadFactory = task -> {
+                Thread thread = new Thread(null, task, name + "-" + threads.incrementAndGet(), PLATFORM_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(threadFactory);
+        }
+    }
+
+    /**
+     * Accepts connections on a loopback port and plays a game with each of them, until the process is stopped.
+     *
+     * @param port The port to listen on.
+     * @throws IOException if the port can't be opened.
+     */
+    public void listen(int port) throws IOException {
+        ExecutorService games = newThreadPerTaskExecutor("game");
+        Thread status = new Thread(this::printStatus, "game-server-status");
+        status.setDaemon(true);
+        status.start();
+        try (ServerSocket server = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress())) {
+            System.out.println("Game server listening on " + server.getLocalSocketAddress());
+            while (true) {
+                Socket socket = server.accept();
+                games.execute(() -> serve(socket));
+            }
+        }
+    }
+
+    /**
+     * Prints the number of active and finished games every few seconds, when they change.
+     */
+    private void printStatus() {
+        long lastFinished = -1;
+        try {
+            while (true) {
+                Thread.sleep(STATUS_INTERVAL_MILLIS);
+                long finished = this.finishedGames.get();
+                if (finished != lastFinished) {
+                    System.out.println("Active games: " + this.activeGames.get() + ", finished games: " + finished);
+                    lastFinished = finished;
+                }
+            }
+        } catch (InterruptedException e) {
+            // the server is stopping, nothing is need to be done
+        }
+    }
+
+    /**
+     * Plays the game of a single connection.
+     *
+     * @param socket The connection to the client.
+     */
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setSoTimeout(CLIENT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            RemotePlayer client = new RemotePlayer(socket);
+            String[] request = client.readLine().trim().split("\\s+");
+            if (request.length < 4 || !request[0].equals(PLAY)) {
+                client.send(ERROR + " expected: " + PLAY + " size winStreak opponent [X|O]");
+                return;
+            }
+            int size = Integer.parseInt(request[1]);
+            int winStreak = Math.max(2, Math.min(Integer.parseInt(request[2]), size));
+            String opponent = request[3].toLowerCase();
+            if (size < 2 || size > SparseBoardStorage.MAX_SIZE) {
+                client.send(ERROR + " size must be in the range [2, " + SparseBoardStorage.MAX_SIZE + "]");
+                return;
+            }
+            if (opponent.equals(REMOTE)) {
+                playRemote(socket, client, size, winStreak);
+            } else if (size > Board.MAX_DENSE_SIZE) {
+                client.send(ERROR + " a computer opponent plays boards up to size " + Board.MAX_DENSE_SIZE);
+            } else {
+                Player computer = buildComputer(opponent, winStreak);
+                if (computer == null) {
+                    client.send(ERROR + " unknown opponent: " + opponent);
+                    return;
+                }
+                boolean clientIsX = request.length < 5 || !request[4].equalsIgnoreCase(Mark.O.name());
+                try {
+                    playGame(clientIsX ? client : computer, clientIsX ? computer : client, size, winStreak);
+                } finally {
+                    Tournament.closePlayer(computer);
+                }
+            }
+        } catch (IOException | UncheckedIOException | NumberFormatException e) {
+            // the client went away or sent garbage, the game is dropped
+        }
+    }
+
+    /**
+     * Builds the computer opponent of a game.
+     *
+     * @param opponent  The PlayerFactory type of the opponent.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @return The opponent, or null if the type is unknown or needs a keyboard.
+     */
+    private Player buildComputer(String opponent, int winStreak) {
+        return switch (opponent) {
+            case HUMAN -> null;
+            case ALPHA_BETA -> new AlphaBetaPlayer(winStreak, SERVER_MOVE_MILLIS, SERVER_TABLE_BITS);
+            default -> this.playerFactory.buildPlayer(opponent, winStreak);
+        };
+    }
+
+    /**
+     * Matches a client with the next client that asks for a remote opponent on the same board.
+     * The first client plays X and waits, the game is played on the thread of the second client.
+     * If the game breaks because one of the clients went away, the other one is answered with an error.
+     *
+     * @param socket    The connection to the client.
+     * @param client    The client.
+     * @param size      The size of the game board.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @throws IOException if the client can't be served.
+     */
+    private void playRemote(Socket socket, RemotePlayer client, int size, int winStreak) throws IOException {
+        String board = size + " " + winStreak;
+        WaitingClient opponent;
+        WaitingClient self = new WaitingClient(socket, client);
+        synchronized (this.waitingClients) {
+            opponent = this.waitingClients.remove(board);
+            if (opponent == null) {
+                this.waitingClients.put(board, self);
+            } else {
+                opponent.claimed.countDown();
+            }
+        }
+        if (opponent == null) {
+            waitForOpponent(board, self);
+            return;
+        }
+        try {
+            // the opponent's thread may still be polling its connection
+            opponent.released.await();
+            playGame(opponent.player, client, size, winStreak);
+        } catch (IOException | UncheckedIOException e) {
+            sendError(opponent.player, "the game was broken by a disconnected client");
+            sendError(client, "the game was broken by a disconnected client");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            opponent.done.countDown();
+        }
+    }
+
+    /**
+     * Waits on the thread of a waiting client until an opponent takes it, the client goes away or
+     * PARTNER_TIMEOUT_MILLIS pass. While it waits the client is expected to send nothing, so the connection
+     * is polled for its end. A client that is taken keeps its connection open until its game is over.
+     *
+     * @param board The board the client waits on, as "size winStreak".
+     * @param self  The waiting client.
+     * @throws IOException if the client can't be served.
+     */
+    private void waitForOpponent(String board, WaitingClient self) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PARTNER_TIMEOUT_MILLIS);
+        int read = NOTHING_READ;
+        self.socket.setSoTimeout(POLL_MILLIS);
+        try {
+            while (read == NOTHING_READ && self.claimed.getCount() > 0 && System.nanoTime() < deadline) {
+                try {
+                    read = self.socket.getInputStream().read();
+                } catch (SocketTimeoutException e) {
+                    // nothing was sent, the client still waits
+                }
+            }
+        } finally {
+            self.socket.setSoTimeout(CLIENT_TIMEOUT_MILLIS);
+        }
+        boolean gaveUp;
+        synchronized (this.waitingClients) {
+            gaveUp = this.waitingClients.remove(board, self);
+        }
+        self.released.countDown();
+        if (gaveUp) {
+            if (read == NOTHING_READ) {
+                sendError(self.player, "no remote opponent within " + PARTNER_TIMEOUT_MILLIS / 1000 + " seconds");
+            } else if (read >= 0) {
+                sendError(self.player, "a client must send nothing while it waits for an opponent");
+            }
+            return;
+        }
+        // keep the connection open until the game on the opponent's thread is over
+        try {
+            self.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Answers a client with an error, if it is still connected.
+     *
+     * @param client The client.
+     * @param reason The reason of the error.
+     */
+    private static void sendError(RemotePlayer client, String reason) {
+        try {
+            client.send(ERROR + " " + reason);
+        } catch (IOException | UncheckedIOException e) {
+            // the client went away, nothing is need to be done
+        }
+    }
+
+    /**
+     * Plays a game and tells the remote players how it ended.
+     *
+     * @param playerX   The player representing mark X.
+     * @param playerO   The player representing mark O.
+     * @param size      The size of the game board.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @throws IOException if a client can't be told the result.
+     */
+    private void playGame(Player playerX, Player playerO, int size, int winStreak) throws IOException {
+        this.activeGames.incrementAndGet();
+        try {
+            Game game = new Game(playerX, playerO, size, winStreak, new VoidRenderer());
+            if (playerX instanceof RemotePlayer remote) {
+                remote.gameStarted(size, winStreak, Mark.X);
+            }
+            if (playerO instanceof RemotePlayer remote) {
+                remote.gameStarted(size, winStreak, Mark.O);
+            }
+            Mark result = game.run();
+            if (playerX instanceof RemotePlayer remote) {
+                remote.gameOver(game.getBoard(), Mark.X, result);
+            }
+            if (playerO instanceof RemotePlayer remote) {
+                remote.gameOver(game.getBoard(), Mark.O, result);
+            }
+            this.finishedGames.incrementAndGet();
+        } finally {
+            this.activeGames.decrementAndGet();
+        }
+    }
+
+    /**
+     * Runs the game server.
+     *
+     * @param args Command line arguments: optionally --port=N, by default DEFAULT_PORT.
+     * @throws IOException if the port can't be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        for (String arg : args) {
+            if (arg.startsWith(PORT_OPTION)) {
+                port = Integer.parseInt(arg.substring(PORT_OPTION.length()));
+            }
+        }
+        new GameServer().listen(port);
+    }
+}
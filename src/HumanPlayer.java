@@ -11,6 +11,9 @@
  */
 public class HumanPlayer implements Player {
 
+    // the largest board whose indices are all single digits
+    private static final int SINGLE_DIGIT_SIZE = 10;
+
     /**
      * default constructor for HumanPlayer class
      */
@@ -22,6 +25,8 @@ public class HumanPlayer implements Player {
      * Allows the human player to make a move by entering coordinates through the keyboard input.
      * Coordinates are entered as a two-digit integer,
      * where the tens digit represents the row and the ones digit represents the column.
+     * On boards larger than 10, where an index may take more than one digit,
+     * the row and the column are entered as two separate integers.
      * Continues prompting for coordinates until a valid move is made.
      *
      * @param board The game board on which the player makes a move.
@@ -34,9 +39,16 @@ public class HumanPlayer implements Player {
 
         // until the human player enter valid coordinates
         while (true) {
-            int coordinates = KeyboardInput.readInt();
-            int row = coordinates / 10; // get the second digit
-            int col = coordinates % 10; // get the first digit
+            int row;
+            int col;
+            if (board.getSize() > SINGLE_DIGIT_SIZE) {
+                row = KeyboardInput.readInt();
+                col = KeyboardInput.readInt();
+            } else {
+                int coordinates = KeyboardInput.readInt();
+                row = coordinates / 10; // get the second digit
+                col = coordinates % 10; // get the first digit
+            }
 
             // Check if the move is valid, first check if the coordinates are legal.
             if (col >= board.getSize() || col < 0 || row >= board.getSize() || row < 0) {
@@ -0,0 +1,134 @@
+/**
+ * A histogram of durations in nanoseconds with HDR-style buckets: every power of two is split into
+ * SUB_BUCKETS linear buckets, so a value is kept with a relative error of about 3% from a nanosecond
+ * up to the largest long, in a fixed array of counts.
+ * Recording a value takes a few shifts and an array increment and allocates nothing,
+ * so it can be done on every move. A histogram is not thread safe, every thread records to its own
+ * histogram and they are merged with add.
+ *
+ * @author Achikam Levy
+ * @see GameMetrics
+ */
+public class LatencyHistogram {
+
+    // linear buckets per power of two, 2^SUB_BUCKET_BITS
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // enough buckets for any non negative long
+    private static final int BUCKETS = (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];  // Number of values recorded in every bucket
+    private long count = 0;  // Number of values recorded
+    private long total = 0;  // Sum of the values recorded
+    private long max = 0;  // Largest value recorded
+
+    /**
+     * Constructs an empty LatencyHistogram.
+     * nothing is need to be done in this constructor.
+     */
+    public LatencyHistogram() {
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds, negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.counts[bucketOf(value)]++;
+        this.count++;
+        this.total += value;
+        if (value > this.max) {
+            this.max = value;
+        }
+    }
+
+    /**
+     * Adds all the values of another histogram to this one.
+     *
+     * @param other The histogram to add.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts[i] += other.counts[i];
+        }
+        this.count += other.count;
+        this.total += other.total;
+        this.max = Math.max(this.max, other.max);
+    }
+
+    /**
+     * Retrieves the number of values recorded.
+     *
+     * @return The number of values.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Retrieves the largest value recorded.
+     *
+     * @return The largest value, 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Retrieves the mean of the values recorded.
+     *
+     * @return The mean, 0 if nothing was recorded.
+     */
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.total / this.count;
+    }
+
+    /**
+     * Finds the value below which a given percentage of the values lies.
+     * The value is the highest value of its bucket, but never above the largest value recorded.
+     *
+     * @param percentile The percentage, in [0, 100].
+     * @return The value at the percentile, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Finds the bucket of a value. Values below SUB_BUCKETS have a bucket each, a larger value is
+     * shifted right until it has SUB_BUCKET_BITS + 1 bits, and the shift picks its power of two.
+     *
+     * @param value The non negative value.
+     * @return The index of its bucket.
+     */
+    private static int bucketOf(long value) {
+        int shift = Math.max(0, Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Finds the highest value that falls in a bucket.
+     *
+     * @param bucket The index of the bucket.
+     * @return The highest value of the bucket.
+     */
+    private static long highestValueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket - (long) shift * SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,114 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the percentiles of a LatencyHistogram against the exact percentiles of the sorted values.
+ *
+ * @author Achikam Levy
+ * @see LatencyHistogram
+ */
+public class LatencyHistogram_Tests {
+
+    // the relative error of a bucket, one of the 32 linear buckets of its power of two
+    private static final double RELATIVE_ERROR = 1.0 / 32;
+
+    private static final double[] PERCENTILES = {0, 1, 10, 25, 50, 75, 90, 99, 99.9, 100};
+    private static final long SEED = 20240604L;
+
+    /**
+     * Finds the exact value at a percentile, the same way the histogram ranks its values.
+     *
+     * @param sorted     The values, sorted.
+     * @param percentile The percentage, in [0, 100].
+     * @return The value at the percentile.
+     */
+    private static long exactPercentile(long[] sorted, double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * sorted.length));
+        return sorted[(int) rank - 1];
+    }
+
+    @Test
+    public void emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assertions.assertEquals(0, histogram.getCount());
+        Assertions.assertEquals(0, histogram.getMax());
+        Assertions.assertEquals(0, histogram.getMean(), 0);
+        Assertions.assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 64; value++) {
+            histogram.record(value);
+        }
+        Assertions.assertEquals(64, histogram.getCount());
+        Assertions.assertEquals(63, histogram.getMax());
+        Assertions.assertEquals(31.5, histogram.getMean(), 1e-9);
+        Assertions.assertEquals(0, histogram.getValueAtPercentile(0));
+        Assertions.assertEquals(31, histogram.getValueAtPercentile(50));
+        Assertions.assertEquals(63, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void negativeValuesAreRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        Assertions.assertEquals(1, histogram.getCount());
+        Assertions.assertEquals(0, histogram.getMax());
+        Assertions.assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void percentilesWithinTheRelativeError() {
+        Random random = new Random(SEED);
+        long[] values = new long[100_000];
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < values.length; i++) {
+            // spread over many powers of two, from nanoseconds to seconds
+            values[i] = (long) Math.pow(2, 34 * random.nextDouble());
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        Assertions.assertEquals(values.length, histogram.getCount());
+        Assertions.assertEquals(values[values.length - 1], histogram.getMax());
+        for (double percentile : PERCENTILES) {
+            long exact = exactPercentile(values, percentile);
+            long value = histogram.getValueAtPercentile(percentile);
+            Assertions.assertTrue(value >= exact && value <= exact + exact * RELATIVE_ERROR,
+                    "percentile " + percentile + ": " + value + " for " + exact);
+        }
+    }
+
+    @Test
+    public void largestLong() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1);
+        histogram.record(Long.MAX_VALUE);
+        Assertions.assertEquals(1, histogram.getValueAtPercentile(50));
+        Assertions.assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void addMergesTheValues() {
+        Random random = new Random(SEED + 1);
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextInt(1_000_000);
+            all.record(value);
+            (i % 3 == 0 ? first : second).record(value);
+        }
+        first.add(second);
+        Assertions.assertEquals(all.getCount(), first.getCount());
+        Assertions.assertEquals(all.getMax(), first.getMax());
+        Assertions.assertEquals(all.getMean(), first.getMean(), 1e-9);
+        for (double percentile : PERCENTILES) {
+            Assertions.assertEquals(all.getValueAtPercentile(percentile), first.getValueAtPercentile(percentile));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A round-robin league between several player types, on one or more board configurations.
+ * Every pairing of every configuration is split into chunks of rounds, and all the chunks of all the
+ * pairings are played on one shared fork-join pool, so the whole league keeps every core busy until
+ * the slowest pairing ends. Each chunk plays through Tournament.playRounds with its own players.
+ * The results are printed as a cross-table per configuration, with the points of every player
+ * (a win is worth a point and a tie half a point).
+ *
+ * @author Achikam Levy
+ * @see Tournament
+ * @see PlayerFactory
+ */
+public class League {
+
+    // rounds played by a single task, smaller than a tournament chunk so slow pairings spread over the workers
+    private static final int CHUNK_ROUNDS = 256;
+
+    // optional command line arguments, given after the three positional ones
+    private static final String THREADS_OPTION = "--threads=";
+
+    // separators of the command line lists
+    private static final String LIST_SEPARATOR = ",";
+    private static final String CONFIGURATION_SEPARATOR = ":";
+
+    // message of a size:winStreak pair that isn't a playable board
+    private static final String INVALID_CONFIGURATION =
+            "Invalid configuration, expected size:winStreak with 2 <= winStreak <= size <= "
+                    + SparseBoardStorage.MAX_SIZE + ": ";
+
+    // the human player can't play unattended
+    private static final String HUMAN = "human";
+
+    // header of the points column
+    private static final String POINTS = "points";
+
+    private final int rounds;  // Rounds of every pairing
+    private final List<String> players;  // The player types of the league
+    private final int[][] configurations;  // The (size, winStreak) pairs to play on
+    private final TournamentScore[][][] scores;  // Score of every pairing, by configuration and player indices
+
+    /**
+     * Constructs a League.
+     *
+     * @param rounds         The number of rounds of every pairing.
+     * @param players        The player types, as accepted by PlayerFactory.
+     * @param configurations The (size, winStreak) pairs to play on.
+     */
+    public League(int rounds, List<String> players, int[][] configurations) {
+        this.rounds = rounds;
+        this.players = players;
+        this.configurations = configurations;
+        this.scores = new TournamentScore[configurations.length][players.size()][players.size()];
+    }
+
+    /**
+     * Plays every pairing of every configuration on a shared pool of threads.
+     *
+     * @param threads The number of worker threads.
+     */
+    public void play(int threads) {
+        Renderer renderer = new VoidRenderer();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int config = 0; config < this.configurations.length; config++) {
+                int size = this.configurations[config][0];
+                int winStreak = this.configurations[config][1];
+                for (int a = 0; a < this.players.size(); a++) {
+                    for (int b = a + 1; b < this.players.size(); b++) {
+                        TournamentScore score = new TournamentScore();
+                        this.scores[config][a][b] = score;
+                        String playerA = this.players.get(a);
+                        String playerB = this.players.get(b);
+                        for (int from = 0; from < this.rounds; from += CHUNK_ROUNDS) {
+                            int start = from;
+                            int end = Math.min(from + CHUNK_ROUNDS, this.rounds);
+                            tasks.add(pool.submit(() -> Tournament.playRounds(start, end, size, winStreak,
+                                    playerA, playerB, renderer, null, null, score)));
+                        }
+                    }
+                }
+            }
+            // wait for all the chunks to finish
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Prints the cross-table of every configuration. A cell holds the wins, losses and ties
+     * of the player of its row against the player of its column.
+     */
+    public void printResults() {
+        int width = POINTS.length();
+        for (String player : this.players) {
+            width = Math.max(width, player.length());
+        }
+        width = Math.max(width, 3 * String.valueOf(this.rounds).length() + 2) + 2;
+        String cellFormat = "%" + width + "s";
+
+        for (int config = 0; config < this.configurations.length; config++) {
+            System.out.println("######### League: size " + this.configurations[config][0] + ", win streak "
+                    + this.configurations[config][1] + ", " + this.rounds + " rounds per pairing #########");
+            StringBuilder header = new StringBuilder(String.format(cellFormat, ""));
+            for (String player : this.players) {
+                header.append(String.format(cellFormat, player));
+            }
+            System.out.println(header.append(String.format(cellFormat, POINTS)));
+
+            for (int a = 0; a < this.players.size(); a++) {
+                StringBuilder line = new StringBuilder(String.format(cellFormat, this.players.get(a)));
+                double points = 0;
+                for (int b = 0; b < this.players.size(); b++) {
+                    if (a == b) {
+                        line.append(String.format(cellFormat, "-"));
+                        continue;
+                    }
+                    // every pairing is stored once, under the lower index
+                    TournamentScore score = this.scores[config][Math.min(a, b)][Math.max(a, b)];
+                    long wins = a < b ? score.getPlayerAScore() : score.getPlayerBScore();
+                    long losses = a < b ? score.getPlayerBScore() : score.getPlayerAScore();
+                    points += wins + score.getTies() / 2.0;
+                    line.append(String.format(cellFormat, wins + "-" + losses + "-" + score.getTies()));
+                }
+                System.out.println(line.append(String.format(cellFormat, points)));
+            }
+        }
+    }
+
+    /**
+     * Looks for an optional "--name=value" argument after the three positional arguments.
+     *
+     * @param args         Command line arguments.
+     * @param option       The option prefix, including the '=' sign.
+     * @param defaultValue The value to use when the option is not given.
+     * @return The value of the option, or defaultValue if it is missing.
+     */
+    private static String parseOption(String[] args, String option, String defaultValue) {
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].startsWith(option)) {
+                return args[i].substring(option.length());
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Parses a size:winStreak pair of the command line.
+     *
+     * @param configuration The pair, e.g. 4:3.
+     * @return The size and win streak, or null if the pair is malformed or isn't a playable board,
+     * that is unless 2 <= winStreak <= size <= SparseBoardStorage.MAX_SIZE.
+     */
+    private static int[] parseConfiguration(String configuration) {
+        String[] pair = configuration.split(CONFIGURATION_SEPARATOR);
+        if (pair.length != 2) {
+            return null;
+        }
+        int size;
+        int winStreak;
+        try {
+            size = Integer.parseInt(pair[0]);
+            winStreak = Integer.parseInt(pair[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (winStreak < 2 || winStreak > size || size > SparseBoardStorage.MAX_SIZE) {
+            return null;
+        }
+        return new int[]{size, winStreak};
+    }
+
+    /**
+     * Runs a league based on command line arguments.
+     *
+     * @param args Command line arguments: [rounds, players, configurations], where players is a comma separated
+     *             list of player types (e.g. whatever,clever,genius) and configurations a comma separated list of
+     *             size:winStreak pairs (e.g. 3:3,4:3), optionally followed by --threads=N
+     *             (by default the number of processors).
+     */
+    public static void main(String[] args) {
+        int rounds = Integer.parseInt(args[0]);
+        PlayerFactory playerFactory = new PlayerFactory();
+        List<String> players = new ArrayList<>();
+        for (String player : args[1].toLowerCase().split(LIST_SEPARATOR)) {
+            if (player.equals(HUMAN) || playerFactory.getPlayerId(player) < 0) {
+                System.out.println(Constants.UNKNOWN_PLAYER_NAME);
+                return;
+            }
+            players.add(player);
+        }
+        String[] configurationArgs = args[2].split(LIST_SEPARATOR);
+        int[][] configurations = new int[configurationArgs.length][];
+        for (int i = 0; i < configurationArgs.length; i++) {
+            configurations[i] = parseConfiguration(configurationArgs[i]);
+            if (configurations[i] == null) {
+                System.out.println(INVALID_CONFIGURATION + configurationArgs[i]);
+                return;
+            }
+        }
+        int threads = Integer.parseInt(parseOption(args, THREADS_OPTION,
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        League league = new League(rounds, players, configurations);
+        league.play(threads);
+        league.printResults();
+    }
+}
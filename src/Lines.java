@@ -0,0 +1,46 @@
+/**
+ * The four line directions a streak runs along through a cell: the row, the column,
+ * the main diagonal and the anti diagonal. Each direction is a step in rows and columns,
+ * and a line through a cell runs along its step and the opposite one.
+ *
+ * @author Achikam Levy
+ * @see BoardStorage
+ * @see DrawDetector
+ * @see ThreatEvaluator
+ */
+public final class Lines {
+
+    // the number of line directions
+    public static final int COUNT = 4;
+
+    // the row and column step of every direction: row, column, main diagonal and anti diagonal
+    private static final int[] ROW_STEPS = {0, 1, 1, 1};
+    private static final int[] COL_STEPS = {1, 0, 1, -1};
+
+    /**
+     * Constructs a Lines.
+     * nothing is need to be done in this constructor, all the methods are static.
+     */
+    private Lines() {
+    }
+
+    /**
+     * Retrieves the row step of a line direction.
+     *
+     * @param line The direction, between 0 and COUNT - 1.
+     * @return The rows to move for the next cell of the line.
+     */
+    public static int rowStep(int line) {
+        return ROW_STEPS[line];
+    }
+
+    /**
+     * Retrieves the column step of a line direction.
+     *
+     * @param line The direction, between 0 and COUNT - 1.
+     * @return The columns to move for the next cell of the line.
+     */
+    public static int colStep(int line) {
+        return COL_STEPS[line];
+    }
+}
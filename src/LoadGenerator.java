@@ -0,0 +1,226 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A load generator for a GameServer on the local machine.
+ * It opens many client connections at once, each one playing games with random legal moves one after
+ * the other, and measures the throughput of the server in games per second and the latency of a move:
+ * the time from sending a move until the server asks for the next one.
+ * With the "remote" opponent the clients are matched with each other, so every game has two clients.
+ *
+ * @author Achikam Levy
+ * @see GameServer
+ * @see RemotePlayer
+ */
+public class LoadGenerator {
+
+    // command line options
+    private static final String PORT_OPTION = "--port=";
+    private static final String CLIENTS_OPTION = "--clients=";
+    private static final String GAMES_OPTION = "--games=";
+
+    // defaults
+    private static final int DEFAULT_CLIENTS = 1000;
+    private static final int DEFAULT_GAMES = 10;
+
+    // time units
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final long NANOS_PER_MICRO = 1000;
+
+    // percentiles printed
+    private static final double MEDIAN = 0.5;
+    private static final double TAIL = 0.99;
+
+    private final int port;  // The port of the server
+    private final int size;  // The size of the game board
+    private final int winStreak;  // The number of consecutive marks required for a win
+    private final String opponent;  // The opponent asked for, a PlayerFactory type or "remote"
+    private final List<long[]> latencies = new CopyOnWriteArrayList<>();  // Move latencies of every client
+    private final AtomicLong games = new AtomicLong(0);  // Games played to the end
+    private final AtomicLong failures = new AtomicLong(0);  // Games that were dropped or refused
+
+    /**
+     * Constructs a LoadGenerator.
+     *
+     * @param port      The port of the server.
+     * @param size      The size of the game board.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @param opponent  The opponent to ask for.
+     */
+    public LoadGenerator(int port, int size, int winStreak, String opponent) {
+        this.port = port;
+        this.size = size;
+        this.winStreak = winStreak;
+        this.opponent = opponent;
+    }
+
+    /**
+     * Runs the clients and prints the measurements.
+     *
+     * @param clients        The number of concurrent clients.
+     * @param gamesPerClient The number of games every client plays.
+     * @throws InterruptedException if interrupted while waiting for the clients.
+     */
+    public void run(int clients, int gamesPerClient) throws InterruptedException {
+        ExecutorService executor = GameServer.newThreadPerTaskExecutor("client");
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            executor.execute(() -> runClient(gamesPerClient));
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+
+        int moves = 0;
+        for (long[] clientLatencies : this.latencies) {
+            moves += clientLatencies.length;
+        }
+        long[] all = new long[moves];
+        int offset = 0;
+        for (long[] clientLatencies : this.latencies) {
+            System.arraycopy(clientLatencies, 0, all, offset, clientLatencies.length);
+            offset += clientLatencies.length;
+        }
+        Arrays.sort(all);
+
+        System.out.println("######### Load: " + clients + " clients, " + gamesPerClient + " games each, size "
+                + this.size + ", win streak " + this.winStreak + ", opponent " + this.opponent + " #########");
+        System.out.printf("Games: %d in %.2f seconds, %.1f games per second, %d failed%n",
+                this.games.get(), seconds, this.games.get() / seconds, this.failures.get());
+        if (moves > 0) {
+            System.out.printf("Move latency (us): p50 %d, p99 %d, max %d over %d moves%n",
+                    percentile(all, MEDIAN) / NANOS_PER_MICRO, percentile(all, TAIL) / NANOS_PER_MICRO,
+                    all[moves - 1] / NANOS_PER_MICRO, moves);
+        }
+    }
+
+    /**
+     * Plays the games of a single client, each on a new connection.
+     *
+     * @param gamesPerClient The number of games to play.
+     */
+    private void runClient(int gamesPerClient) {
+        long[] clientLatencies = new long[gamesPerClient * ((this.size * this.size + 1) / 2)];
+        int moves = 0;
+        for (int i = 0; i < gamesPerClient; i++) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.port)) {
+                socket.setTcpNoDelay(true);
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                BufferedWriter out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                out.write(GameServer.PLAY + " " + this.size + " " + this.winStreak + " " + this.opponent);
+                out.newLine();
+                out.flush();
+
+                boolean[] occupied = new boolean[this.size * this.size];
+                long sent = 0;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] message = line.split(" ");
+                    if (message[0].equals(RemotePlayer.MOVE)) {
+                        occupied[Integer.parseInt(message[1]) * this.size + Integer.parseInt(message[2])] = true;
+                    } else if (message[0].equals(RemotePlayer.YOUR_TURN)) {
+                        if (sent != 0 && moves < clientLatencies.length) {
+                            clientLatencies[moves++] = System.nanoTime() - sent;
+                        }
+                        int cell = randomEmptyCell(occupied);
+                        occupied[cell] = true;
+                        out.write(cell / this.size + " " + cell % this.size);
+                        out.newLine();
+                        out.flush();
+                        sent = System.nanoTime();
+                    } else if (message[0].equals(RemotePlayer.END)) {
+                        this.games.incrementAndGet();
+                        break;
+                    } else if (message[0].equals(GameServer.ERROR)) {
+                        System.out.println(line);
+                        break;
+                    }
+                    // START and INVALID need no answer
+                }
+                if (line == null || !line.startsWith(RemotePlayer.END)) {
+                    this.failures.incrementAndGet();
+                }
+            } catch (IOException | RuntimeException e) {
+                this.failures.incrementAndGet();
+            }
+        }
+        this.latencies.add(Arrays.copyOf(clientLatencies, moves));
+    }
+
+    /**
+     * Picks a random empty cell of the board of a client.
+     *
+     * @param occupied The occupied cells, by row * size + col.
+     * @return An empty cell.
+     */
+    private static int randomEmptyCell(boolean[] occupied) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int cell = random.nextInt(occupied.length);
+        while (occupied[cell]) {
+            cell = (cell + 1) % occupied.length;
+        }
+        return cell;
+    }
+
+    /**
+     * Finds a percentile of sorted values.
+     *
+     * @param sorted   The values, sorted ascending.
+     * @param fraction The percentile, as a fraction in [0, 1].
+     * @return The value below which the fraction of the values lies.
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * Looks for an optional "--name=value" argument after the three positional arguments.
+     *
+     * @param args         Command line arguments.
+     * @param option       The option prefix, including the '=' sign.
+     * @param defaultValue The value to use when the option is not given.
+     * @return The value of the option, or defaultValue if it is missing.
+     */
+    private static String parseOption(String[] args, String option, String defaultValue) {
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].startsWith(option)) {
+                return args[i].substring(option.length());
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Runs the load generator based on command line arguments.
+     *
+     * @param args Command line arguments: [size, winStreak, opponent], where opponent is a player type or "remote",
+     *             optionally followed by --port=N, --clients=N (concurrent clients, by default 1000)
+     *             and --games=N (games per client, by default 10).
+     * @throws InterruptedException if interrupted while waiting for the clients.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int size = Integer.parseInt(args[0]);
+        int winStreak = Integer.parseInt(args[1]);
+        String opponent = args[2].toLowerCase();
+        int port = Integer.parseInt(parseOption(args, PORT_OPTION, String.valueOf(GameServer.DEFAULT_PORT)));
+        int clients = Integer.parseInt(parseOption(args, CLIENTS_OPTION, String.valueOf(DEFAULT_CLIENTS)));
+        int games = Integer.parseInt(parseOption(args, GAMES_OPTION, String.valueOf(DEFAULT_GAMES)));
+        new LoadGenerator(port, size, winStreak, opponent).run(clients, games);
+    }
+}
@@ -0,0 +1,154 @@
+import java.util.Arrays;
+
+/**
+ * A hash map from long keys to int values, stored in two primitive arrays with open addressing
+ * (linear probing), so entries don't allocate and keys are not boxed.
+ * The map doubles its capacity when it is more than half full.
+ * Long.MIN_VALUE marks a free slot, so it can't be used as a key.
+ *
+ * @author Achikam Levy
+ * @see SparseBoardStorage
+ */
+public class LongIntHashMap {
+
+    private static final long FREE = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;  // The key of each slot, FREE for a free slot
+    private int[] values;  // The value of each slot
+    private int mask;  // Maps a hash to a slot
+    private int count = 0;  // Number of entries
+
+    /**
+     * Constructs an empty LongIntHashMap.
+     */
+    public LongIntHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructs a LongIntHashMap holding the same entries as another map.
+     *
+     * @param other The map to copy.
+     */
+    public LongIntHashMap(LongIntHashMap other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.mask = other.mask;
+        this.count = other.count;
+    }
+
+    /**
+     * Allocates empty slot arrays.
+     *
+     * @param capacity The number of slots, a power of two.
+     */
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        Arrays.fill(this.keys, FREE);
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Finds the first slot of a key.
+     *
+     * @param key The key.
+     * @return The slot the probing of the key starts from.
+     */
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    /**
+     * Retrieves the value of a key.
+     *
+     * @param key          The key.
+     * @param defaultValue The value to return if the key is not in the map.
+     * @return The value of the key, or defaultValue.
+     */
+    public int get(long key, int defaultValue) {
+        for (int slot = slotOf(key); ; slot = (slot + 1) & this.mask) {
+            if (this.keys[slot] == key) {
+                return this.values[slot];
+            }
+            if (this.keys[slot] == FREE) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key   The key, not Long.MIN_VALUE.
+     * @param value The value.
+     */
+    public void put(long key, int value) {
+        int slot = slotOf(key);
+        while (this.keys[slot] != FREE && this.keys[slot] != key) {
+            slot = (slot + 1) & this.mask;
+        }
+        if (this.keys[slot] == FREE) {
+            this.keys[slot] = key;
+            this.count++;
+        }
+        this.values[slot] = value;
+        if (2 * this.count > this.keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Removes a key from the map.
+     * The entries that follow it in the probing sequence are shifted back, so no tombstones are left.
+     *
+     * @param key The key.
+     */
+    public void remove(long key) {
+        int slot = slotOf(key);
+        while (this.keys[slot] != key) {
+            if (this.keys[slot] == FREE) {
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.count--;
+        // move back every following entry that can't be found anymore once the slot is free
+        int free = slot;
+        for (int next = (free + 1) & this.mask; this.keys[next] != FREE; next = (next + 1) & this.mask) {
+            int home = slotOf(this.keys[next]);
+            if (((next - home) & this.mask) >= ((next - free) & this.mask)) {
+                this.keys[free] = this.keys[next];
+                this.values[free] = this.values[next];
+                free = next;
+            }
+        }
+        this.keys[free] = FREE;
+    }
+
+    /**
+     * Retrieves the number of entries.
+     *
+     * @return The number of keys in the map.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Doubles the number of slots and inserts the entries again.
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        allocate(2 * oldKeys.length);
+        this.count = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+}
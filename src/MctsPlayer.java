@@ -0,0 +1,472 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a Monte Carlo Tree Search computer player in a tic-tac-toe game, implementing the Player interface.
+ * Every iteration selects a path down the search tree by UCT, expands one new node, finishes the game
+ * with random moves (a playout) and updates the nodes on the path with the result.
+ * Several threads can grow the same tree (tree parallelism): each thread keeps its own Position
+ * and random generator, the nodes are locked one at a time, and a virtual loss spreads the threads
+ * over different paths. A move stops after a time budget or a number of playouts, the first that runs out.
+ * The positions are built once per game and follow the move log of the board from one turn to the next.
+ * Playouts check only the lines through the last move, and allocate nothing: they pick random empty cells
+ * from the index of the position on dense boards, and by drawing cells until an empty one comes up on sparse
+ * boards. On boards of more than FULL_WIDTH_MAX_CELLS cells a node only tries up to MAX_CANDIDATES empty cells
+ * next to the latest marks, and a playout ends as a draw after MAX_PLAYOUT_MOVES moves, so neither a node
+ * nor an iteration scans the board, whatever its area. The deadline is checked on the way down
+ * the tree as well as after every iteration.
+ * A player with helper threads holds a thread pool, close stops it.
+ *
+ * @author Achikam Levy
+ * @see Player
+ * @see Position
+ */
+public class MctsPlayer implements Player, AutoCloseable {
+
+    // search defaults
+    private static final long DEFAULT_TIME_BUDGET_MILLIS = 20;
+    private static final long NANOS_PER_MILLI = 1_000_000;
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final double WIN = 1;
+    private static final double DRAW = 0.5;
+
+    // limits of large boards
+    private static final int FULL_WIDTH_MAX_CELLS = 64;
+    private static final int MAX_CANDIDATES = 32;
+    private static final int MAX_PLAYOUT_MOVES = 256;
+    private static final int INITIAL_CHILDREN = 4;
+
+    // the eight steps to the cells around a cell
+    private static final int[] NEIGHBOR_ROW_STEPS = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] NEIGHBOR_COL_STEPS = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private final int winStreak;  // Number of consecutive marks required for a win
+    private final int threads;  // Number of threads that grow the tree
+    private final long timeBudgetNanos;  // Time limit of a single move
+    private final long playoutBudget;  // Playouts limit of a single move, 0 for no limit
+    private final ExecutorService executor;  // Runs the helper threads, null for a single thread
+    private final AtomicLong playouts = new AtomicLong();  // Playouts of the current move
+    private final Position[] positions;  // The root position of every search thread, follows the board
+    private Board board;  // The board the positions follow
+    private int syncedMoves;  // Moves of the board's log that the positions already hold
+
+    /**
+     * A node of the search tree: the position after a move.
+     * All the fields are guarded by the node's lock.
+     */
+    private static class Node {
+        private final Node parent;  // The position before the move
+        private final int move;  // The cell of the move
+        private final byte mover;  // The mark that made the move
+        private final boolean winning;  // True if the move won the game
+        private Node[] children;  // The expanded moves, grown as they are expanded
+        private int childCount;  // Number of expanded moves
+        private final int[] untried;  // Moves that were not expanded yet
+        private int untriedCount;  // Number of moves that were not expanded yet
+        private int visits;  // Iterations that passed through the node, including running ones
+        private double reward;  // Sum of the results of the iterations, from the mover's side
+
+        /**
+         * Constructs a Node.
+         *
+         * @param parent   The position before the move, null for the root.
+         * @param move     The cell of the move.
+         * @param mover    The mark that made the move.
+         * @param winning  True if the move won the game.
+         * @param position The position after the move, its candidate moves are the untried moves.
+         */
+        private Node(Node parent, int move, byte mover, boolean winning, Position position) {
+            this.parent = parent;
+            this.move = move;
+            this.mover = mover;
+            this.winning = winning;
+            this.untried = winning ? new int[0] : candidateMoves(position);
+            this.untriedCount = this.untried.length;
+            this.children = new Node[Math.min(this.untriedCount, INITIAL_CHILDREN)];
+        }
+
+        /**
+         * Adds an expanded child, growing the children array if it is full.
+         *
+         * @param child The new child.
+         */
+        private void addChild(Node child) {
+            if (this.childCount == this.children.length) {
+                this.children = Arrays.copyOf(this.children, Math.max(1, 2 * this.childCount));
+            }
+            this.children[this.childCount++] = child;
+        }
+
+        /**
+         * Checks if the game is over in this node.
+         *
+         * @return True if the move won or filled the board.
+         */
+        private boolean isTerminal() {
+            return this.winning || (this.untriedCount == 0 && this.childCount == 0);
+        }
+    }
+
+    /**
+     * Constructs a single threaded MctsPlayer with the default time budget.
+     *
+     * @param winStreak The number of consecutive marks required for a win.
+     */
+    public MctsPlayer(int winStreak) {
+        this(winStreak, 1, DEFAULT_TIME_BUDGET_MILLIS, 0);
+    }
+
+    /**
+     * Constructs an MctsPlayer.
+     *
+     * @param winStreak        The number of consecutive marks required for a win.
+     * @param threads          The number of threads that grow the search tree.
+     * @param timeBudgetMillis The time limit of a single move, in milliseconds.
+     * @param playoutBudget    The playouts limit of a single move, 0 for no limit.
+     */
+    public MctsPlayer(int winStreak, int threads, long timeBudgetMillis, long playoutBudget) {
+        this.winStreak = winStreak;
+        this.threads = Math.max(1, threads);
+        this.timeBudgetNanos = timeBudgetMillis * NANOS_PER_MILLI;
+        this.playoutBudget = playoutBudget;
+        this.positions = new Position[this.threads];
+        this.executor = this.threads > 1 ? Executors.newFixedThreadPool(this.threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "mcts-worker");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Lists the moves a new node tries: all the empty cells on small boards, and on large boards the
+     * empty cells around the latest marks, up to MAX_CANDIDATES of them.
+     *
+     * @param position The position of the node.
+     * @return The candidate moves, empty if the board is full.
+     */
+    private static int[] candidateMoves(Position position) {
+        int size = position.getSize();
+        int cells = size * size;
+        if (cells <= FULL_WIDTH_MAX_CELLS) {
+            int[] moves = new int[cells - position.getMoveCount()];
+            int count = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (position.get(cell) == Position.BLANK) {
+                    moves[count++] = cell;
+                }
+            }
+            return moves;
+        }
+        int[] moves = new int[MAX_CANDIDATES];
+        int count = 0;
+        for (int index = position.getMoveCount() - 1; index >= 0 && count < MAX_CANDIDATES; index--) {
+            int mark = position.getMove(index);
+            for (int step = 0; step < NEIGHBOR_ROW_STEPS.length && count < MAX_CANDIDATES; step++) {
+                int row = mark / size + NEIGHBOR_ROW_STEPS[step];
+                int col = mark % size + NEIGHBOR_COL_STEPS[step];
+                if (row >= 0 && row < size && col >= 0 && col < size && position.get(row * size + col) == Position.BLANK
+                        && !contains(moves, count, row * size + col)) {
+                    moves[count++] = row * size + col;
+                }
+            }
+        }
+        // an empty board starts in the center, a board with no free neighbor takes any empty cells
+        if (position.getMoveCount() == 0) {
+            moves[count++] = (size / 2) * size + size / 2;
+        }
+        for (int cell = 0; cell < cells && count == 0; cell++) {
+            if (position.get(cell) == Position.BLANK) {
+                moves[count++] = cell;
+            }
+        }
+        return Arrays.copyOf(moves, count);
+    }
+
+    /**
+     * Checks if a move is among the first moves of a list.
+     *
+     * @param moves The list of moves.
+     * @param count The number of moves to look at.
+     * @param move  The move to look for.
+     * @return True if the move is in the list.
+     */
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches the tree for the most visited move and places the player's mark there.
+     *
+     * @param board The game board on which the player makes a move.
+     * @param mark  The player's mark (X or O).
+     */
+    @Override
+    public void playTurn(Board board, Mark mark) {
+        followBoard(board);
+        Position rootPosition = this.positions[0];
+        if (rootPosition.isFull()) {
+            return;  // the board is full, shouldn't happened
+        }
+        // the root is the position after the opponent's move
+        Node root = new Node(null, -1, Position.opponent(Position.fromMark(mark)), false, rootPosition);
+        long deadline = System.nanoTime() + this.timeBudgetNanos;
+        this.playouts.set(0);
+
+        // the calling thread searches too, together with threads - 1 helpers
+        Future<?>[] helpers = new Future<?>[this.threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            Position position = this.positions[i + 1];
+            helpers[i] = this.executor.submit(() -> search(position, root, deadline));
+        }
+        search(rootPosition, root, deadline);
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("MCTS worker failed", e);
+            }
+        }
+
+        int bestMove = mostVisited(root);
+        board.putMark(mark, bestMove / board.getSize(), bestMove % board.getSize());
+    }
+
+    /**
+     * Brings the positions of the search threads to the board: the moves made since the last turn are
+     * played on them, and a new game, or a board that took back moves, builds them again.
+     *
+     * @param board The game board on which the player makes a move.
+     */
+    private void followBoard(Board board) {
+        int size = board.getSize();
+        boolean follows = board == this.board && board.getMoveCount() >= this.syncedMoves;
+        if (follows && this.syncedMoves > 0) {
+            // the board may have taken moves back and played others since
+            int last = this.syncedMoves - 1;
+            follows = this.positions[0].get(board.getMoveRow(last) * size + board.getMoveCol(last))
+                    == Position.fromMark(board.getMoveMark(last));
+        }
+        if (!follows) {
+            this.board = board;
+            this.syncedMoves = board.getMoveCount();
+            for (int i = 0; i < this.positions.length; i++) {
+                this.positions[i] = new Position(board, this.winStreak);
+            }
+            return;
+        }
+        for (; this.syncedMoves < board.getMoveCount(); this.syncedMoves++) {
+            int cell = board.getMoveRow(this.syncedMoves) * size + board.getMoveCol(this.syncedMoves);
+            byte mark = Position.fromMark(board.getMoveMark(this.syncedMoves));
+            for (Position position : this.positions) {
+                position.play(cell, mark);
+            }
+        }
+    }
+
+    /**
+     * Runs search iterations on the shared tree until the budget of the move runs out.
+     *
+     * @param position The root position of this thread, it is back at the root when the search ends.
+     * @param root     The root of the search tree.
+     * @param deadline System.nanoTime() at which the search has to stop.
+     */
+    private void search(Position position, Node root, long deadline) {
+        SplittableRandom random = new SplittableRandom();
+        int rootMoves = position.getMoveCount();
+        do {
+            // selection and expansion, the moves are played on the position on the way down
+            Node node = select(root, position, random, deadline);
+            byte winner = node.winning ? node.mover : playout(position, node.mover, random);
+            backPropagate(node, winner);
+
+            // back to the root position
+            while (position.getMoveCount() > rootMoves) {
+                position.undo();
+            }
+        } while (!budgetReached(deadline));
+    }
+
+    /**
+     * Checks if the time or the playouts budget of the move ran out, and counts the finished playout.
+     *
+     * @param deadline System.nanoTime() at which the search has to stop.
+     * @return True if the search has to stop.
+     */
+    private boolean budgetReached(long deadline) {
+        long done = this.playouts.incrementAndGet();
+        return (this.playoutBudget > 0 && done >= this.playoutBudget) || System.nanoTime() >= deadline;
+    }
+
+    /**
+     * Walks down the tree by UCT until a node that is not fully expanded, and expands it.
+     * Every node on the path gets a virtual loss (a visit without a reward) until the iteration ends.
+     * Once the deadline passed the walk stops where it is, as long as the root has a child.
+     *
+     * @param root     The root of the search tree.
+     * @param position The root position of this thread, moves are played on it.
+     * @param random   The random generator of this thread.
+     * @param deadline System.nanoTime() at which the search has to stop.
+     * @return The new node, or the node the walk ended in.
+     */
+    private Node select(Node root, Position position, SplittableRandom random, long deadline) {
+        Node node = root;
+        synchronized (root) {
+            root.visits++;
+        }
+        while (true) {
+            Node next;
+            synchronized (node) {
+                if (node.isTerminal() || (node != root && System.nanoTime() >= deadline)) {
+                    return node;
+                }
+                if (node.untriedCount > 0) {
+                    // expand a random untried move
+                    int index = random.nextInt(node.untriedCount);
+                    int move = node.untried[index];
+                    node.untried[index] = node.untried[--node.untriedCount];
+                    byte mover = Position.opponent(node.mover);
+                    position.play(move, mover);
+                    Node child = new Node(node, move, mover, position.isWin(move), position);
+                    child.visits++;
+                    node.addChild(child);
+                    return child;
+                }
+                next = bestChild(node);
+            }
+            synchronized (next) {
+                next.visits++;
+            }
+            position.play(next.move, next.mover);
+            node = next;
+        }
+    }
+
+    /**
+     * Chooses the child with the highest UCT value, must be called holding the node's lock.
+     *
+     * @param node A fully expanded node.
+     * @return The child to walk down to.
+     */
+    private static Node bestChild(Node node) {
+        double logVisits = Math.log(node.visits);
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < node.childCount; i++) {
+            Node child = node.children[i];
+            double visits;
+            double reward;
+            synchronized (child) {
+                visits = child.visits;
+                reward = child.reward;
+            }
+            double value = reward / visits + EXPLORATION * Math.sqrt(logVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finishes the game with uniformly random moves, or until MAX_PLAYOUT_MOVES moves were played.
+     *
+     * @param position  The position to play on, the moves are left on it.
+     * @param lastMover The mark that made the last move.
+     * @param random    The random generator of this thread.
+     * @return The winning mark, or Position.BLANK for a draw or a playout that was cut.
+     */
+    private static byte playout(Position position, byte lastMover, SplittableRandom random) {
+        int moves = Math.min(MAX_PLAYOUT_MOVES, position.getEmptyCount());
+        byte mover = lastMover;
+        for (int i = 0; i < moves; i++) {
+            mover = Position.opponent(mover);
+            int move = randomEmptyCell(position, random);
+            position.play(move, mover);
+            if (position.isWin(move)) {
+                return mover;
+            }
+        }
+        return Position.BLANK;
+    }
+
+    /**
+     * Picks a uniformly random empty cell. A dense position picks it from its index of the empty cells.
+     * A sparse position has no such index, random cells are drawn until an empty one comes up;
+     * a sparse board is mostly empty, so that takes a couple of draws.
+     *
+     * @param position The position, with at least one empty cell.
+     * @param random   The random generator of this thread.
+     * @return The empty cell, as row * size + col.
+     */
+    private static int randomEmptyCell(Position position, SplittableRandom random) {
+        if (!position.isSparse()) {
+            return position.getEmptyCell(random.nextInt(position.getEmptyCount()));
+        }
+        int cells = position.getSize() * position.getSize();
+        int cell;
+        do {
+            cell = random.nextInt(cells);
+        } while (position.get(cell) != Position.BLANK);
+        return cell;
+    }
+
+    /**
+     * Adds the result of an iteration to the nodes on its path, the visits were counted on the way down.
+     *
+     * @param node   The last node of the path.
+     * @param winner The winning mark, or Position.BLANK for a draw.
+     */
+    private static void backPropagate(Node node, byte winner) {
+        for (Node current = node; current != null; current = current.parent) {
+            double result = winner == Position.BLANK ? DRAW : winner == current.mover ? WIN : 0;
+            synchronized (current) {
+                current.reward += result;
+            }
+        }
+    }
+
+    /**
+     * Finds the move of the most visited child of the root.
+     *
+     * @param root The root of the search tree.
+     * @return The cell of the most visited move.
+     */
+    private static int mostVisited(Node root) {
+        Node best = root.children[0];
+        for (int i = 1; i < root.childCount; i++) {
+            if (root.children[i].visits > best.visits) {
+                best = root.children[i];
+            }
+        }
+        return best.move;
+    }
+
+    /**
+     * Retrieves the number of playouts of the last move.
+     *
+     * @return The playouts of the last search.
+     */
+    public long getPlayouts() {
+        return this.playouts.get();
+    }
+
+    /**
+     * Stops the helper threads of the player, if it has any.
+     */
+    @Override
+    public void close() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event of a single move, the duration of the playTurn call of the player.
+ * Events are created through FlightEvents, only once the flight recorder runs.
+ *
+ * @author Achikam Levy
+ * @see Game
+ * @see FlightEvents
+ */
+@Name("tictactoe.Move")
+@Label("Move")
+@Category("Tic Tac Toe")
+@Description("A playTurn call of a player")
+@StackTrace(false)
+public class MoveEvent extends Event {
+
+    @Label("Player")
+    String player;  // The class of the player that moved
+
+    @Label("Mark")
+    String mark;  // The mark of the player
+
+    @Label("Move Number")
+    int moveNumber;  // The index of the move in the game
+
+    @Label("Row")
+    int row;  // The row of the marked cell
+
+    @Label("Column")
+    int col;  // The column of the marked cell
+}
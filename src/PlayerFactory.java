@@ -1,12 +1,15 @@
 /**
  * A factory class responsible for creating instances of different player types based on the provided type.
- * The supported player types include the strings: WHATEVER, CLEVER, GENIUS, and HUMAN.
+ * The supported player types include the strings: WHATEVER, CLEVER, GENIUS, HUMAN, ALPHA_BETA, MCTS and TABLEBASE.
  *
  * @author Achikam Levy
  * @see WhateverPlayer
  * @see CleverPlayer
  * @see GeniusPlayer
  * @see HumanPlayer
+ * @see AlphaBetaPlayer
+ * @see MctsPlayer
+ * @see TablebasePlayer
  */
 public class PlayerFactory {
 
@@ -15,6 +18,15 @@ public class PlayerFactory {
     private final String CLEVER = "clever";
     private final String GENIUS = "genius";
     private final String HUMAN = "human";
+    private final String ALPHA_BETA = "alphabeta";
+    private final String MCTS = "mcts";
+    private final String TABLEBASE = "tablebase";
+
+    // ids of the player types in game records, new types are added at the end so recorded ids keep their meaning
+    private final String[] PLAYER_IDS = {WHATEVER, CLEVER, GENIUS, HUMAN, ALPHA_BETA, MCTS, TABLEBASE};
+
+    // win streak of players built without one, same as the default of Game
+    private final int DEFAULT_WIN_STREAK = 3;
 
     /**
      * Constructs a new PlayerFactory instance.
@@ -24,12 +36,26 @@ public class PlayerFactory {
     }
 
     /**
-     * Builds and returns a player object based on the specified player type.
+     * Builds and returns a player object based on the specified player type, for the default win streak.
+     * Searching players built this way play for the default win streak, whatever the game is, so new code
+     * should use buildPlayer(type, winStreak) to build a player, or getPlayerId(type) to check a type.
      *
-     * @param type The type of player to be created (whatever, clever, genius, human).
+     * @param type The type of player to be created (whatever, clever, genius, human, alphabeta, mcts, tablebase).
      * @return player object corresponding to the specified type, or null if an unsupported type is provided.
      */
     public Player buildPlayer(String type) {
+        return buildPlayer(type, DEFAULT_WIN_STREAK);
+    }
+
+    /**
+     * Builds and returns a player object based on the specified player type.
+     * Searching players need the win streak of the game, the other players ignore it.
+     *
+     * @param type      The type of player to be created (whatever, clever, genius, human, alphabeta, mcts, tablebase).
+     * @param winStreak The number of consecutive marks required to win the games the player plays.
+     * @return player object corresponding to the specified type, or null if an unsupported type is provided.
+     */
+    public Player buildPlayer(String type, int winStreak) {
         Player newPlayer;
         // suppose to get them already in lower case, but remain just in case...
         String playerType = type.toLowerCase();
@@ -38,6 +64,9 @@ public class PlayerFactory {
             case CLEVER -> newPlayer = new CleverPlayer();
             case GENIUS -> newPlayer = new GeniusPlayer();
             case HUMAN -> newPlayer = new HumanPlayer();
+            case ALPHA_BETA -> newPlayer = new AlphaBetaPlayer(winStreak);
+            case MCTS -> newPlayer = new MctsPlayer(winStreak);
+            case TABLEBASE -> newPlayer = new TablebasePlayer(winStreak);
             default -> {
                 // in case of invalid playerType
                 return null;
@@ -45,4 +74,30 @@ public class PlayerFactory {
         }
         return newPlayer;
     }
+
+    /**
+     * Retrieves the id of a player type, a small number that stands for the type in game records.
+     *
+     * @param type The type of player.
+     * @return The id of the type, or -1 for an unsupported type.
+     */
+    public int getPlayerId(String type) {
+        String playerType = type.toLowerCase();
+        for (int id = 0; id < PLAYER_IDS.length; id++) {
+            if (PLAYER_IDS[id].equals(playerType)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the player type of an id.
+     *
+     * @param id The id of the type, as returned by getPlayerId.
+     * @return The type of player, or null for an unknown id.
+     */
+    public String getPlayerType(int id) {
+        return id >= 0 && id < PLAYER_IDS.length ? PLAYER_IDS[id] : null;
+    }
 }
@@ -0,0 +1,347 @@
+import java.util.Arrays;
+
+/**
+ * A compact, mutable copy of a game board for search players.
+ * The cells are kept in a flat byte array, moves are made and unmade in place,
+ * and a Zobrist hash of the position is updated incrementally with every move,
+ * so a search can visit millions of positions without allocating a Board per node.
+ * Boards larger than Board.MAX_DENSE_SIZE keep only their marked cells, in a LongIntHashMap,
+ * and the Zobrist key of a (cell, mark) is computed by hashing it rather than looked up in a table,
+ * so the memory of a position grows with the marks on it rather than with the board area.
+ * A dense position also keeps an index of its empty cells, updated by every move and undo,
+ * so a random empty cell is picked in O(1).
+ *
+ * @author Achikam Levy
+ * @see Board
+ * @see AlphaBetaPlayer
+ */
+public class Position {
+
+    // cell values
+    public static final byte BLANK = 0;
+    public static final byte X = 1;
+    public static final byte O = 2;
+
+    // seed of the Zobrist keys, fixed so equal positions always get equal hashes
+    private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+
+    // constants of the SplitMix64 finalizer that turns a (cell, mark) into its Zobrist key
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long MIX_1 = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_2 = 0x94D049BB133111EBL;
+
+    // first capacity of the moves array
+    private static final int INITIAL_MOVES_CAPACITY = 64;
+
+    private final int size;  // The size of the board
+    private final int winStreak;  // Number of consecutive marks required for a win
+    private final byte[] cells;  // The cells of the board, row after row, null on sparse boards
+    private final LongIntHashMap sparseCells;  // The marked cells of a sparse board, null on dense boards
+    private int[] moves;  // The cells played so far, in order, grown as needed
+    private final int[] emptyCells;  // The empty cells in no particular order, null on sparse boards
+    private final int[] emptyPlaces;  // The place of every empty cell in emptyCells, null on sparse boards
+    private int moveCount;  // Number of marks on the board
+    private final long zobristSeed;  // Seed of the Zobrist keys of this board size
+    private final long sideKey;  // Toggled on every move, so the side to move is part of the hash
+    private long hash;  // Zobrist hash of the current position
+
+    /**
+     * Constructs an empty Position.
+     *
+     * @param size      The size of the square game board.
+     * @param winStreak The number of consecutive marks required for a win.
+     */
+    public Position(int size, int winStreak) {
+        this.size = size;
+        this.winStreak = Math.max(2, Math.min(winStreak, size));
+        if (size > Board.MAX_DENSE_SIZE) {
+            this.cells = null;
+            this.sparseCells = new LongIntHashMap();
+            this.moves = new int[INITIAL_MOVES_CAPACITY];
+            this.emptyCells = null;
+            this.emptyPlaces = null;
+        } else {
+            this.cells = new byte[size * size];
+            this.sparseCells = null;
+            this.moves = new int[size * size];
+            this.emptyCells = new int[size * size];
+            this.emptyPlaces = new int[size * size];
+            for (int cell = 0; cell < size * size; cell++) {
+                this.emptyCells[cell] = cell;
+                this.emptyPlaces[cell] = cell;
+            }
+        }
+        // the keys of different board sizes differ, so a table shared between games never mixes them up
+        this.zobristSeed = mix(ZOBRIST_SEED + size * GOLDEN_GAMMA);
+        this.sideKey = mix(this.zobristSeed);
+    }
+
+    /**
+     * Constructs a Position holding the marks of the given board.
+     * The marks of a sparse board are taken from its move log, so they cost O(marks) rather than O(area).
+     *
+     * @param board     The board to copy.
+     * @param winStreak The number of consecutive marks required for a win.
+     */
+    public Position(Board board, int winStreak) {
+        this(board.getSize(), winStreak);
+        if (isSparse()) {
+            for (int move = 0; move < board.getMoveCount(); move++) {
+                play(board.getMoveRow(move) * this.size + board.getMoveCol(move), fromMark(board.getMoveMark(move)));
+            }
+            return;
+        }
+        for (int row = 0; row < this.size; row++) {
+            for (int col = 0; col < this.size; col++) {
+                Mark mark = board.getMark(row, col);
+                if (mark != Mark.BLANK) {
+                    play(row * this.size + col, fromMark(mark));
+                }
+            }
+        }
+    }
+
+    /**
+     * Mixes the bits of a value, the SplitMix64 finalizer.
+     *
+     * @param value The value to mix.
+     * @return A well spread 64 bit hash of the value.
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * MIX_1;
+        z = (z ^ (z >>> 27)) * MIX_2;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Computes the Zobrist key of a mark in a cell.
+     *
+     * @param cell The cell, as row * size + col.
+     * @param mark X or O.
+     * @return The key of the mark in the cell.
+     */
+    private long zobristKey(int cell, byte mark) {
+        return mix(this.zobristSeed + (2L * cell + mark) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Converts a Mark into a cell value.
+     *
+     * @param mark The mark to convert.
+     * @return The cell value of the mark.
+     */
+    public static byte fromMark(Mark mark) {
+        return switch (mark) {
+            case X -> X;
+            case O -> O;
+            default -> BLANK;
+        };
+    }
+
+    /**
+     * Converts a cell value back into a Mark.
+     *
+     * @param value The cell value to convert.
+     * @return The mark of the cell value.
+     */
+    public static Mark toMark(byte value) {
+        return switch (value) {
+            case X -> Mark.X;
+            case O -> Mark.O;
+            default -> Mark.BLANK;
+        };
+    }
+
+    /**
+     * Retrieves the value of the opponent's mark.
+     *
+     * @param mark X or O.
+     * @return O for X and X for O.
+     */
+    public static byte opponent(byte mark) {
+        return mark == X ? O : X;
+    }
+
+    /**
+     * Retrieves the size of the board.
+     *
+     * @return The size of the board.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Retrieves the win streak of the position.
+     *
+     * @return The number of consecutive marks required for a win.
+     */
+    public int getWinStreak() {
+        return this.winStreak;
+    }
+
+    /**
+     * Checks if the position keeps only its marked cells, as boards larger than Board.MAX_DENSE_SIZE do.
+     *
+     * @return True if the cells are kept in a hash map.
+     */
+    public boolean isSparse() {
+        return this.cells == null;
+    }
+
+    /**
+     * Retrieves the value of a cell.
+     *
+     * @param cell The cell, as row * size + col.
+     * @return The cell value (BLANK, X or O).
+     */
+    public byte get(int cell) {
+        if (this.cells != null) {
+            return this.cells[cell];
+        }
+        return (byte) this.sparseCells.get(cell, BLANK);
+    }
+
+    /**
+     * Retrieves the number of marks on the board.
+     *
+     * @return The number of moves made.
+     */
+    public int getMoveCount() {
+        return this.moveCount;
+    }
+
+    /**
+     * Retrieves a move made on the position.
+     *
+     * @param index The index of the move, 0 for the first move.
+     * @return The cell of the move, as row * size + col.
+     */
+    public int getMove(int index) {
+        return this.moves[index];
+    }
+
+    /**
+     * Retrieves the number of empty cells.
+     *
+     * @return The number of cells that hold no mark.
+     */
+    public int getEmptyCount() {
+        return this.size * this.size - this.moveCount;
+    }
+
+    /**
+     * Retrieves an empty cell by its place in the index of the empty cells, on dense positions only.
+     * The order of the cells in the index changes as moves are made and taken back.
+     *
+     * @param place The place of the cell in the index, between 0 and getEmptyCount() - 1.
+     * @return The empty cell, as row * size + col.
+     */
+    public int getEmptyCell(int place) {
+        return this.emptyCells[place];
+    }
+
+    /**
+     * Checks if the board is full.
+     *
+     * @return True if there are no empty cells left.
+     */
+    public boolean isFull() {
+        return this.moveCount == this.size * this.size;
+    }
+
+    /**
+     * Retrieves the Zobrist hash of the position.
+     *
+     * @return The hash of the position.
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Places a mark on an empty cell.
+     *
+     * @param cell The cell, as row * size + col.
+     * @param mark X or O.
+     */
+    public void play(int cell, byte mark) {
+        if (this.cells != null) {
+            this.cells[cell] = mark;
+            // move the last empty cell into the place of the played one
+            int place = this.emptyPlaces[cell];
+            int lastCell = this.emptyCells[getEmptyCount() - 1];
+            this.emptyCells[place] = lastCell;
+            this.emptyPlaces[lastCell] = place;
+        } else {
+            this.sparseCells.put(cell, mark);
+        }
+        if (this.moveCount == this.moves.length) {
+            this.moves = Arrays.copyOf(this.moves, 2 * this.moves.length);
+        }
+        this.moves[this.moveCount++] = cell;
+        this.hash ^= zobristKey(cell, mark) ^ this.sideKey;
+    }
+
+    /**
+     * Takes back the last move.
+     */
+    public void undo() {
+        int cell = this.moves[--this.moveCount];
+        this.hash ^= zobristKey(cell, get(cell)) ^ this.sideKey;
+        if (this.cells != null) {
+            this.cells[cell] = BLANK;
+            // the cell goes back to the end of the empty cells
+            int place = getEmptyCount() - 1;
+            this.emptyCells[place] = cell;
+            this.emptyPlaces[cell] = place;
+        } else {
+            this.sparseCells.remove(cell);
+        }
+    }
+
+    /**
+     * Checks if the mark in the given cell is part of a winning streak.
+     * Only the four lines through the cell are checked.
+     *
+     * @param cell The cell that was just played.
+     * @return True if the cell completes a winning streak.
+     */
+    public boolean isWin(int cell) {
+        byte mark = get(cell);
+        int row = cell / this.size;
+        int col = cell % this.size;
+        for (int line = 0; line < Lines.COUNT; line++) {
+            int run = 1 + countRun(mark, row, col, Lines.rowStep(line), Lines.colStep(line))
+                    + countRun(mark, row, col, -Lines.rowStep(line), -Lines.colStep(line));
+            if (run >= this.winStreak) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the consecutive cells holding mark next to the given cell, in a single direction.
+     *
+     * @param mark    The mark to count.
+     * @param row     The row index of the starting cell (not counted).
+     * @param col     The column index of the starting cell (not counted).
+     * @param signRow direction to move in the rows
+     * @param signCol direction to move in the columns
+     * @return The length of the run of mark in this direction.
+     */
+    private int countRun(byte mark, int row, int col, int signRow, int signCol) {
+        int run = 0;
+        for (int i = 1; i < this.winStreak; i++) {
+            int r = row + i * signRow;
+            int c = col + i * signCol;
+            if (r < 0 || r >= this.size || c < 0 || c >= this.size || get(r * this.size + c) != mark) {
+                break;
+            }
+            run++;
+        }
+        return run;
+    }
+}
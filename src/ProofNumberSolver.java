@@ -0,0 +1,570 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A command line tool that decides the game-theoretic value of a (size, winStreak) configuration,
+ * from the empty board or from a supplied position, with depth-first proof-number search (df-pn).
+ * The value is found by two searches: one proves or disproves that X can force a win, and if it can't,
+ * the other proves or disproves that O can. A position that neither mark can force is a draw.
+ * The moves of the root position are split between threads, each with its own bounded transposition
+ * table of proof and disproof numbers, and root moves that are symmetric to one another are searched once.
+ * Progress counters are printed every second, and every solved root move is appended to a checkpoint
+ * file, so an interrupted solve resumes with the root moves it hasn't proved yet.
+ *
+ * @author Achikam Levy
+ * @see Position
+ * @see BoardSymmetry
+ * @see TablebaseBuilder
+ */
+public class ProofNumberSolver {
+
+    // proof and disproof numbers of solved positions
+    private static final int INFINITY = 1 << 29;
+
+    // a table entry is packed as the proof number in the high bits and the disproof number in the low bits
+    private static final int NUMBER_BITS = 32;
+    private static final long NUMBER_MASK = (1L << NUMBER_BITS) - 1;
+
+    // defaults and limits
+    private static final int DEFAULT_TABLE_BITS = 20;
+    private static final int NODES_BATCH = 1024;
+    private static final long PROGRESS_INTERVAL_SECONDS = 1;
+
+    // command line options
+    private static final String THREADS_OPTION = "--threads=";
+    private static final String POSITION_OPTION = "--position=";
+    private static final String TABLE_BITS_OPTION = "--table-bits=";
+    private static final String CHECKPOINT_OPTION = "--checkpoint=";
+
+    private final byte attacker;  // The mark whose forced win is searched for
+    private final long[] keys;  // The hash of the position stored in each entry
+    private final long[] numbers;  // The packed proof and disproof numbers of each entry
+    private final int[] work;  // Nodes spent on each entry, the entry with less work is replaced first
+    private final int mask;  // Maps a hash to the first entry of its bucket
+    private final AtomicLong sharedNodes;  // Nodes searched by all the threads
+    private final AtomicBoolean stop;  // Set once the root is solved, so the other root moves are abandoned
+    private Position position;  // The position being searched
+    private long nodes = 0;  // Nodes searched by this solver
+
+    /**
+     * Constructs a ProofNumberSolver for a single thread.
+     *
+     * @param attacker    The mark whose forced win is searched for, Position.X or Position.O.
+     * @param tableBits   The transposition table holds 2^tableBits entries of 20 bytes.
+     * @param sharedNodes The node counter shared by all the threads.
+     * @param stop        Set by another thread when this search is no longer needed.
+     */
+    public ProofNumberSolver(byte attacker, int tableBits, AtomicLong sharedNodes, AtomicBoolean stop) {
+        this.attacker = attacker;
+        this.keys = new long[1 << tableBits];
+        this.numbers = new long[1 << tableBits];
+        this.work = new int[1 << tableBits];
+        // two entries per bucket
+        this.mask = (1 << tableBits) - 2;
+        this.sharedNodes = sharedNodes;
+        this.stop = stop;
+    }
+
+    /**
+     * Proves or disproves that the attacker can force a win from a position.
+     * The position must not be over, and it is played on during the search.
+     *
+     * @param position The position to solve, with the given side to move.
+     * @param side     The mark to move.
+     * @return True if the attacker wins, false if it doesn't, or null if the search was stopped.
+     */
+    public Boolean solve(Position position, byte side) {
+        this.position = position;
+        this.nodes = 0;
+        long result = search(INFINITY, INFINITY, side);
+        this.sharedNodes.addAndGet(this.nodes % NODES_BATCH);
+        if (this.stop.get()) {
+            return null;
+        }
+        return proofOf(result) == 0;
+    }
+
+    /**
+     * The multiple iterative deepening search of df-pn, in its phi / delta form: phi is the proof number
+     * of the current node for the side to move and delta its disproof number. The node is searched until
+     * one of them reaches its threshold, always going down the child that looks easiest to solve.
+     *
+     * @param phiThreshold   The threshold of phi.
+     * @param deltaThreshold The threshold of delta.
+     * @param side           The mark to move.
+     * @return The packed proof and disproof numbers of the node when the search returned.
+     */
+    private long search(int phiThreshold, int deltaThreshold, byte side) {
+        long startNodes = this.nodes;
+        long hash = this.position.getHash();
+        boolean orNode = side == this.attacker;
+        int cells = this.position.getSize() * this.position.getSize();
+        while (true) {
+            countNode();
+
+            // the phi of a node is the smallest delta of its children, its delta the sum of their phi.
+            // the sum stops short of INFINITY, which only a solved child may bring to the node
+            int phi = INFINITY;
+            int delta = 0;
+            int bestCell = -1;
+            int bestChildPhi = 0;
+            int secondDelta = INFINITY;
+            for (int cell = 0; cell < cells; cell++) {
+                if (this.position.get(cell) != Position.BLANK) {
+                    continue;
+                }
+                long child = childNumbers(cell, side);
+                // the child is a node of the other type
+                int childPhi = orNode ? disproofOf(child) : proofOf(child);
+                int childDelta = orNode ? proofOf(child) : disproofOf(child);
+                if (bestCell < 0 || childDelta < phi) {
+                    secondDelta = phi;
+                    phi = childDelta;
+                    bestCell = cell;
+                    bestChildPhi = childPhi;
+                } else if (childDelta < secondDelta) {
+                    secondDelta = childDelta;
+                }
+                if (childPhi == INFINITY) {
+                    delta = INFINITY;
+                } else if (delta < INFINITY) {
+                    delta = Math.min(INFINITY - 1, delta + childPhi);
+                }
+            }
+
+            long result = orNode ? pack(phi, delta) : pack(delta, phi);
+            store(hash, result, (int) Math.min(Integer.MAX_VALUE, this.nodes - startNodes));
+            if (phi >= phiThreshold || delta >= deltaThreshold || this.stop.get()) {
+                return result;
+            }
+
+            int childPhiThreshold = Math.min(INFINITY, deltaThreshold - delta + bestChildPhi);
+            int childDeltaThreshold = Math.min(phiThreshold, secondDelta + 1);
+            this.position.play(bestCell, side);
+            search(childPhiThreshold, childDeltaThreshold, Position.opponent(side));
+            this.position.undo();
+        }
+    }
+
+    /**
+     * Retrieves the proof and disproof numbers of the position after a move.
+     * Positions where the game is over are solved on the spot, the others come from the table.
+     *
+     * @param cell The cell to play.
+     * @param side The mark to move.
+     * @return The packed proof and disproof numbers of the child.
+     */
+    private long childNumbers(int cell, byte side) {
+        this.position.play(cell, side);
+        long result;
+        if (this.position.isWin(cell)) {
+            result = side == this.attacker ? pack(0, INFINITY) : pack(INFINITY, 0);
+        } else if (this.position.isFull()) {
+            // a draw is not a win of the attacker
+            result = pack(INFINITY, 0);
+        } else {
+            result = probe(this.position.getHash());
+        }
+        this.position.undo();
+        return result;
+    }
+
+    /**
+     * Looks for the numbers of a position in its bucket.
+     *
+     * @param hash The hash of the position.
+     * @return The packed numbers, or 1 and 1 for a position that was never searched.
+     */
+    private long probe(long hash) {
+        int bucket = (int) hash & this.mask;
+        for (int entry = bucket; entry <= bucket + 1; entry++) {
+            if (this.keys[entry] == hash && this.numbers[entry] != 0) {
+                return this.numbers[entry];
+            }
+        }
+        return pack(1, 1);
+    }
+
+    /**
+     * Stores the numbers of a position, in its own entry if it has one,
+     * otherwise in the entry of its bucket that took less work.
+     *
+     * @param hash   The hash of the position.
+     * @param packed The packed numbers.
+     * @param nodes  The nodes spent on the position.
+     */
+    private void store(long hash, long packed, int nodes) {
+        int entry = (int) hash & this.mask;
+        if (this.keys[entry + 1] == hash || (this.keys[entry] != hash && this.work[entry + 1] < this.work[entry])) {
+            entry++;
+        }
+        this.keys[entry] = hash;
+        this.numbers[entry] = packed;
+        this.work[entry] = nodes;
+    }
+
+    /**
+     * Counts a searched node, the shared counter is updated in batches.
+     */
+    private void countNode() {
+        if (++this.nodes % NODES_BATCH == 0) {
+            this.sharedNodes.addAndGet(NODES_BATCH);
+        }
+    }
+
+    /**
+     * Packs a proof number and a disproof number.
+     *
+     * @param proof    The proof number.
+     * @param disproof The disproof number.
+     * @return The packed numbers.
+     */
+    private static long pack(int proof, int disproof) {
+        return ((long) proof << NUMBER_BITS) | disproof;
+    }
+
+    /**
+     * Extracts the proof number of packed numbers.
+     *
+     * @param packed The packed numbers.
+     * @return The proof number, 0 for a proved win of the attacker.
+     */
+    private static int proofOf(long packed) {
+        return (int) (packed >>> NUMBER_BITS);
+    }
+
+    /**
+     * Extracts the disproof number of packed numbers.
+     *
+     * @param packed The packed numbers.
+     * @return The disproof number, 0 for a position the attacker can't win.
+     */
+    private static int disproofOf(long packed) {
+        return (int) (packed & NUMBER_MASK);
+    }
+
+    /**
+     * Decides whether the attacker can force a win from the root position, by solving the root moves
+     * on a pool of threads. Root moves already solved in the checkpoint are not searched again.
+     *
+     * @param root       The root position, not over and not full.
+     * @param winStreak  The number of consecutive marks required for a win.
+     * @param attacker   The mark whose forced win is searched for.
+     * @param threads    The number of search threads.
+     * @param tableBits  The size of the transposition table of each thread.
+     * @param checkpoint The results of solved root moves, updated as root moves are solved.
+     * @return True if the attacker can force a win.
+     * @throws InterruptedException if the main thread is interrupted.
+     * @throws IllegalStateException if a search thread failed, with the failure as its cause.
+     */
+    private static boolean solveRoot(Board root, int winStreak, byte attacker, int threads, int tableBits,
+                                     Checkpoint checkpoint) throws InterruptedException {
+        Position position = new Position(root, winStreak);
+        byte side = position.getMoveCount() % 2 == 0 ? Position.X : Position.O;
+        boolean orRoot = side == attacker;
+        List<Integer> moves = distinctMoves(position, side);
+
+        // the root is solved as soon as one root move decides it: a win at an OR root, a non-win at an AND root
+        AtomicBoolean stop = new AtomicBoolean(false);
+        AtomicBoolean decided = new AtomicBoolean(false);
+        AtomicInteger nextMove = new AtomicInteger(0);
+        AtomicInteger solvedMoves = new AtomicInteger(0);
+        AtomicLong nodes = new AtomicLong(0);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> searches = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            searches.add(pool.submit(() -> {
+                try {
+                    ProofNumberSolver solver = new ProofNumberSolver(attacker, tableBits, nodes, stop);
+                    for (int i = nextMove.getAndIncrement(); i < moves.size() && !stop.get();
+                         i = nextMove.getAndIncrement()) {
+                        int cell = moves.get(i);
+                        Boolean won = checkpoint.lookup(attacker, cell);
+                        if (won == null) {
+                            Position child = new Position(root, winStreak);
+                            child.play(cell, side);
+                            if (child.isWin(cell)) {
+                                won = side == attacker;
+                            } else if (child.isFull()) {
+                                won = false;
+                            } else {
+                                won = solver.solve(child, Position.opponent(side));
+                            }
+                            if (won == null) {
+                                return;  // stopped, the root is already decided
+                            }
+                            checkpoint.record(attacker, cell, won);
+                        }
+                        solvedMoves.incrementAndGet();
+                        if (won == orRoot) {
+                            decided.set(true);
+                            stop.set(true);
+                        }
+                    }
+                } catch (RuntimeException | Error e) {
+                    // the root can't be decided without this root move, so the other threads stop too
+                    stop.set(true);
+                    throw e;
+                }
+            }));
+        }
+        pool.shutdown();
+
+        try {
+            long start = System.nanoTime();
+            while (!pool.awaitTermination(PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS)) {
+                long seconds = Math.max(1, (System.nanoTime() - start) / 1_000_000_000);
+                System.out.println("  " + Position.toMark(attacker) + " wins? " + solvedMoves.get() + "/"
+                        + moves.size() + " root moves solved, " + nodes.get() + " nodes, " + nodes.get() / seconds
+                        + " nodes/s");
+            }
+            // a failed root move leaves the root undecided, so the failure is passed on
+            for (Future<?> search : searches) {
+                search.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A search thread failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        // an OR root is won if some move wins, an AND root if no move escapes
+        return orRoot == decided.get();
+    }
+
+    /**
+     * Lists the empty cells of a position, keeping one move of every group of moves
+     * that lead to symmetric positions.
+     *
+     * @param position The position.
+     * @param side     The mark to move.
+     * @return The distinct moves, as row * size + col.
+     */
+    private static List<Integer> distinctMoves(Position position, byte side) {
+        BoardSymmetry symmetry = new BoardSymmetry(position.getSize());
+        List<long[]> seen = new ArrayList<>();
+        List<Integer> moves = new ArrayList<>();
+        for (int cell = 0; cell < position.getSize() * position.getSize(); cell++) {
+            if (position.get(cell) != Position.BLANK) {
+                continue;
+            }
+            position.play(cell, side);
+            symmetry.canonicalize(position);
+            long[] key = symmetry.getCanonicalKey().clone();
+            position.undo();
+            if (seen.stream().noneMatch(other -> Arrays.equals(other, key))) {
+                seen.add(key);
+                moves.add(cell);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Finds the winner of a position where a mark may already have completed a streak.
+     *
+     * @param board     The position.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @return The mark that has a streak, or Mark.BLANK if none has.
+     */
+    private static Mark findWinner(Board board, int winStreak) {
+        WinDetector winDetector = new WinDetector(winStreak);
+        for (int row = 0; row < board.getSize(); row++) {
+            for (int col = 0; col < board.getSize(); col++) {
+                Mark mark = board.getMark(row, col);
+                if (mark != Mark.BLANK && winDetector.isWinningMove(board, mark, row, col)) {
+                    return mark;
+                }
+            }
+        }
+        return Mark.BLANK;
+    }
+
+    /**
+     * Builds a board from a position argument, the cells row by row: X, O, or any other character for blank.
+     *
+     * @param size  The size of the board.
+     * @param cells The cells of the position, size * size characters.
+     * @return The board of the position.
+     */
+    private static Board parsePosition(int size, String cells) {
+        if (cells.length() != size * size) {
+            throw new IllegalArgumentException("A position of size " + size + " has " + size * size + " cells");
+        }
+        Board board = new Board(size);
+        for (int cell = 0; cell < cells.length(); cell++) {
+            char symbol = Character.toUpperCase(cells.charAt(cell));
+            if (symbol == 'X' || symbol == 'O') {
+                board.putMark(symbol == 'X' ? Mark.X : Mark.O, cell / size, cell % size);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Retrieves the value of an optional --name=value argument.
+     *
+     * @param args         Command line arguments.
+     * @param option       The option prefix, including the '='.
+     * @param defaultValue The value when the option is missing.
+     * @return The value of the option.
+     */
+    private static String parseOption(String[] args, String option, String defaultValue) {
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith(option)) {
+                return args[i].substring(option.length());
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Solves a configuration and prints its value.
+     *
+     * @param args Command line arguments: [size, winStreak] optionally followed by
+     *             --position=cells to solve a position instead of the empty board (row by row, X, O or '-'),
+     *             --threads=N, --table-bits=N (entries per thread, a power of two)
+     *             and --checkpoint=file to record solved root moves and resume from them.
+     * @throws IOException          if the checkpoint file can't be read or written.
+     * @throws InterruptedException if the solve is interrupted.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int size = Integer.parseInt(args[0]);
+        int winStreak = Math.max(2, Math.min(Integer.parseInt(args[1]), size));
+        String cells = parseOption(args, POSITION_OPTION, "-".repeat(size * size));
+        int threads = Integer.parseInt(parseOption(args, THREADS_OPTION,
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int tableBits = Integer.parseInt(parseOption(args, TABLE_BITS_OPTION, String.valueOf(DEFAULT_TABLE_BITS)));
+        String checkpointFile = parseOption(args, CHECKPOINT_OPTION, null);
+
+        Board root = parsePosition(size, cells);
+        Mark winner = findWinner(root, winStreak);
+        if (winner != Mark.BLANK || root.countEmptyCells() == 0) {
+            System.out.println("The position is already over: " + (winner == Mark.BLANK ? "draw" : winner + " wins"));
+            return;
+        }
+
+        long start = System.nanoTime();
+        String result;
+        try (Checkpoint checkpoint = new Checkpoint(checkpointFile, size + " " + winStreak + " " + cells)) {
+            if (solveRoot(root, winStreak, Position.X, threads, tableBits, checkpoint)) {
+                result = "X wins";
+            } else if (solveRoot(root, winStreak, Position.O, threads, tableBits, checkpoint)) {
+                result = "O wins";
+            } else {
+                result = "draw";
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Solved size " + size + ", win streak " + winStreak + " in " + millis + " ms: "
+                + result + " with perfect play.");
+    }
+
+    /**
+     * The solved root moves of both searches, kept in memory and appended to a checkpoint file.
+     * The first line of the file identifies the configuration and position, and every other line
+     * holds the mark searched for, the root move and whether that mark wins after it.
+     * A file of another configuration is started over.
+     *
+     * @author Achikam Levy
+     * @see ProofNumberSolver
+     */
+    private static class Checkpoint implements AutoCloseable {
+
+        private final Map<String, Boolean> results = new HashMap<>();  // Solved root moves, by mark and cell
+        private final BufferedWriter out;  // The checkpoint file, or null without one
+
+        /**
+         * Constructs a Checkpoint, reading the root moves solved by an earlier run.
+         *
+         * @param file   The checkpoint file, or null to keep the results in memory only.
+         * @param header The line that identifies the configuration and position.
+         * @throws IOException if the file can't be read or written.
+         */
+        Checkpoint(String file, String header) throws IOException {
+            if (file == null) {
+                this.out = null;
+                return;
+            }
+            Path path = Path.of(file);
+            List<String> lines = Files.exists(path) ? Files.readAllLines(path, StandardCharsets.UTF_8) : List.of();
+            boolean resume = !lines.isEmpty() && lines.get(0).equals(header);
+            if (resume) {
+                for (String line : lines.subList(1, lines.size())) {
+                    String[] fields = line.split(" ");
+                    if (fields.length == 3) {
+                        this.results.put(fields[0] + " " + fields[1], Boolean.parseBoolean(fields[2]));
+                    }
+                }
+                System.out.println("Resuming with " + this.results.size() + " solved root moves from " + path);
+                this.out = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            } else {
+                this.out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                this.out.write(header);
+                this.out.newLine();
+                this.out.flush();
+            }
+        }
+
+        /**
+         * Looks for the result of a root move.
+         *
+         * @param attacker The mark searched for.
+         * @param cell     The root move.
+         * @return True or false if the root move was solved, null otherwise.
+         */
+        synchronized Boolean lookup(byte attacker, int cell) {
+            return this.results.get(Position.toMark(attacker) + " " + cell);
+        }
+
+        /**
+         * Records the result of a root move, and appends it to the file right away.
+         *
+         * @param attacker The mark searched for.
+         * @param cell     The root move.
+         * @param won      True if the attacker wins after the move.
+         */
+        synchronized void record(byte attacker, int cell, boolean won) {
+            String key = Position.toMark(attacker) + " " + cell;
+            this.results.put(key, won);
+            if (this.out != null) {
+                try {
+                    this.out.write(key + " " + won);
+                    this.out.newLine();
+                    this.out.flush();
+                } catch (IOException e) {
+                    // the result is still kept in memory, only resuming is affected
+                    System.err.println("Can't write the checkpoint: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Closes the checkpoint file.
+         *
+         * @throws IOException if the file can't be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            if (this.out != null) {
+                this.out.close();
+            }
+        }
+    }
+}
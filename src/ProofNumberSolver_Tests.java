@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks the ProofNumberSolver against a plain minimax of the whole game tree,
+ * on random positions of small boards and on empty boards of known value.
+ *
+ * @author Achikam Levy
+ * @see ProofNumberSolver
+ */
+public class ProofNumberSolver_Tests {
+
+    private static final int TABLE_BITS = 16;
+    private static final int POSITIONS = 60;
+    private static final int MAX_EMPTY = 9;
+    private static final long SEED = 20240603L;
+
+    /**
+     * Solves a position for one attacker with a fresh solver.
+     *
+     * @param position The position, not over.
+     * @param side     The mark to move.
+     * @param attacker The mark whose forced win is searched for.
+     * @return True if the attacker can force a win.
+     */
+    private static boolean solve(Position position, byte side, byte attacker) {
+        ProofNumberSolver solver = new ProofNumberSolver(attacker, TABLE_BITS, new AtomicLong(), new AtomicBoolean());
+        return solver.solve(position, side);
+    }
+
+    /**
+     * Finds the value of a position by searching every move to the end of the game.
+     *
+     * @param position The position, not over.
+     * @param side     The mark to move.
+     * @param values   The values of the positions searched so far, by hash.
+     * @return 1 if the mark to move wins, -1 if it loses and 0 for a draw.
+     */
+    private static int minimax(Position position, byte side, Map<Long, Integer> values) {
+        Integer known = values.get(position.getHash());
+        if (known != null) {
+            return known;
+        }
+        int best = -1;
+        int cells = position.getSize() * position.getSize();
+        for (int cell = 0; cell < cells && best < 1; cell++) {
+            if (position.get(cell) != Position.BLANK) {
+                continue;
+            }
+            position.play(cell, side);
+            int value;
+            if (position.isWin(cell)) {
+                value = 1;
+            } else if (position.isFull()) {
+                value = 0;
+            } else {
+                value = -minimax(position, Position.opponent(side), values);
+            }
+            position.undo();
+            best = Math.max(best, value);
+        }
+        values.put(position.getHash(), best);
+        return best;
+    }
+
+    /**
+     * Plays random moves on an empty board, starting over whenever a move ends the game.
+     *
+     * @param size      The size of the board.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @param moves     The number of moves to play, less than size * size.
+     * @param random    The source of the moves.
+     * @return The position, not over.
+     */
+    private static Position randomPosition(int size, int winStreak, int moves, Random random) {
+        while (true) {
+            Position position = new Position(size, winStreak);
+            boolean over = false;
+            for (int move = 0; move < moves && !over; move++) {
+                byte side = move % 2 == 0 ? Position.X : Position.O;
+                int cell;
+                do {
+                    cell = random.nextInt(size * size);
+                } while (position.get(cell) != Position.BLANK);
+                position.play(cell, side);
+                over = position.isWin(cell);
+            }
+            if (!over) {
+                return position;
+            }
+        }
+    }
+
+    @Test
+    public void matchesMinimaxOnRandomPositions() {
+        Random random = new Random(SEED);
+        int[][] configurations = {{3, 3}, {4, 3}, {4, 4}};
+        for (int[] configuration : configurations) {
+            int size = configuration[0];
+            int winStreak = configuration[1];
+            for (int i = 0; i < POSITIONS; i++) {
+                // at most MAX_EMPTY cells are left empty, so the minimax stays small
+                int moves = Math.max(1, size * size - MAX_EMPTY + random.nextInt(MAX_EMPTY - 2));
+                Position position = randomPosition(size, winStreak, moves, random);
+                byte side = position.getMoveCount() % 2 == 0 ? Position.X : Position.O;
+                int value = minimax(position, side, new HashMap<>());
+                String name = size + " " + winStreak + " position " + i;
+                Assertions.assertEquals(value == 1, solve(position, side, side), name + " mover wins");
+                Assertions.assertEquals(value == -1, solve(position, side, Position.opponent(side)),
+                        name + " opponent wins");
+            }
+        }
+    }
+
+    @Test
+    public void solvesEmptyBoards() {
+        Assertions.assertFalse(solve(new Position(3, 3), Position.X, Position.X));
+        Assertions.assertFalse(solve(new Position(3, 3), Position.X, Position.O));
+        Assertions.assertTrue(solve(new Position(4, 3), Position.X, Position.X));
+    }
+}
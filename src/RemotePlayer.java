@@ -0,0 +1,160 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Represents a player connected to a GameServer, implementing the Player interface.
+ * The RemotePlayer speaks the line protocol of the server over its socket:
+ * it tells the client the opponent's last move ("MOVE row col"), asks for a move ("YOUR_TURN")
+ * and reads the answer "row col", answering "INVALID" until a legal move is given.
+ * At the end of the game the client gets the last move of the opponent and "END X", "END O" or "END TIE".
+ * A client that disconnects or stays silent for too long makes playTurn throw an UncheckedIOException.
+ *
+ * @author Achikam Levy
+ * @see Player
+ * @see GameServer
+ */
+public class RemotePlayer implements Player {
+
+    // protocol messages
+    public static final String START = "START";
+    public static final String MOVE = "MOVE";
+    public static final String YOUR_TURN = "YOUR_TURN";
+    public static final String INVALID = "INVALID";
+    public static final String END = "END";
+    public static final String TIE = "TIE";
+
+    // small buffers, the messages are short and a server holds many connections
+    private static final int BUFFER_SIZE = 256;
+
+    private final BufferedReader in;  // Lines from the client
+    private final BufferedWriter out;  // Lines to the client, flushed when an answer is expected
+
+    /**
+     * Constructs a RemotePlayer on a connected socket.
+     *
+     * @param socket The connection to the client.
+     * @throws IOException if the streams of the socket can't be opened.
+     */
+    public RemotePlayer(Socket socket) throws IOException {
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+        this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+    }
+
+    /**
+     * Reads a line from the client.
+     *
+     * @return The line, without its line terminator.
+     * @throws IOException if the client disconnected or the line can't be read.
+     */
+    public String readLine() throws IOException {
+        String line = this.in.readLine();
+        if (line == null) {
+            throw new EOFException("The client disconnected");
+        }
+        return line;
+    }
+
+    /**
+     * Sends a line to the client and flushes it.
+     *
+     * @param line The line to send.
+     * @throws IOException if the line can't be sent.
+     */
+    public void send(String line) throws IOException {
+        this.out.write(line);
+        this.out.newLine();
+        this.out.flush();
+    }
+
+    /**
+     * Tells the client the game it plays.
+     *
+     * @param size      The size of the game board.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @param mark      The mark of the client.
+     * @throws IOException if the line can't be sent.
+     */
+    public void gameStarted(int size, int winStreak, Mark mark) throws IOException {
+        send(START + " " + size + " " + winStreak + " " + mark);
+    }
+
+    /**
+     * Asks the client for a move, until it gives a legal one, and places it.
+     *
+     * @param board The game board on which the player makes a move.
+     * @param mark  The player's mark (X or O).
+     */
+    @Override
+    public void playTurn(Board board, Mark mark) {
+        try {
+            sendOpponentMove(board, mark);
+            while (true) {
+                send(YOUR_TURN);
+                String[] coordinates = readLine().trim().split("\\s+");
+                if (coordinates.length == 2 && isNumber(coordinates[0]) && isNumber(coordinates[1])
+                        && board.putMark(mark, Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1]))) {
+                    return;
+                }
+                this.out.write(INVALID);
+                this.out.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Tells the client how the game ended.
+     *
+     * @param board  The board of the game.
+     * @param mark   The mark of the client.
+     * @param result The winning mark, or Mark.BLANK for a tie.
+     * @throws IOException if the lines can't be sent.
+     */
+    public void gameOver(Board board, Mark mark, Mark result) throws IOException {
+        sendOpponentMove(board, mark);
+        send(END + " " + (result == Mark.BLANK ? TIE : result.name()));
+    }
+
+    /**
+     * Writes the last move of the board if the opponent made it.
+     *
+     * @param board The game board.
+     * @param mark  The mark of the client.
+     * @throws IOException if the line can't be written.
+     */
+    private void sendOpponentMove(Board board, Mark mark) throws IOException {
+        int moves = board.getMoveCount();
+        if (moves > 0 && board.getMoveMark(moves - 1) != mark) {
+            this.out.write(MOVE + " " + board.getLastRow() + " " + board.getLastCol());
+            this.out.newLine();
+        }
+    }
+
+    /**
+     * Checks if a token is a non negative decimal number that fits an int.
+     *
+     * @param token The token.
+     * @return True if the token can be parsed as a coordinate.
+     */
+    private static boolean isNumber(String token) {
+        if (token.isEmpty() || token.length() > 9) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
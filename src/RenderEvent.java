@@ -0,0 +1,28 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event of a renderBoard call.
+ * Events are created through FlightEvents, only once the flight recorder runs.
+ *
+ * @author Achikam Levy
+ * @see Game
+ * @see FlightEvents
+ */
+@Name("tictactoe.Render")
+@Label("Render")
+@Category("Tic Tac Toe")
+@Description("A renderBoard call of the renderer of a game")
+@StackTrace(false)
+public class RenderEvent extends Event {
+
+    @Label("Renderer")
+    String renderer;  // The class of the renderer
+
+    @Label("Move Number")
+    int moveNumber;  // The number of moves on the board
+}
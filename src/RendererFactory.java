@@ -5,12 +5,18 @@
  * @see Renderer
  * @see VoidRenderer
  * @see ConsoleRenderer
+ * @see AsyncRenderer
  */
 public class RendererFactory {
 
     // constants of renderers type options
     private final String NONE = "none";
     private final String CONSOLE = "console";
+    private final String ASYNC = "async";
+    private final String ANSI = "ansi";
+
+    // frames that can wait for the render thread of an async renderer
+    private final int ASYNC_QUEUE_CAPACITY = 2;
 
     /**
      * Constructs a new RendererFactory instance.
@@ -22,7 +28,9 @@ public class RendererFactory {
     /**
      * Builds and returns a renderer based on the provided type and size.
      *
-     * @param type The type of renderer to build ("none" for VoidRenderer, "console" for ConsoleRenderer).
+     * @param type The type of renderer to build ("none" for VoidRenderer, "console" for ConsoleRenderer,
+     *             "async" for a ConsoleRenderer that renders on its own thread,
+     *             "ansi" for a ConsoleRenderer that redraws only the changed cells of an ANSI terminal).
      * @param size The size of the game board, applicable for some renderer types.
      * @return A renderer object based on the specified type and size.
      */
@@ -39,13 +47,23 @@ public class RendererFactory {
         else if (rendererType.equals(CONSOLE)) {
             renderer = new ConsoleRenderer(size);
         }
+        // Build a ConsoleRenderer that runs on its own thread for "async" type
+        else if (rendererType.equals(ASYNC)) {
+            renderer = new AsyncRenderer(new ConsoleRenderer(size), ASYNC_QUEUE_CAPACITY);
+        }
+        // Build a ConsoleRenderer that sends only the changed cells for "ansi" type
+        else if (rendererType.equals(ANSI)) {
+            renderer = new ConsoleRenderer(size, true);
+        }
         return renderer;
     }
 
     /**
      * Builds and returns a renderer based on the provided type with the default size.
      *
-     * @param type The type of renderer to build ("none" for VoidRenderer, "console" for ConsoleRenderer).
+     * @param type The type of renderer to build ("none" for VoidRenderer, "console" for ConsoleRenderer,
+     *             "async" for a ConsoleRenderer that renders on its own thread,
+     *             "ansi" for a ConsoleRenderer that redraws only the changed cells of an ANSI terminal).
      * @return A renderer object based on the specified type with the default size.
      */
     public Renderer buildRenderer(String type) {
@@ -63,6 +81,16 @@ public class RendererFactory {
             int defaultSize = 4;
             renderer = new ConsoleRenderer(defaultSize);
         }
+        // Build a ConsoleRenderer that runs on its own thread for "async" type
+        else if (rendererType.equals(ASYNC)) {
+            int defaultSize = 4;
+            renderer = new AsyncRenderer(new ConsoleRenderer(defaultSize), ASYNC_QUEUE_CAPACITY);
+        }
+        // Build a ConsoleRenderer that sends only the changed cells for "ansi" type
+        else if (rendererType.equals(ANSI)) {
+            int defaultSize = 4;
+            renderer = new ConsoleRenderer(defaultSize, true);
+        }
         return renderer;
     }
 }
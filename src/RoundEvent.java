@@ -0,0 +1,43 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event of a tournament round, from the start of its game until the result.
+ * Events are created through FlightEvents, only once the flight recorder runs.
+ *
+ * @author Achikam Levy
+ * @see Tournament
+ * @see FlightEvents
+ */
+@Name("tictactoe.Round")
+@Label("Round")
+@Category("Tic Tac Toe")
+@Description("A tournament round, from the first move until the result")
+@StackTrace(false)
+public class RoundEvent extends Event {
+
+    @Label("Round")
+    int round;  // The index of the round in the tournament
+
+    @Label("Player X")
+    String playerX;  // The player type that played X
+
+    @Label("Player O")
+    String playerO;  // The player type that played O
+
+    @Label("Board Size")
+    int size;  // The size of the game board
+
+    @Label("Win Streak")
+    int winStreak;  // The number of consecutive marks required for a win
+
+    @Label("Moves")
+    int moves;  // The number of moves of the game
+
+    @Label("Result")
+    String result;  // The winning mark, or BLANK for a tie
+}
@@ -0,0 +1,74 @@
+
+/**
+ * A sequential probability ratio test (SPRT) that decides, while a tournament is still running,
+ * whether one of two players is stronger than the other.
+ * A tie counts as half a win for each player, so the score of player A is the share of points it took.
+ * Two one-sided Wald tests run side by side: A scores 0.5 + delta against A scores 0.5, and the same for B.
+ * Either of them may declare a stronger player, so each one gets half of alpha and the two together
+ * declare a stronger player between even players with probability alpha at most.
+ * A test stops as soon as its log likelihood ratio crosses one of the bounds set by the error rates,
+ * which takes far fewer rounds than a fixed tournament when the players differ by much.
+ * Checking the test takes O(1), from the running scores alone.
+ *
+ * @author Achikam Levy
+ * @see Tournament
+ */
+public class SequentialTest {
+
+    /**
+     * The decision of the test for the rounds played so far.
+     */
+    public enum Decision {CONTINUE, PLAYER_A_STRONGER, PLAYER_B_STRONGER, NO_DIFFERENCE}
+
+    // half the score of an even match
+    private static final double EVEN = 0.5;
+
+    private final double upperBound;  // Log likelihood ratio at which a player is declared stronger
+    private final double lowerBound;  // Log likelihood ratio at which the players are declared even
+    private final double winWeight;  // Log likelihood ratio of a point for the player tested
+    private final double lossWeight;  // Log likelihood ratio of a point for the other player
+
+    /**
+     * Constructs a SequentialTest.
+     *
+     * @param alpha The probability of declaring either player stronger when the players are even,
+     *              split evenly between the two one-sided tests.
+     * @param beta  The probability of declaring the players even when one is stronger by delta.
+     * @param delta The smallest difference worth detecting, as the share of points above 0.5, below 0.5.
+     */
+    public SequentialTest(double alpha, double beta, double delta) {
+        if (alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1 || delta <= 0 || delta >= EVEN) {
+            throw new IllegalArgumentException("alpha and beta must be in (0, 1), delta in (0, 0.5)");
+        }
+        double sideAlpha = alpha / 2;
+        this.upperBound = Math.log((1 - beta) / sideAlpha);
+        this.lowerBound = Math.log(beta / (1 - sideAlpha));
+        this.winWeight = Math.log((EVEN + delta) / EVEN);
+        this.lossWeight = Math.log((EVEN - delta) / EVEN);
+    }
+
+    /**
+     * Decides on the rounds played so far.
+     *
+     * @param playerAWins The rounds player A won.
+     * @param playerBWins The rounds player B won.
+     * @param ties        The tied rounds.
+     * @return CONTINUE until one of the decisions is significant.
+     */
+    public Decision decide(long playerAWins, long playerBWins, long ties) {
+        double playerAPoints = playerAWins + ties * EVEN;
+        double playerBPoints = playerBWins + ties * EVEN;
+        double playerARatio = playerAPoints * this.winWeight + playerBPoints * this.lossWeight;
+        double playerBRatio = playerBPoints * this.winWeight + playerAPoints * this.lossWeight;
+        if (playerARatio >= this.upperBound) {
+            return Decision.PLAYER_A_STRONGER;
+        }
+        if (playerBRatio >= this.upperBound) {
+            return Decision.PLAYER_B_STRONGER;
+        }
+        if (playerARatio <= this.lowerBound && playerBRatio <= this.lowerBound) {
+            return Decision.NO_DIFFERENCE;
+        }
+        return Decision.CONTINUE;
+    }
+}
@@ -0,0 +1,130 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Checks the decisions of a SequentialTest: where its bounds are crossed, and how often it is wrong
+ * in simulated matches between even players and between players that differ by delta.
+ *
+ * @author Achikam Levy
+ * @see SequentialTest
+ */
+public class SequentialTest_Tests {
+
+    private static final double ALPHA = 0.05;
+    private static final double BETA = 0.05;
+    private static final double DELTA = 0.1;
+
+    // simulated matches, and the slack of their error rates over the nominal ones
+    private static final int MATCHES = 2000;
+    private static final int MAX_ROUNDS = 100_000;
+    private static final double SLACK = 0.02;
+    private static final long SEED = 20240605L;
+
+    /**
+     * Plays rounds until the test decides, player A taking a round with the given probability
+     * and tying it with the given probability.
+     *
+     * @param test   The test to decide by.
+     * @param random The source of the round results.
+     * @param winA   The probability that player A takes a round.
+     * @param tie    The probability that a round is tied.
+     * @return The decision, CONTINUE if MAX_ROUNDS weren't enough.
+     */
+    private static SequentialTest.Decision simulate(SequentialTest test, Random random, double winA, double tie) {
+        long playerAWins = 0;
+        long playerBWins = 0;
+        long ties = 0;
+        SequentialTest.Decision decision = SequentialTest.Decision.CONTINUE;
+        for (int round = 0; round < MAX_ROUNDS && decision == SequentialTest.Decision.CONTINUE; round++) {
+            double draw = random.nextDouble();
+            if (draw < winA) {
+                playerAWins++;
+            } else if (draw < winA + tie) {
+                ties++;
+            } else {
+                playerBWins++;
+            }
+            decision = test.decide(playerAWins, playerBWins, ties);
+        }
+        return decision;
+    }
+
+    @Test
+    public void rejectsInvalidParameters() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SequentialTest(0, BETA, DELTA));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SequentialTest(ALPHA, 1, DELTA));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SequentialTest(ALPHA, BETA, 0.5));
+    }
+
+    @Test
+    public void continuesWithoutRounds() {
+        SequentialTest test = new SequentialTest(ALPHA, BETA, DELTA);
+        Assertions.assertEquals(SequentialTest.Decision.CONTINUE, test.decide(0, 0, 0));
+    }
+
+    @Test
+    public void decidesWhereTheBoundsAreCrossed() {
+        SequentialTest test = new SequentialTest(ALPHA, BETA, DELTA);
+        // a win adds ln(1.2) to its player's ratio, the bound is ln((1 - beta) / (alpha / 2)): 20 straight wins
+        Assertions.assertEquals(SequentialTest.Decision.CONTINUE, test.decide(19, 0, 0));
+        Assertions.assertEquals(SequentialTest.Decision.PLAYER_A_STRONGER, test.decide(20, 0, 0));
+        Assertions.assertEquals(SequentialTest.Decision.CONTINUE, test.decide(0, 19, 0));
+        Assertions.assertEquals(SequentialTest.Decision.PLAYER_B_STRONGER, test.decide(0, 20, 0));
+        // a tie adds (ln(1.2) + ln(0.8)) / 2 to both ratios, the bound is ln(beta / (1 - alpha / 2)): 146 ties
+        Assertions.assertEquals(SequentialTest.Decision.CONTINUE, test.decide(0, 0, 145));
+        Assertions.assertEquals(SequentialTest.Decision.NO_DIFFERENCE, test.decide(0, 0, 146));
+    }
+
+    @Test
+    public void decisionsAreSymmetric() {
+        SequentialTest test = new SequentialTest(ALPHA, BETA, DELTA);
+        for (int playerAWins = 0; playerAWins < 60; playerAWins++) {
+            for (int playerBWins = 0; playerBWins < 60; playerBWins++) {
+                for (int ties = 0; ties < 200; ties += 7) {
+                    SequentialTest.Decision decision = test.decide(playerAWins, playerBWins, ties);
+                    SequentialTest.Decision swapped = test.decide(playerBWins, playerAWins, ties);
+                    if (decision == SequentialTest.Decision.PLAYER_A_STRONGER) {
+                        Assertions.assertEquals(SequentialTest.Decision.PLAYER_B_STRONGER, swapped);
+                    } else if (decision == SequentialTest.Decision.PLAYER_B_STRONGER) {
+                        Assertions.assertEquals(SequentialTest.Decision.PLAYER_A_STRONGER, swapped);
+                    } else {
+                        Assertions.assertEquals(decision, swapped);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void evenPlayersAreRarelyDeclaredStronger() {
+        SequentialTest test = new SequentialTest(ALPHA, BETA, DELTA);
+        Random random = new Random(SEED);
+        int falsePositives = 0;
+        for (int match = 0; match < MATCHES; match++) {
+            SequentialTest.Decision decision = simulate(test, random, 0.4, 0.2);
+            Assertions.assertTrue(decision != SequentialTest.Decision.CONTINUE, "match " + match);
+            if (decision != SequentialTest.Decision.NO_DIFFERENCE) {
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue((double) falsePositives / MATCHES <= ALPHA + SLACK,
+                falsePositives + " false positives in " + MATCHES + " matches");
+    }
+
+    @Test
+    public void strongerPlayerIsFound() {
+        SequentialTest test = new SequentialTest(ALPHA, BETA, DELTA);
+        Random random = new Random(SEED + 1);
+        int found = 0;
+        for (int match = 0; match < MATCHES; match++) {
+            // player A takes 0.5 + delta of the points
+            if (simulate(test, random, 0.5, 0.2) == SequentialTest.Decision.PLAYER_A_STRONGER) {
+                found++;
+            }
+        }
+        Assertions.assertTrue((double) found / MATCHES >= 1 - BETA - SLACK,
+                found + " of " + MATCHES + " matches found the stronger player");
+    }
+}
@@ -0,0 +1,86 @@
+
+/**
+ * Stores only the marked cells of the board, in a hash map keyed by the packed cell (row * size + col).
+ * Memory grows with the number of marks rather than with the board area, so boards of
+ * thousands of rows (five in a row experiments) cost almost nothing until they are played on.
+ *
+ * @author Achikam Levy
+ * @see BoardStorage
+ * @see LongIntHashMap
+ */
+public class SparseBoardStorage implements BoardStorage {
+
+    // the largest board whose area still fits an int
+    public static final int MAX_SIZE = 46340;
+
+    private static final int BLANK = 0;
+
+    // the mark of each stored ordinal, Mark.values() clones its array on every call
+    private static final Mark[] MARKS = Mark.values();
+
+    private final int size;  // The size of the board
+    private final LongIntHashMap cells;  // The mark ordinal of every marked cell
+
+    /**
+     * Constructs a SparseBoardStorage with all the cells blank.
+     *
+     * @param size The size of the square game board, at most MAX_SIZE.
+     */
+    public SparseBoardStorage(int size) {
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be at most " + MAX_SIZE);
+        }
+        this.size = size;
+        this.cells = new LongIntHashMap();
+    }
+
+    /**
+     * Constructs a SparseBoardStorage holding the same marks as another one.
+     *
+     * @param other The storage to copy.
+     */
+    private SparseBoardStorage(SparseBoardStorage other) {
+        this.size = other.size;
+        this.cells = new LongIntHashMap(other.cells);
+    }
+
+    /**
+     * Packs a cell into its map key.
+     *
+     * @param row The row index of the cell.
+     * @param col The column index of the cell.
+     * @return The key of the cell.
+     */
+    private long keyOf(int row, int col) {
+        return (long) row * this.size + col;
+    }
+
+    @Override
+    public int getSize() {
+        return this.size;
+    }
+
+    @Override
+    public Mark get(int row, int col) {
+        return MARKS[this.cells.get(keyOf(row, col), BLANK)];
+    }
+
+    @Override
+    public void set(int row, int col, Mark mark) {
+        if (mark == Mark.BLANK) {
+            this.cells.remove(keyOf(row, col));
+        } else {
+            this.cells.put(keyOf(row, col), mark.ordinal());
+        }
+    }
+
+    @Override
+    public int countEmpty() {
+        return this.size * this.size - this.cells.size();
+    }
+
+    @Override
+    public BoardStorage copy() {
+        return new SparseBoardStorage(this);
+    }
+}
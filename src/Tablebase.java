@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A solved-positions table of a (size, winStreak) configuration, memory mapped from a file.
+ * The table keeps a single entry per canonical position: rotated and mirrored positions share the
+ * entry of their BoardSymmetry canonical form, and only positions reachable from the empty board are kept.
+ * The entries are ranked by their canonical key (2 bits per cell, which fits a long on up to 25 cells),
+ * so a position is found by a binary search over the sorted keys. A lookup takes O(log n) key reads instead
+ * of the single probe of a hash table, but the file holds nothing besides the keys and the entries,
+ * and the top levels of the search stay in the page cache.
+ * Each entry is a single byte: the game value for the side to move in the low 2 bits,
+ * and the best move of the canonical position in the other 6 bits. X always moves first, as in Game.
+ * The file starts with a small header: a magic number, the size, the win streak and the number of entries,
+ * followed by the sorted keys and then the entry bytes in the same order.
+ * A Tablebase reuses its BoardSymmetry buffers, so it should be used by one thread.
+ *
+ * @author Achikam Levy
+ * @see TablebaseBuilder
+ * @see TablebasePlayer
+ * @see BoardSymmetry
+ */
+public class Tablebase {
+
+    // file layout
+    public static final int MAGIC = 0x54544232;  // "TTB2", the keys of "TTBT" files were ints
+    public static final int HEADER_SIZE = 12;
+    public static final int KEY_BYTES = Long.BYTES;
+    private static final int SIZE_OFFSET = 4;
+    private static final int WIN_STREAK_OFFSET = 5;
+    private static final int COUNT_OFFSET = 8;
+
+    // boards larger than this have canonical keys that don't fit a long
+    public static final int MAX_CELLS = 25;
+
+    // entry layout, 0 marks a position that was never reached
+    public static final int UNKNOWN = 0;
+    public static final int WIN = 1;
+    public static final int DRAW = 2;
+    public static final int LOSS = 3;
+    public static final int VALUE_BITS = 2;
+    public static final int VALUE_MASK = 3;
+    public static final int NO_MOVE = 63;
+
+    private final MappedByteBuffer file;  // The mapped file
+    private final int size;  // The size of the board
+    private final int winStreak;  // Number of consecutive marks required for a win
+    private final int count;  // Number of entries
+    private final BoardSymmetry symmetry;  // Maps a board to its canonical form
+
+    /**
+     * Maps a tablebase file into memory.
+     *
+     * @param path The tablebase file.
+     * @throws IOException if the file can't be read, is not a tablebase or its length doesn't match its header.
+     */
+    public Tablebase(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            this.file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (this.file.capacity() < HEADER_SIZE || this.file.getInt(0) != MAGIC) {
+            throw new IOException("Not a tablebase file: " + path);
+        }
+        this.size = this.file.get(SIZE_OFFSET);
+        this.winStreak = this.file.get(WIN_STREAK_OFFSET);
+        this.count = this.file.getInt(COUNT_OFFSET);
+        if (this.size < 2 || this.size * this.size > MAX_CELLS || this.winStreak < 2 || this.winStreak > this.size
+                || this.count < 0 || this.file.capacity() != HEADER_SIZE + (long) this.count * (KEY_BYTES + 1)) {
+            throw new IOException("Corrupt tablebase file: " + path);
+        }
+        this.symmetry = new BoardSymmetry(this.size);
+    }
+
+    /**
+     * Builds the default file name of a configuration's tablebase.
+     *
+     * @param size      The size of the board.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @return The file name.
+     */
+    public static String fileName(int size, int winStreak) {
+        return "tablebase-" + size + "-" + winStreak + ".bin";
+    }
+
+    /**
+     * Writes the header of a tablebase file.
+     *
+     * @param header    A buffer of HEADER_SIZE bytes to fill.
+     * @param size      The size of the board.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @param count     The number of entries.
+     */
+    public static void writeHeader(ByteBuffer header, int size, int winStreak, int count) {
+        header.putInt(MAGIC).put((byte) size).put((byte) winStreak).putShort((short) 0).putInt(count);
+    }
+
+    /**
+     * Retrieves the size of the board of the table.
+     *
+     * @return The size of the board.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Retrieves the win streak of the table.
+     *
+     * @return The number of consecutive marks required for a win.
+     */
+    public int getWinStreak() {
+        return this.winStreak;
+    }
+
+    /**
+     * Retrieves the number of entries of the table.
+     *
+     * @return The number of canonical positions in the table.
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * Looks up the entry of a board position, with its best move mapped back to the board.
+     *
+     * @param board The board, its size must be the size of the table.
+     * @return The entry of the position, UNKNOWN if the position is not in the table.
+     */
+    public int entryOf(Board board) {
+        int transform = this.symmetry.canonicalize(board);
+        int rank = rankOf(this.symmetry.getCanonicalKey()[0]);
+        if (rank < 0) {
+            return UNKNOWN;
+        }
+        int entry = this.file.get(HEADER_SIZE + this.count * KEY_BYTES + rank) & 0xFF;
+        int move = moveOf(entry);
+        if (move == NO_MOVE) {
+            return entry;
+        }
+        return (this.symmetry.inverseCell(transform, move) << VALUE_BITS) | valueOf(entry);
+    }
+
+    /**
+     * Finds the rank of a canonical key by a binary search over the sorted keys.
+     *
+     * @param key The canonical key, compared as an unsigned long.
+     * @return The rank of the key, or -1 if the key is not in the table.
+     */
+    private int rankOf(long key) {
+        int low = 0;
+        int high = this.count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int result = Long.compareUnsigned(this.file.getLong(HEADER_SIZE + middle * KEY_BYTES), key);
+            if (result < 0) {
+                low = middle + 1;
+            } else if (result > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the game value stored in an entry.
+     *
+     * @param entry An entry byte.
+     * @return UNKNOWN, WIN, DRAW or LOSS, for the side to move.
+     */
+    public static int valueOf(int entry) {
+        return entry & VALUE_MASK;
+    }
+
+    /**
+     * Retrieves the best move stored in an entry.
+     *
+     * @param entry An entry byte.
+     * @return The best cell (row * size + col), or NO_MOVE if the game is over.
+     */
+    public static int moveOf(int entry) {
+        return entry >>> VALUE_BITS;
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A command line tool that solves every position of a (size, winStreak) configuration that is
+ * reachable from the empty board, and writes the results as a Tablebase file.
+ * Positions are solved by backward induction: a position is won if some move leads to a position
+ * lost for the opponent, drawn if the best it can reach is a draw, and lost otherwise.
+ * Every solved position is memoized by its BoardSymmetry canonical form, so each position is solved
+ * once together with its rotations and mirrors, and the table gets a single entry for all of them.
+ * Only boards of up to Tablebase.MAX_CELLS cells (5x5) are supported, since a canonical key must fit a long.
+ * Every solved position is kept in memory until the file is written, so a 5x5 table needs a large heap.
+ *
+ * @author Achikam Levy
+ * @see Tablebase
+ * @see TablebasePlayer
+ * @see BoardSymmetry
+ */
+public class TablebaseBuilder {
+
+    private final int size;  // The size of the board
+    private final int winStreak;  // Number of consecutive marks required for a win
+    private final Position position;  // The position being solved
+    private final BoardSymmetry symmetry;  // Maps a position to its canonical form
+    private final LongIntHashMap entries = new LongIntHashMap();  // The entry of every solved canonical key
+    private long[] solvedKeys = new long[1024];  // The canonical keys in the order they were solved
+    private int solvedPositions = 0;  // Number of canonical positions solved so far
+
+    /**
+     * Constructs a TablebaseBuilder for a configuration.
+     *
+     * @param size      The size of the board, at most 5.
+     * @param winStreak The number of consecutive marks required for a win.
+     */
+    public TablebaseBuilder(int size, int winStreak) {
+        this.size = size;
+        this.winStreak = Math.max(2, Math.min(winStreak, size));
+        this.position = new Position(size, this.winStreak);
+        this.symmetry = new BoardSymmetry(size);
+    }
+
+    /**
+     * Solves all the positions reachable from the empty board.
+     *
+     * @return The value of the empty board for X.
+     */
+    public int solve() {
+        return solve(Position.X, -1);
+    }
+
+    /**
+     * Solves the current position and memoizes its entry under its canonical key.
+     * The best move is stored as a cell of the canonical position.
+     *
+     * @param side     The mark to move.
+     * @param lastMove The cell of the last move, -1 for the empty board.
+     * @return The value of the position for the side to move.
+     */
+    private int solve(byte side, int lastMove) {
+        // the symmetry buffers are reused by the moves below, so keep the key and the transform
+        int transform = this.symmetry.canonicalize(this.position);
+        long key = this.symmetry.getCanonicalKey()[0];
+        int known = this.entries.get(key, Tablebase.UNKNOWN);
+        if (known != Tablebase.UNKNOWN) {
+            return Tablebase.valueOf(known);
+        }
+
+        int bestValue = Tablebase.LOSS;
+        int bestMove = Tablebase.NO_MOVE;
+        if (lastMove >= 0 && this.position.isWin(lastMove)) {
+            // the opponent has just won
+            bestValue = Tablebase.LOSS;
+        } else if (this.position.isFull()) {
+            bestValue = Tablebase.DRAW;
+        } else {
+            // no cut off once a win is found: a position is solved with all of its moves, so a position
+            // reached from any of its rotations or mirrors is in the table
+            for (int cell = 0; cell < this.size * this.size; cell++) {
+                if (this.position.get(cell) != Position.BLANK) {
+                    continue;
+                }
+                this.position.play(cell, side);
+                int value = flip(solve(Position.opponent(side), cell));
+                this.position.undo();
+                // WIN < DRAW < LOSS, so a smaller value is better
+                if (bestMove == Tablebase.NO_MOVE || value < bestValue) {
+                    bestValue = value;
+                    bestMove = cell;
+                }
+            }
+        }
+        int canonicalMove = bestMove == Tablebase.NO_MOVE
+                ? Tablebase.NO_MOVE : this.symmetry.transformCell(transform, bestMove);
+        this.entries.put(key, (canonicalMove << Tablebase.VALUE_BITS) | bestValue);
+        if (this.solvedPositions == this.solvedKeys.length) {
+            this.solvedKeys = Arrays.copyOf(this.solvedKeys, 2 * this.solvedKeys.length);
+        }
+        this.solvedKeys[this.solvedPositions++] = key;
+        return bestValue;
+    }
+
+    /**
+     * Converts the value of a position for the opponent into the value for the side that moved into it.
+     *
+     * @param value The value for the opponent.
+     * @return The value for the side that moved.
+     */
+    private static int flip(int value) {
+        return switch (value) {
+            case Tablebase.WIN -> Tablebase.LOSS;
+            case Tablebase.LOSS -> Tablebase.WIN;
+            default -> Tablebase.DRAW;
+        };
+    }
+
+    /**
+     * Writes the header, the sorted canonical keys and their entries to a file.
+     *
+     * @param path The file to write.
+     * @throws IOException if the file can't be written.
+     */
+    public void write(Path path) throws IOException {
+        // a key has at most 50 bits, so key and entry pack into a long that sorts by the key
+        long[] packed = new long[this.solvedPositions];
+        for (int i = 0; i < this.solvedPositions; i++) {
+            long key = this.solvedKeys[i];
+            packed[i] = (key << Byte.SIZE) | this.entries.get(key, Tablebase.UNKNOWN);
+        }
+        Arrays.sort(packed);
+        ByteBuffer table = ByteBuffer.allocate(Tablebase.HEADER_SIZE
+                + this.solvedPositions * (Tablebase.KEY_BYTES + 1));
+        Tablebase.writeHeader(table, this.size, this.winStreak, this.solvedPositions);
+        for (long entry : packed) {
+            table.putLong(entry >>> Byte.SIZE);
+        }
+        for (long entry : packed) {
+            table.put((byte) entry);
+        }
+        table.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (table.hasRemaining()) {
+                channel.write(table);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of positions that were solved.
+     *
+     * @return The number of solved canonical positions.
+     */
+    public int getSolvedPositions() {
+        return this.solvedPositions;
+    }
+
+    /**
+     * Solves a configuration and writes its tablebase.
+     *
+     * @param args Command line arguments: [size, winStreak] optionally followed by the output file,
+     *             by default Tablebase.fileName(size, winStreak).
+     * @throws IOException if the file can't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int size = Integer.parseInt(args[0]);
+        int winStreak = Integer.parseInt(args[1]);
+        if (size < 2 || size * size > Tablebase.MAX_CELLS) {
+            System.out.println("Tablebases are supported for board sizes 2 to 5.");
+            return;
+        }
+        TablebaseBuilder builder = new TablebaseBuilder(size, winStreak);
+        // the file is named after the win streak the games will actually use
+        Path path = Path.of(args.length > 2 ? args[2] : Tablebase.fileName(size, builder.winStreak));
+
+        long start = System.nanoTime();
+        int value = builder.solve();
+        builder.write(path);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        String result = switch (value) {
+            case Tablebase.WIN -> "X wins";
+            case Tablebase.LOSS -> "O wins";
+            default -> "draw";
+        };
+        System.out.println("Solved " + builder.getSolvedPositions() + " canonical positions in " + millis + " ms: "
+                + result + " with perfect play. Written to " + path);
+    }
+}
@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Represents a perfect computer player in a tic-tac-toe game, implementing the Player interface.
+ * The TablebasePlayer answers every move with a single lookup in the memory mapped Tablebase of
+ * the board's configuration, written beforehand by the TablebaseBuilder tool into the working directory.
+ * When there is no tablebase for the configuration, or the file is corrupt or of another configuration,
+ * it plays as an AlphaBetaPlayer.
+ *
+ * @author Achikam Levy
+ * @see Player
+ * @see Tablebase
+ * @see TablebaseBuilder
+ */
+public class TablebasePlayer implements Player {
+
+    private final int winStreak;  // Number of consecutive marks required for a win
+    private final Player fallback;  // Plays the configurations that have no tablebase
+    private Tablebase tablebase = null;  // The tablebase of the last board size, null if there is none
+    private int loadedSize = -1;  // The board size the tablebase was looked up for
+
+    /**
+     * Constructs a TablebasePlayer.
+     *
+     * @param winStreak The number of consecutive marks required for a win.
+     */
+    public TablebasePlayer(int winStreak) {
+        this.winStreak = winStreak;
+        this.fallback = new AlphaBetaPlayer(winStreak);
+    }
+
+    /**
+     * Plays the best move stored in the tablebase, or the fallback player's move if it is not available.
+     *
+     * @param board The game board on which the player makes a move.
+     * @param mark  The player's mark (X or O).
+     */
+    @Override
+    public void playTurn(Board board, Mark mark) {
+        Tablebase table = tablebaseFor(board.getSize());
+        if (table != null) {
+            int entry = table.entryOf(board);
+            int move = Tablebase.moveOf(entry);
+            if (Tablebase.valueOf(entry) != Tablebase.UNKNOWN && move != Tablebase.NO_MOVE
+                    && board.putMark(mark, move / board.getSize(), move % board.getSize())) {
+                return;
+            }
+        }
+        this.fallback.playTurn(board, mark);
+    }
+
+    /**
+     * Maps the tablebase of the given board size, once per size.
+     *
+     * @param size The size of the board.
+     * @return The tablebase, or null if there is no valid tablebase file for the configuration.
+     */
+    private Tablebase tablebaseFor(int size) {
+        if (size != this.loadedSize) {
+            this.loadedSize = size;
+            this.tablebase = null;
+            // the same win streak Game plays with on this board
+            int streak = Math.max(2, Math.min(this.winStreak, size));
+            if (size * size <= Tablebase.MAX_CELLS) {
+                try {
+                    Tablebase table = new Tablebase(Path.of(Tablebase.fileName(size, streak)));
+                    // a renamed file of another configuration would give wrong moves
+                    if (table.getSize() == size && table.getWinStreak() == streak) {
+                        this.tablebase = table;
+                    }
+                } catch (IOException e) {
+                    // no valid tablebase for this configuration, the fallback player will play
+                }
+            }
+        }
+        return this.tablebase;
+    }
+}
@@ -0,0 +1,159 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds small tablebases into temporary files and checks their values and best moves
+ * against the ProofNumberSolver, on random positions reachable from the empty board.
+ *
+ * @author Achikam Levy
+ * @see Tablebase
+ * @see TablebaseBuilder
+ * @see ProofNumberSolver
+ */
+public class Tablebase_Tests {
+
+    private static final int TABLE_BITS = 16;
+    private static final int POSITIONS = 200;
+    private static final long SEED = 20240604L;
+
+    /**
+     * Builds the tablebase of a configuration into a temporary file and maps it.
+     *
+     * @param size      The size of the board.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @return The mapped tablebase.
+     * @throws IOException if the file can't be written or read.
+     */
+    private static Tablebase build(int size, int winStreak) throws IOException {
+        Path path = Files.createTempFile("tablebase", ".bin");
+        try {
+            TablebaseBuilder builder = new TablebaseBuilder(size, winStreak);
+            builder.solve();
+            builder.write(path);
+            Tablebase tablebase = new Tablebase(path);
+            Assertions.assertEquals(builder.getSolvedPositions(), tablebase.getCount());
+            return tablebase;
+        } finally {
+            // the mapping stays valid after the file is deleted
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Solves a position for one attacker with a fresh solver.
+     *
+     * @param board     The position, not over.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @param attacker  The mark whose forced win is searched for.
+     * @return True if the attacker can force a win.
+     */
+    private static boolean solve(Board board, int winStreak, byte attacker) {
+        Position position = new Position(board, winStreak);
+        byte side = position.getMoveCount() % 2 == 0 ? Position.X : Position.O;
+        ProofNumberSolver solver = new ProofNumberSolver(attacker, TABLE_BITS, new AtomicLong(), new AtomicBoolean());
+        return solver.solve(position, side);
+    }
+
+    /**
+     * Finds the value of a position for the side to move with the ProofNumberSolver.
+     *
+     * @param board     The position, not over.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @return Tablebase.WIN, DRAW or LOSS.
+     */
+    private static int solvedValue(Board board, int winStreak) {
+        byte side = board.getMoveCount() % 2 == 0 ? Position.X : Position.O;
+        if (solve(board, winStreak, side)) {
+            return Tablebase.WIN;
+        }
+        return solve(board, winStreak, Position.opponent(side)) ? Tablebase.LOSS : Tablebase.DRAW;
+    }
+
+    /**
+     * Checks the tablebase entries of random positions that are not over.
+     *
+     * @param size      The size of the board.
+     * @param winStreak The number of consecutive marks required for a win.
+     * @throws IOException if the tablebase can't be built.
+     */
+    private static void checkAgainstSolver(int size, int winStreak) throws IOException {
+        Tablebase tablebase = build(size, winStreak);
+        WinDetector winDetector = new WinDetector(winStreak);
+        Random random = new Random(SEED + size * 10 + winStreak);
+        for (int i = 0; i < POSITIONS; i++) {
+            Board board = new Board(size);
+            int moves = random.nextInt(size * size);
+            for (int move = 0; move < moves; move++) {
+                Mark mark = move % 2 == 0 ? Mark.X : Mark.O;
+                int cell;
+                do {
+                    cell = random.nextInt(size * size);
+                } while (board.getMark(cell / size, cell % size) != Mark.BLANK);
+                board.putMark(mark, cell / size, cell % size);
+                if (winDetector.isWinningMove(board, mark, cell / size, cell % size)) {
+                    board.undoLastMark();
+                    break;
+                }
+            }
+            String name = size + " " + winStreak + " position " + i;
+            int entry = tablebase.entryOf(board);
+            Assertions.assertEquals(solvedValue(board, winStreak), Tablebase.valueOf(entry), name);
+
+            // the best move keeps the value: after it the opponent has the opposite value, or the game is over
+            int move = Tablebase.moveOf(entry);
+            Assertions.assertEquals(Mark.BLANK, board.getMark(move / size, move % size), name + " best move");
+            Mark mark = board.getMoveCount() % 2 == 0 ? Mark.X : Mark.O;
+            board.putMark(mark, move / size, move % size);
+            int after;
+            if (winDetector.isWinningMove(board, mark, move / size, move % size)) {
+                after = Tablebase.LOSS;
+            } else if (board.countEmptyCells() == 0) {
+                after = Tablebase.DRAW;
+            } else {
+                after = Tablebase.valueOf(tablebase.entryOf(board));
+            }
+            Assertions.assertEquals(Tablebase.WIN + Tablebase.LOSS - Tablebase.valueOf(entry), after,
+                    name + " after the best move");
+        }
+    }
+
+    @Test
+    public void threeByThreeMatchesTheSolver() throws IOException {
+        checkAgainstSolver(3, 3);
+    }
+
+    @Test
+    public void fourByFourMatchesTheSolver() throws IOException {
+        checkAgainstSolver(4, 3);
+    }
+
+    @Test
+    public void unknownPositionsAreReported() throws IOException {
+        Tablebase tablebase = build(3, 3);
+        // three X marks and no O mark can't be reached with X and O taking turns
+        Board board = new Board(3);
+        board.putMark(Mark.X, 0, 0);
+        board.putMark(Mark.X, 1, 1);
+        board.putMark(Mark.X, 2, 1);
+        Assertions.assertEquals(Tablebase.UNKNOWN, tablebase.entryOf(board));
+    }
+
+    @Test
+    public void rejectsFilesOfAnotherFormat() throws IOException {
+        Path path = Files.createTempFile("tablebase", ".bin");
+        try {
+            // a header of the older format, whose keys were ints
+            Files.write(path, new byte[]{0x54, 0x54, 0x42, 0x54, 3, 3, 0, 0, 0, 0, 0, 0});
+            Assertions.assertThrows(IOException.class, () -> new Tablebase(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
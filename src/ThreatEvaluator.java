@@ -0,0 +1,204 @@
+
+/**
+ * Evaluates positions by the threats each mark holds, kept up to date move by move.
+ * Every candidate winning line (a window of winStreak cells in a row, a column or a diagonal) counts
+ * the X and O marks it holds. A window that holds only one mark is a threat of that mark: an open two,
+ * an open three and so on, and it is worth 4^k for k marks. On long win streaks only the MAX_LEVEL
+ * threats closest to a win keep growing, shorter ones are worth 1, and a score is capped at MAX_SCORE,
+ * so it always stays well below the scores a search gives to a win. Placing or removing a mark only updates
+ * the windows that contain its cell, which costs O(winStreak), so the score of a position is always
+ * at hand in O(1) instead of a scan of the whole board at every search node.
+ * Boards larger than Board.MAX_DENSE_SIZE keep only the windows that hold marks.
+ *
+ * @author Achikam Levy
+ * @see AlphaBetaPlayer
+ * @see DrawDetector
+ */
+public class ThreatEvaluator {
+
+    // threat levels that grow in value, a window is worth at most 4^MAX_LEVEL
+    private static final int MAX_LEVEL = 8;
+
+    // the largest score of a position, well below the win scores of AlphaBetaPlayer (999000 and up)
+    public static final int MAX_SCORE = 500_000;
+
+    // a window is packed as its X count in the low bits and its O count in the high bits
+    private static final int COUNT_BITS = 16;
+    private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+
+    private final int size;  // The size of the board
+    private final int winStreak;  // Number of consecutive marks required for a win
+    private final int levelOffset;  // Marks a window needs before its value starts to grow
+    private final int[] windows;  // Packed counts of each window, by direction and first cell, on dense boards
+    private final LongIntHashMap sparseWindows;  // Packed counts of the windows that hold marks, on sparse boards
+    private final int[][] threats;  // For each mark ordinal, the number of windows holding only k of its marks
+    private final long[] totals;  // For each mark ordinal, the value of all its threats
+
+    /**
+     * Constructs a ThreatEvaluator for an empty board.
+     *
+     * @param size      The size of the square game board.
+     * @param winStreak The number of consecutive marks required for a win.
+     */
+    public ThreatEvaluator(int size, int winStreak) {
+        this.size = size;
+        this.winStreak = winStreak;
+        this.levelOffset = Math.max(0, winStreak - MAX_LEVEL);
+        if (size > Board.MAX_DENSE_SIZE) {
+            this.windows = null;
+            this.sparseWindows = new LongIntHashMap();
+        } else {
+            this.windows = new int[Lines.COUNT * size * size];
+            this.sparseWindows = null;
+        }
+        this.threats = new int[Mark.values().length][winStreak + 1];
+        this.totals = new long[Mark.values().length];
+    }
+
+    /**
+     * Updates the windows that contain a newly marked cell.
+     *
+     * @param mark The mark that was placed, X or O.
+     * @param row  The row index of the marked cell.
+     * @param col  The column index of the marked cell.
+     */
+    public void markPlaced(Mark mark, int row, int col) {
+        update(mark, row, col, 1);
+    }
+
+    /**
+     * Updates the windows that contain a cell that became blank again, when a move is taken back.
+     *
+     * @param mark The mark that was removed, X or O.
+     * @param row  The row index of the cleared cell.
+     * @param col  The column index of the cleared cell.
+     */
+    public void markRemoved(Mark mark, int row, int col) {
+        update(mark, row, col, -1);
+    }
+
+    /**
+     * Adds or removes a mark in every window that contains its cell.
+     *
+     * @param mark  The mark, X or O.
+     * @param row   The row index of the cell.
+     * @param col   The column index of the cell.
+     * @param delta 1 to add the mark, -1 to remove it.
+     */
+    private void update(Mark mark, int row, int col, int delta) {
+        int unit = mark == Mark.X ? delta : delta << COUNT_BITS;
+        for (int line = 0; line < Lines.COUNT; line++) {
+            // every window of this direction whose first cell is up to winStreak - 1 steps back
+            for (int i = 0; i < this.winStreak; i++) {
+                int startRow = row - i * Lines.rowStep(line);
+                int startCol = col - i * Lines.colStep(line);
+                if (!isWindow(line, startRow, startCol)) {
+                    continue;
+                }
+                long window = ((long) line * this.size + startRow) * this.size + startCol;
+                int counts = getWindow(window);
+                countThreat(counts, -1);
+                counts += unit;
+                countThreat(counts, 1);
+                setWindow(window, counts);
+            }
+        }
+    }
+
+    /**
+     * Adds or removes the threat a window holds from the threat counts.
+     *
+     * @param counts The packed counts of the window.
+     * @param sign   1 to add the threat, -1 to remove it.
+     */
+    private void countThreat(int counts, int sign) {
+        int xCount = counts & COUNT_MASK;
+        int oCount = counts >>> COUNT_BITS;
+        // a window that holds both marks can't be won by anyone
+        if (xCount > 0 && oCount == 0) {
+            this.threats[Mark.X.ordinal()][xCount] += sign;
+            this.totals[Mark.X.ordinal()] += sign * threatValue(xCount);
+        } else if (oCount > 0 && xCount == 0) {
+            this.threats[Mark.O.ordinal()][oCount] += sign;
+            this.totals[Mark.O.ordinal()] += sign * threatValue(oCount);
+        }
+    }
+
+    /**
+     * Computes the value of a window that holds only one of the marks.
+     *
+     * @param marks The number of marks in the window.
+     * @return 4^marks, or 4^(marks - levelOffset) on win streaks longer than MAX_LEVEL.
+     */
+    private int threatValue(int marks) {
+        return 1 << (2 * Math.max(0, marks - this.levelOffset));
+    }
+
+    /**
+     * Checks if a window that starts at the given cell fits on the board.
+     *
+     * @param line     The direction of the window.
+     * @param startRow The row index of the first cell.
+     * @param startCol The column index of the first cell.
+     * @return True if all the cells of the window are on the board.
+     */
+    private boolean isWindow(int line, int startRow, int startCol) {
+        int endRow = startRow + (this.winStreak - 1) * Lines.rowStep(line);
+        int endCol = startCol + (this.winStreak - 1) * Lines.colStep(line);
+        return startRow >= 0 && startCol >= 0 && startCol < this.size
+                && endRow < this.size && endCol >= 0 && endCol < this.size;
+    }
+
+    /**
+     * Retrieves the packed counts of a window.
+     *
+     * @param window The window, by direction and first cell.
+     * @return The packed counts, 0 for a window with no marks.
+     */
+    private int getWindow(long window) {
+        if (this.windows != null) {
+            return this.windows[(int) window];
+        }
+        return this.sparseWindows.get(window, 0);
+    }
+
+    /**
+     * Sets the packed counts of a window.
+     *
+     * @param window The window, by direction and first cell.
+     * @param counts The packed counts.
+     */
+    private void setWindow(long window, int counts) {
+        if (this.windows != null) {
+            this.windows[(int) window] = counts;
+        } else if (counts == 0) {
+            this.sparseWindows.remove(window);
+        } else {
+            this.sparseWindows.put(window, counts);
+        }
+    }
+
+    /**
+     * Retrieves the number of threats of a given length, for example the open threes of a mark.
+     *
+     * @param mark  The mark, X or O.
+     * @param marks The number of marks in the window, between 1 and winStreak.
+     * @return The number of windows holding exactly that many of the mark and none of the other mark.
+     */
+    public int getThreats(Mark mark, int marks) {
+        return this.threats[mark.ordinal()][marks];
+    }
+
+    /**
+     * Scores the position for a mark: the value of its threats minus the value of the other mark's threats.
+     * Takes O(1).
+     *
+     * @param mark The mark to score the position for, X or O.
+     * @return The score of the position, positive if the mark is better off, between -MAX_SCORE and MAX_SCORE.
+     */
+    public int score(Mark mark) {
+        int other = mark == Mark.X ? Mark.O.ordinal() : Mark.X.ordinal();
+        long score = this.totals[mark.ordinal()] - this.totals[other];
+        return (int) Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+}
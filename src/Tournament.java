@@ -1,8 +1,21 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents a Tic-Tac-Toe tournament between two players. The tournament consists of multiple rounds,
  * and the results are tallied to determine the overall winner between the two players.
  * The tournament uses the Game class to play individual games in each round.
+ * Rounds can also be spread over several threads, each worker playing a chunk of rounds with its own players.
+ * Every game can also be recorded to a GameRecordWriter, for later analysis.
+ * With a SequentialTest the tournament stops as soon as the scores show which player is stronger.
+ * Rounds can also be played by several worker processes, through a TournamentCoordinator.
+ * With a GameMetrics the tournament times every move, and prints the latencies with the results.
+ * Every round is also a Java Flight Recorder event, recorded only when a recording is on.
  *
  * @author Achikam levy
  * @see Player
@@ -11,6 +24,22 @@
  */
 public class Tournament {
 
+    // rounds played by a single parallel task
+    private static final int CHUNK_ROUNDS = 1024;
+
+    // rounds played by a single parallel task when a sequential test is checked after every task
+    private static final int TEST_CHUNK_ROUNDS = 64;
+
+    // optional command line arguments, given after the six positional ones
+    private static final String THREADS_OPTION = "--threads=";
+    private static final String WORKERS_OPTION = "--workers=";
+    private static final String RECORD_OPTION = "--record=";
+    private static final String METRICS_OPTION = "--metrics=";
+    private static final String NO_METRICS_FILE = "-";
+    private static final String ALPHA_OPTION = "--alpha=";
+    private static final String DELTA_OPTION = "--delta=";
+    private static final String DEFAULT_DELTA = "0.1";
+
     // Scores for each player and ties
     private int playerAScore = 0;
     private int playerBScore = 0;
@@ -21,6 +50,12 @@ public class Tournament {
     private final Player PlayerB;
     private final Renderer renderer;
     private final int ROUNDS;
+    private GameRecordWriter recorder = null;  // Records every game played, null to keep no records
+    private SequentialTest sequentialTest = null;  // Stops the tournament early, null to play all the rounds
+    private SequentialTest.Decision decision = SequentialTest.Decision.CONTINUE;  // Decision of the test
+    private int roundsPlayed = 0;  // Rounds played so far
+    private boolean quiet = false;  // True to keep the results off the console
+    private GameMetrics metrics = null;  // Times the games, null to time nothing
 
     /**
      * Constructs a Tournament with the specified number of rounds, renderer, and players.
@@ -37,6 +72,43 @@ public class Tournament {
         this.PlayerB = player2;
     }
 
+    /**
+     * Records every game the tournament plays from now on.
+     *
+     * @param recorder The writer of the game records, or null to keep no records.
+     */
+    public void setRecorder(GameRecordWriter recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Keeps the results off the console, for callers that read them through the getters.
+     *
+     * @param quiet True to not print the results.
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /**
+     * Times every game the tournament plays from now on, the metrics are printed with the results.
+     *
+     * @param metrics The metrics to record to, or null to time nothing.
+     */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Stops the tournament once the scores are significant, instead of always playing all the rounds.
+     * The test is checked after every pair of rounds, so both players played X equally often.
+     *
+     * @param sequentialTest The test to stop by, or null to play all the rounds.
+     */
+    public void setSequentialTest(SequentialTest sequentialTest) {
+        this.sequentialTest = sequentialTest;
+    }
+
     /**
      * Plays the specified number of rounds in the tournament and prints the results.
      *
@@ -46,19 +118,299 @@ public class Tournament {
      * @param playerName2 The name of player 2.
      */
     public void playTournament(int size, int winStreak, String playerName1, String playerName2) {
+        long startNanos = System.nanoTime();
+        PlayerFactory playerFactory = new PlayerFactory();
+        int playerAId = playerFactory.getPlayerId(playerName1);
+        int playerBId = playerFactory.getPlayerId(playerName2);
         for (int i = 0; i < this.ROUNDS; i++) {
             // Alternate players in each round
             if (i % 2 == 0) {
-                playOneGame(this.PlayerA, this.PlayerB, size, winStreak, i);
+                playOneGame(this.PlayerA, this.PlayerB, size, winStreak, i, playerAId, playerBId);
+            } else {
+                playOneGame(this.PlayerB, this.PlayerA, size, winStreak, i, playerBId, playerAId);
+            }
+            this.roundsPlayed++;
+            if (this.sequentialTest != null && i % 2 == 1) {
+                this.decision = this.sequentialTest.decide(this.playerAScore, this.playerBScore, this.ties);
+                if (this.decision != SequentialTest.Decision.CONTINUE) {
+                    break;
+                }
+            }
+        }
+        setElapsed(startNanos);
+        printResults(playerName1, playerName2);
+    }
+
+    /**
+     * Plays the specified number of rounds concurrently on a fork-join pool and prints the results.
+     * The rounds are split into chunks, and every chunk builds its own players from the PlayerFactory,
+     * since players may keep state between turns. Round i is played exactly as in playTournament:
+     * player 1 plays X on even rounds and O on odd rounds.
+     * The renderer is shared by all the workers, so it should not keep state (e.g. a VoidRenderer).
+     * A sequential test is checked after every chunk, chunks that didn't start yet are skipped once it decides.
+     * The chunks that were running still add their rounds to the score, but the decision is the one
+     * the test took when it first decided.
+     *
+     * @param size        The size of the game board.
+     * @param winStreak   The number of consecutive marks required to win a game.
+     * @param playerName1 The name of player 1, used to build the players of every worker.
+     * @param playerName2 The name of player 2, used to build the players of every worker.
+     * @param threads     The number of worker threads.
+     */
+    public void playTournamentParallel(int size, int winStreak, String playerName1, String playerName2,
+                                       int threads) {
+        long startNanos = System.nanoTime();
+        TournamentScore score = new TournamentScore();
+        AtomicReference<SequentialTest.Decision> decision =
+                new AtomicReference<>(SequentialTest.Decision.CONTINUE);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            int chunkRounds = this.sequentialTest != null ? TEST_CHUNK_ROUNDS : CHUNK_ROUNDS;
+            for (int from = 0; from < this.ROUNDS; from += chunkRounds) {
+                int start = from;
+                int end = Math.min(from + chunkRounds, this.ROUNDS);
+                tasks.add(pool.submit(() -> {
+                    if (decision.get() != SequentialTest.Decision.CONTINUE) {
+                        return;
+                    }
+                    playRounds(start, end, size, winStreak, playerName1, playerName2, this.renderer,
+                            this.recorder, this.metrics, score);
+                    if (this.sequentialTest != null) {
+                        decision.compareAndSet(SequentialTest.Decision.CONTINUE, score.decide(this.sequentialTest));
+                    }
+                }));
+            }
+            // wait for all the chunks to finish
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        this.playerAScore = (int) score.getPlayerAScore();
+        this.playerBScore = (int) score.getPlayerBScore();
+        this.ties = (int) score.getTies();
+        this.roundsPlayed = this.playerAScore + this.playerBScore + this.ties;
+        this.decision = decision.get();
+        setElapsed(startNanos);
+        printResults(playerName1, playerName2);
+    }
+
+    /**
+     * Plays the specified number of rounds on worker processes and prints the results.
+     * The rounds are handed to the workers in chunks by a TournamentCoordinator, as in playTournamentParallel.
+     * The workers play without a renderer, keep no records and collect no metrics.
+     *
+     * @param size        The size of the game board.
+     * @param winStreak   The number of consecutive marks required to win a game.
+     * @param playerName1 The name of player 1, used to build the players of every worker.
+     * @param playerName2 The name of player 2, used to build the players of every worker.
+     * @param workers     The number of worker processes.
+     * @throws IOException if the workers can't be started.
+     */
+    public void playTournamentDistributed(int size, int winStreak, String playerName1, String playerName2,
+                                          int workers) throws IOException {
+        int chunkRounds = this.sequentialTest != null ? TEST_CHUNK_ROUNDS : CHUNK_ROUNDS;
+        TournamentCoordinator coordinator = new TournamentCoordinator(this.ROUNDS, chunkRounds, size, winStreak,
+                playerName1, playerName2, this.sequentialTest);
+        TournamentScore score = coordinator.play(workers);
+        this.playerAScore = (int) score.getPlayerAScore();
+        this.playerBScore = (int) score.getPlayerBScore();
+        this.ties = (int) score.getTies();
+        this.roundsPlayed = this.playerAScore + this.playerBScore + this.ties;
+        this.decision = coordinator.getDecision();
+        printResults(playerName1, playerName2);
+    }
+
+    /**
+     * Plays a range of rounds with new players and adds their results to the score.
+     *
+     * @param from        The index of the first round to play.
+     * @param to          The index after the last round to play.
+     * @param size        The size of the game board.
+     * @param winStreak   The number of consecutive marks required to win a game.
+     * @param playerName1 The name of player 1.
+     * @param playerName2 The name of player 2.
+     * @param renderer    The renderer to display the game board.
+     * @param recorder    The writer of the game records, or null to keep no records.
+     * @param metrics     The metrics to add the timings of the games to, or null to time nothing.
+     * @param score       The score to add the results to.
+     */
+    static void playRounds(int from, int to, int size, int winStreak, String playerName1, String playerName2,
+                           Renderer renderer, GameRecordWriter recorder, GameMetrics metrics,
+                           TournamentScore score) {
+        PlayerFactory playerFactory = new PlayerFactory();
+        Player playerA = playerFactory.buildPlayer(playerName1, winStreak);
+        Player playerB = playerFactory.buildPlayer(playerName2, winStreak);
+        playRounds(from, to, size, winStreak, playerA, playerFactory.getPlayerId(playerName1),
+                playerB, playerFactory.getPlayerId(playerName2), renderer, recorder, metrics, score);
+        closePlayer(playerA);
+        closePlayer(playerB);
+    }
+
+    /**
+     * Plays a range of rounds with the given players and adds their results to the score.
+     * The players are not closed, so they can play more rounds.
+     *
+     * @param from      The index of the first round to play.
+     * @param to        The index after the last round to play.
+     * @param size      The size of the game board.
+     * @param winStreak The number of consecutive marks required to win a game.
+     * @param playerA   Player 1, plays as 'X' in the even rounds.
+     * @param playerAId The record id of player 1.
+     * @param playerB   Player 2, plays as 'X' in the odd rounds.
+     * @param playerBId The record id of player 2.
+     * @param renderer  The renderer to display the game board.
+     * @param recorder  The writer of the game records, or null to keep no records.
+     * @param metrics   The metrics to add the timings of the games to, or null to time nothing.
+     * @param score     The score to add the results to.
+     */
+    static void playRounds(int from, int to, int size, int winStreak, Player playerA, int playerAId,
+                           Player playerB, int playerBId, Renderer renderer, GameRecordWriter recorder,
+                           GameMetrics metrics, TournamentScore score) {
+        // count locally, and report to the shared score once per chunk
+        long playerAWins = 0;
+        long playerBWins = 0;
+        long tiedRounds = 0;
+        GameMetrics chunkMetrics = metrics == null ? null : new GameMetrics();
+        for (int i = from; i < to; i++) {
+            boolean playerAIsX = i % 2 == 0;
+            int playerXId = playerAIsX ? playerAId : playerBId;
+            int playerOId = playerAIsX ? playerBId : playerAId;
+            Game game = playerAIsX ? new Game(playerA, playerB, size, winStreak, renderer)
+                    : new Game(playerB, playerA, size, winStreak, renderer);
+            game.setMetrics(chunkMetrics, playerAIsX ? Mark.X : Mark.O);
+            Mark gameResult = runRound(game, i, playerXId, playerOId);
+            if (recorder != null) {
+                recorder.write(game.getBoard(), game.getWinStreak(), playerXId, playerOId, gameResult);
+            }
+            if (gameResult == Mark.BLANK) {
+                tiedRounds++;
+            } else if ((gameResult == Mark.X) == playerAIsX) {
+                playerAWins++;
             } else {
-                playOneGame(this.PlayerB, this.PlayerA, size, winStreak, i);
+                playerBWins++;
+            }
+        }
+        score.add(playerAWins, playerBWins, tiedRounds);
+        if (metrics != null) {
+            metrics.add(chunkMetrics);
+        }
+    }
+
+    /**
+     * Releases what a player holds once its games are over, such as the threads of an MctsPlayer.
+     *
+     * @param player The player, may be null.
+     */
+    static void closePlayer(Player player) {
+        if (player instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                // the games are over, nothing is need to be done
             }
         }
-        // Print the tournament results
+    }
+
+    /**
+     * Runs the game of a round, and reports it as a RoundEvent if a flight recording asks for it.
+     *
+     * @param game       The game of the round.
+     * @param roundIndex The index of the round.
+     * @param playerXId  The record id of the player who plays as 'X'.
+     * @param playerOId  The record id of the player who plays as 'O'.
+     * @return The winning mark (X, O) or Mark.BLANK for a draw.
+     */
+    private static Mark runRound(Game game, int roundIndex, int playerXId, int playerOId) {
+        RoundEvent roundEvent = FlightEvents.startRound();
+        Mark gameResult = game.run();
+        FlightEvents.finishRound(roundEvent, game, roundIndex, playerXId, playerOId, gameResult);
+        return gameResult;
+    }
+
+    /**
+     * Sets the wall time of the tournament on the metrics.
+     *
+     * @param startNanos The System.nanoTime() at which the tournament started.
+     */
+    private void setElapsed(long startNanos) {
+        if (this.metrics != null) {
+            this.metrics.setElapsedNanos(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Prints the tournament results.
+     *
+     * @param playerName1 The name of player 1.
+     * @param playerName2 The name of player 2.
+     */
+    private void printResults(String playerName1, String playerName2) {
+        // let an async renderer show the last boards before the results
+        if (this.renderer instanceof AsyncRenderer asyncRenderer) {
+            asyncRenderer.awaitRendered();
+        }
+        if (this.quiet) {
+            return;
+        }
         System.out.println("######### Results #########\n" +
                 "Player 1, " + playerName1 + " won: " + this.playerAScore + " rounds\n" +
                 "Player 2, " + playerName2 + " won: " + this.playerBScore + " rounds\n" +
                 "Ties: " + this.ties);
+        if (this.sequentialTest != null) {
+            System.out.println("Sequential test: " + this.decision + " after " + this.roundsPlayed + " of "
+                    + this.ROUNDS + " rounds");
+        }
+        if (this.metrics != null) {
+            this.metrics.print(playerName1, playerName2);
+        }
+    }
+
+    /**
+     * Retrieves the number of rounds player 1 won.
+     *
+     * @return The score of player 1.
+     */
+    public int getPlayerAScore() {
+        return this.playerAScore;
+    }
+
+    /**
+     * Retrieves the number of rounds player 2 won.
+     *
+     * @return The score of player 2.
+     */
+    public int getPlayerBScore() {
+        return this.playerBScore;
+    }
+
+    /**
+     * Retrieves the number of tied rounds.
+     *
+     * @return The number of ties.
+     */
+    public int getTies() {
+        return this.ties;
+    }
+
+    /**
+     * Retrieves the number of rounds played, less than the rounds of the tournament if it stopped early.
+     *
+     * @return The number of rounds played.
+     */
+    public int getRoundsPlayed() {
+        return this.roundsPlayed;
+    }
+
+    /**
+     * Retrieves the decision of the sequential test.
+     *
+     * @return The decision, or CONTINUE if there is no test or it didn't decide.
+     */
+    public SequentialTest.Decision getDecision() {
+        return this.decision;
     }
 
     /**
@@ -69,11 +421,18 @@ public class Tournament {
      * @param size       The size of the game board.
      * @param winStreak  The number of consecutive marks required to win a game.
      * @param roundIndex The index of the current round.
+     * @param playerXId  The record id of the player who plays as 'X'.
+     * @param playerOId  The record id of the player who plays as 'O'.
      */
-    private void playOneGame(Player playerX, Player playerO, int size, int winStreak, int roundIndex) {
+    private void playOneGame(Player playerX, Player playerO, int size, int winStreak, int roundIndex,
+                             int playerXId, int playerOId) {
         // Create a new game with the specified players, board size, and win streak
         Game game = new Game(playerX, playerO, size, winStreak, this.renderer);
-        Mark gameResult = game.run();
+        game.setMetrics(this.metrics, roundIndex % 2 == 0 ? Mark.X : Mark.O);
+        Mark gameResult = runRound(game, roundIndex, playerXId, playerOId);
+        if (this.recorder != null) {
+            this.recorder.write(game.getBoard(), game.getWinStreak(), playerXId, playerOId, gameResult);
+        }
 
         // Update scores based on the game result
         if (gameResult == Mark.X) {
@@ -104,31 +463,70 @@ public class Tournament {
      * @param renderer Renderer object
      * @param playerA  Player object
      * @param playerB  Player object
+     * @param quiet    true to not display the messages
      * @return true if all the arguments are valid
      */
-    private static boolean argumentsAreValid(Renderer renderer, Player playerA, Player playerB) {
+    private static boolean argumentsAreValid(Renderer renderer, Player playerA, Player playerB, boolean quiet) {
         // Display a message and exit if renderer is not valid
         if (renderer == null) {
-            System.out.println(Constants.UNKNOWN_RENDERER_NAME);
+            if (!quiet) System.out.println(Constants.UNKNOWN_RENDERER_NAME);
             return false;
         }
 
         // Display a message and exit if players are not valid
         if (playerA == null || playerB == null) {
-            System.out.println(Constants.UNKNOWN_PLAYER_NAME);
+            if (!quiet) System.out.println(Constants.UNKNOWN_PLAYER_NAME);
             return false;
         }
         // all inputs are valid
         return true;
     }
 
+    /**
+     * Looks for an optional "--name=value" argument after the six positional arguments.
+     *
+     * @param args         Command line arguments.
+     * @param option       The option prefix, including the '=' sign.
+     * @param defaultValue The value to use when the option is not given.
+     * @return The value of the option, or defaultValue if it is missing.
+     */
+    private static String parseOption(String[] args, String option, String defaultValue) {
+        for (int i = 6; i < args.length; i++) {
+            if (args[i].startsWith(option)) {
+                return args[i].substring(option.length());
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Main method to run the Tic-Tac-Toe tournament based on command line arguments.
-     * can assume that args length is 6
+     * can assume that args length is at least 6, the optional arguments may follow them.
      *
      * @param args Command line arguments: [rounds, size, winStreak, rendererType, player1Type, player2Type]
+     *             optionally followed by --threads=N to play the rounds on N threads
+     *             (only with the "none" renderer, console output is always sequential),
+     *             --workers=N to play the rounds on N worker processes (only with the "none" renderer),
+     *             --record=file to write a record of every game to the file (not with --workers),
+     *             --metrics=file to time every move and append the metrics to a CSV file
+     *             (--metrics=- to only print them, not with --workers)
+     *             and --alpha=A to stop as soon as a sequential test is significant at error rate A
+     *             (--delta=D sets the smallest difference in score share to detect, 0.1 by default).
+     * @throws IOException if the records file can't be written.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        runTournament(args, false);
+    }
+
+    /**
+     * Builds and plays a tournament from command line arguments, as main does.
+     *
+     * @param args  Command line arguments, as for main.
+     * @param quiet True to not print the results, they are then read through the getters.
+     * @return The tournament that was played, or null if the arguments are not valid.
+     * @throws IOException if the records file can't be written.
+     */
+    static Tournament runTournament(String[] args, boolean quiet) throws IOException {
         // for the manual checker, I hope lines number is Ok, it's just for the note's and for readability.
         RendererFactory rendererFactory = new RendererFactory();
         PlayerFactory playerFactory = new PlayerFactory();
@@ -146,16 +544,82 @@ public class Tournament {
         String playerBName = args[5].toLowerCase();
 
         // Build players based on command line arguments
-        Player playerA = playerFactory.buildPlayer(playerAName);
-        Player playerB = playerFactory.buildPlayer(playerBName);
+        Player playerA = playerFactory.buildPlayer(playerAName, winStreak);
+        Player playerB = playerFactory.buildPlayer(playerBName, winStreak);
 
         // Create a new tournament and play the specified number of rounds
         Tournament tournament = new Tournament(rounds, renderer, playerA, playerB);
 
         // check arguments validity, if they are not valid, exit
-        if (!argumentsAreValid(renderer, playerA, playerB)) return;
+        if (!argumentsAreValid(renderer, playerA, playerB, quiet)) {
+            closePlayer(playerA);
+            closePlayer(playerB);
+            return null;
+        }
+        tournament.setQuiet(quiet);
+
+        // the worker processes of a distributed tournament don't record their games
+        String recordFile = parseOption(args, RECORD_OPTION, null);
+        int threads = Integer.parseInt(parseOption(args, THREADS_OPTION, "1"));
+        int workers = Integer.parseInt(parseOption(args, WORKERS_OPTION, "0"));
+        if (recordFile != null && workers > 0) {
+            if (!quiet) {
+                System.out.println("Games can't be recorded by worker processes, choose " + RECORD_OPTION
+                        + " or " + WORKERS_OPTION + ", and start again.");
+            }
+            closePlayer(playerA);
+            closePlayer(playerB);
+            return null;
+        }
+
+        // nor do they report timings
+        String metricsFile = parseOption(args, METRICS_OPTION, null);
+        if (metricsFile != null && workers > 0) {
+            if (!quiet) {
+                System.out.println("Games can't be timed by worker processes, choose " + METRICS_OPTION
+                        + " or " + WORKERS_OPTION + ", and start again.");
+            }
+            closePlayer(playerA);
+            closePlayer(playerB);
+            return null;
+        }
+
+        // record the games if asked for, the records are closed even if a game fails
+        try (GameRecordWriter recorder = recordFile == null ? null : new GameRecordWriter(Path.of(recordFile))) {
+            tournament.setRecorder(recorder);
 
-        // play a whole tournament
-        tournament.playTournament(size, winStreak, playerAName, playerBName);
+            // stop early by a sequential test if asked for
+            String alpha = parseOption(args, ALPHA_OPTION, null);
+            if (alpha != null) {
+                double errorRate = Double.parseDouble(alpha);
+                double delta = Double.parseDouble(parseOption(args, DELTA_OPTION, DEFAULT_DELTA));
+                tournament.setSequentialTest(new SequentialTest(errorRate, errorRate, delta));
+            }
+
+            // time the games if asked for
+            GameMetrics metrics = metricsFile == null ? null : new GameMetrics();
+            tournament.setMetrics(metrics);
+
+            // play a whole tournament, in parallel if asked for and nothing has to be printed between rounds
+            if (workers > 0 && renderer instanceof VoidRenderer) {
+                tournament.playTournamentDistributed(size, winStreak, playerAName, playerBName, workers);
+            } else if (threads > 1 && renderer instanceof VoidRenderer) {
+                tournament.playTournamentParallel(size, winStreak, playerAName, playerBName, threads);
+            } else {
+                tournament.playTournament(size, winStreak, playerAName, playerBName);
+            }
+
+            if (metrics != null && !metricsFile.equals(NO_METRICS_FILE)) {
+                metrics.writeCsv(Path.of(metricsFile), playerAName, playerBName, size, winStreak);
+            }
+        } finally {
+            // stop the render thread of an async renderer and the threads of the players
+            if (renderer instanceof AsyncRenderer asyncRenderer) {
+                asyncRenderer.close();
+            }
+            closePlayer(playerA);
+            closePlayer(playerB);
+        }
+        return tournament;
     }
 }
@@ -0,0 +1,273 @@
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The coordinator of a tournament that is played by several worker processes on the same machine,
+ * to go beyond the cores and the heap of a single JVM.
+ * The coordinator splits the rounds into chunks, starts TournamentWorker JVMs that connect back to it
+ * over a loopback socket, hands every worker a chunk at a time and merges the scores of the chunks.
+ * A worker that dies (its connection breaks) has the chunk it was playing handed to another worker,
+ * and the tournament goes on as long as one worker is alive. Round i is played exactly as in
+ * Tournament.playRounds, so the scores match those of a single process tournament.
+ *
+ * @author Achikam Levy
+ * @see TournamentWorker
+ * @see Tournament
+ */
+public class TournamentCoordinator {
+
+    // how often the coordinator checks that its workers are still alive
+    private static final long WAIT_MILLIS = 100;
+
+    // how long a worker that got DONE has to exit before it is killed
+    private static final long EXIT_MILLIS = 5000;
+
+    private final int rounds;  // The rounds of the tournament
+    private final int chunkRounds;  // Rounds handed to a worker at a time
+    private final String chunkArguments;  // "size winStreak player1 player2" of every chunk
+    private final SequentialTest sequentialTest;  // Stops handing chunks once it decides, null to play all rounds
+    private final TournamentScore score = new TournamentScore();  // Merged scores of the finished chunks
+    private final Deque<int[]> pendingChunks = new ArrayDeque<>();  // Chunks to hand out, as {from, to}
+    private int runningChunks = 0;  // Chunks handed out and not finished yet
+    private int connectedWorkers = 0;  // Workers that are connected now
+    private SequentialTest.Decision decision = SequentialTest.Decision.CONTINUE;  // First decision of the test
+
+    /**
+     * Constructs a TournamentCoordinator.
+     *
+     * @param rounds         The number of rounds in the tournament.
+     * @param chunkRounds    The number of rounds handed to a worker at a time.
+     * @param size           The size of the game board.
+     * @param winStreak      The number of consecutive marks required to win a game.
+     * @param playerName1    The name of player 1.
+     * @param playerName2    The name of player 2.
+     * @param sequentialTest The test to stop by, or null to play all the rounds.
+     */
+    public TournamentCoordinator(int rounds, int chunkRounds, int size, int winStreak, String playerName1,
+                                 String playerName2, SequentialTest sequentialTest) {
+        this.rounds = rounds;
+        this.chunkRounds = chunkRounds;
+        this.chunkArguments = size + " " + winStreak + " " + playerName1 + " " + playerName2;
+        this.sequentialTest = sequentialTest;
+    }
+
+    /**
+     * Plays the tournament on worker processes and waits for all of them.
+     *
+     * @param workers The number of worker processes to start.
+     * @return The merged scores of the rounds played, fewer than all the rounds if the sequential test
+     * decided or all the workers died.
+     * @throws IOException if the coordinator can't listen or the workers can't be started.
+     */
+    public TournamentScore play(int workers) throws IOException {
+        for (int from = 0; from < this.rounds; from += this.chunkRounds) {
+            this.pendingChunks.add(new int[]{from, Math.min(from + this.chunkRounds, this.rounds)});
+        }
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            Thread acceptor = new Thread(() -> acceptWorkers(server), "coordinator-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            // keep listening until the workers exit, so a late worker is told DONE instead of refused
+            List<Process> processes = new ArrayList<>();
+            try {
+                for (int i = 0; i < workers; i++) {
+                    processes.add(startWorker(server.getLocalPort()));
+                }
+                waitForChunks(processes);
+            } finally {
+                stopWorkers(processes);
+            }
+        }
+        return this.score;
+    }
+
+    /**
+     * Starts a worker JVM with the class path of this one.
+     *
+     * @param port The port the worker connects to.
+     * @return The worker process.
+     * @throws IOException if the process can't be started.
+     */
+    private static Process startWorker(int port) throws IOException {
+        String java = ProcessHandle.current().info().command()
+                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                TournamentWorker.class.getName(), TournamentWorker.CONNECT_OPTION + port)
+                .inheritIO()
+                .start();
+    }
+
+    /**
+     * Waits until every chunk is played, the sequential test decided or no worker is left.
+     *
+     * @param processes The worker processes.
+     */
+    private synchronized void waitForChunks(List<Process> processes) {
+        while ((!this.pendingChunks.isEmpty() && !isDecided()) || this.runningChunks > 0) {
+            if (this.connectedWorkers == 0 && processes.stream().noneMatch(Process::isAlive)) {
+                System.err.println("All the workers died, " + this.pendingChunks.size() + " chunks were not played");
+                return;
+            }
+            try {
+                wait(WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Tells the workers to exit, and kills those that don't.
+     *
+     * @param processes The worker processes.
+     */
+    private static void stopWorkers(List<Process> processes) {
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(EXIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Accepts the connections of the workers, each served on its own thread, until the server is closed.
+     *
+     * @param server The server socket of the coordinator.
+     */
+    private void acceptWorkers(ServerSocket server) {
+        try {
+            while (true) {
+                Socket socket = server.accept();
+                synchronized (this) {
+                    this.connectedWorkers++;
+                }
+                Thread connection = new Thread(() -> serveWorker(socket), "coordinator-worker");
+                connection.setDaemon(true);
+                connection.start();
+            }
+        } catch (IOException e) {
+            // the server was closed, all the chunks are done
+        }
+    }
+
+    /**
+     * Hands chunks to a single worker until there are no more, and merges their scores.
+     * If the worker dies, the chunk it played goes back to the pending chunks.
+     *
+     * @param socket The connection to the worker.
+     */
+    private void serveWorker(Socket socket) {
+        int[] chunk = null;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            while ((chunk = nextChunk()) != null) {
+                out.println(TournamentWorker.CHUNK + " " + chunk[0] + " " + chunk[1] + " " + this.chunkArguments);
+                String line = in.readLine();
+                if (line == null || !line.startsWith(TournamentWorker.RESULT)) {
+                    throw new EOFException("The worker died");
+                }
+                String[] result = line.split(" ");
+                finishChunk(Long.parseLong(result[1]), Long.parseLong(result[2]), Long.parseLong(result[3]));
+                chunk = null;
+            }
+            out.println(TournamentWorker.DONE);
+        } catch (IOException | RuntimeException e) {
+            if (chunk != null) {
+                reassignChunk(chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                this.connectedWorkers--;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Takes the next chunk to play, waiting while other workers may still give up theirs.
+     *
+     * @return The chunk, as {from, to}, or null when there are no more chunks to play.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private synchronized int[] nextChunk() throws InterruptedException {
+        while (this.pendingChunks.isEmpty() && this.runningChunks > 0 && !isDecided()) {
+            wait();
+        }
+        if (isDecided() || this.pendingChunks.isEmpty()) {
+            return null;
+        }
+        this.runningChunks++;
+        return this.pendingChunks.poll();
+    }
+
+    /**
+     * Checks if the sequential test decided.
+     *
+     * @return True once the test took a decision other than CONTINUE.
+     */
+    private boolean isDecided() {
+        return this.decision != SequentialTest.Decision.CONTINUE;
+    }
+
+    /**
+     * Retrieves the decision of the sequential test, as it was when the test first decided.
+     * Chunks that were running at that moment still add their rounds to the score, but not to the decision.
+     *
+     * @return The decision, or CONTINUE if there is no test or it didn't decide.
+     */
+    public synchronized SequentialTest.Decision getDecision() {
+        return this.decision;
+    }
+
+    /**
+     * Merges the score of a played chunk, and checks the sequential test until it decides.
+     *
+     * @param playerAWins The rounds player 1 won.
+     * @param playerBWins The rounds player 2 won.
+     * @param tiedRounds  The tied rounds.
+     */
+    private synchronized void finishChunk(long playerAWins, long playerBWins, long tiedRounds) {
+        this.score.add(playerAWins, playerBWins, tiedRounds);
+        this.runningChunks--;
+        if (this.sequentialTest != null && !isDecided()) {
+            this.decision = this.score.decide(this.sequentialTest);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Puts the chunk of a dead worker back, to be played by another worker.
+     *
+     * @param chunk The chunk, as {from, to}.
+     */
+    private synchronized void reassignChunk(int[] chunk) {
+        System.err.println("A worker died, rounds " + chunk[0] + " to " + chunk[1] + " are reassigned");
+        this.pendingChunks.addFirst(chunk);
+        this.runningChunks--;
+        notifyAll();
+    }
+}
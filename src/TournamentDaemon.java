@@ -0,0 +1,149 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A resident tournament runner that reads tournament jobs and answers each one with a single result line,
+ * so a batch of short jobs pays for the JVM start and the JIT warm-up once instead of once per job.
+ * A job is a line with the arguments of Tournament.main, e.g. "1000 3 3 none clever genius --threads=4",
+ * and it is played by the same code as a tournament started from the command line.
+ * Jobs are read from stdin, or with --port=N from connections to a socket on the loopback address,
+ * every connection on its own thread. Empty lines and lines starting with '#' are skipped.
+ * A result line looks like:
+ * "OK rounds=1000 played=1000 player1=clever:12 player2=genius:988 ties=0 decision=CONTINUE millis=3",
+ * and a job that can't be played is answered with "ERROR" and the reason.
+ * Jobs run unattended, so a job must use the "none" renderer and can't have a human player:
+ * it would block the daemon on the keyboard or fill its output with boards.
+ *
+ * @author Achikam Levy
+ * @see Tournament
+ */
+public class TournamentDaemon {
+
+    // command line options
+    private static final String PORT_OPTION = "--port=";
+
+    // job lines
+    private static final String COMMENT = "#";
+    private static final String SEPARATORS = "\\s+";
+    private static final int JOB_ARGUMENTS = 6;
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    // the only renderer of a job, and the player a job can't have
+    private static final String UNATTENDED_RENDERER = "none";
+    private static final String HUMAN_PLAYER = "human";
+
+    /**
+     * Constructs a TournamentDaemon.
+     * nothing is need to be done in this constructor.
+     */
+    public TournamentDaemon() {
+    }
+
+    /**
+     * Plays the jobs of a stream, until the stream ends.
+     *
+     * @param in  The job lines.
+     * @param out The result lines, one per job.
+     * @throws IOException if the jobs can't be read.
+     */
+    public void serve(Reader in, Writer out) throws IOException {
+        BufferedReader jobs = new BufferedReader(in);
+        PrintWriter results = new PrintWriter(out, true);
+        String line;
+        while ((line = jobs.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith(COMMENT)) {
+                continue;
+            }
+            results.println(runJob(line));
+        }
+    }
+
+    /**
+     * Plays a single job.
+     *
+     * @param line The job, the arguments of Tournament.main separated by spaces.
+     * @return The result line of the job.
+     */
+    public String runJob(String line) {
+        String[] args = line.split(SEPARATORS);
+        if (args.length < JOB_ARGUMENTS) {
+            return "ERROR a job needs " + JOB_ARGUMENTS + " arguments: rounds size winStreak renderer player1 player2";
+        }
+        if (!args[3].equalsIgnoreCase(UNATTENDED_RENDERER)) {
+            return "ERROR a job must use the " + UNATTENDED_RENDERER + " renderer: " + line;
+        }
+        if (args[4].equalsIgnoreCase(HUMAN_PLAYER) || args[5].equalsIgnoreCase(HUMAN_PLAYER)) {
+            return "ERROR a job can't have a " + HUMAN_PLAYER + " player: " + line;
+        }
+        long start = System.nanoTime();
+        try {
+            Tournament tournament = Tournament.runTournament(args, true);
+            if (tournament == null) {
+                return "ERROR unknown renderer or player, or --record or --metrics with --workers, in: " + line;
+            }
+            return "OK rounds=" + args[0]
+                    + " played=" + tournament.getRoundsPlayed()
+                    + " player1=" + args[4].toLowerCase() + ":" + tournament.getPlayerAScore()
+                    + " player2=" + args[5].toLowerCase() + ":" + tournament.getPlayerBScore()
+                    + " ties=" + tournament.getTies()
+                    + " decision=" + tournament.getDecision()
+                    + " millis=" + (System.nanoTime() - start) / NANOS_PER_MILLI;
+        } catch (IOException | RuntimeException | Error e) {
+            // a bad job must not stop the daemon
+            return "ERROR " + e;
+        }
+    }
+
+    /**
+     * Accepts connections on a loopback port and serves the jobs of each connection on its own thread.
+     *
+     * @param port The port to listen on.
+     * @throws IOException if the port can't be opened.
+     */
+    public void listen(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            System.out.println("Listening for tournament jobs on " + server.getLocalSocketAddress());
+            while (true) {
+                Socket socket = server.accept();
+                Thread connection = new Thread(() -> {
+                    try (socket) {
+                        serve(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8),
+                                new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        // the client went away, nothing is need to be done
+                    }
+                });
+                connection.setDaemon(true);
+                connection.start();
+            }
+        }
+    }
+
+    /**
+     * Runs the daemon.
+     *
+     * @param args Command line arguments: empty to read jobs from stdin,
+     *             or --port=N to read them from connections to the loopback port N.
+     * @throws IOException if stdin or the port can't be read.
+     */
+    public static void main(String[] args) throws IOException {
+        TournamentDaemon daemon = new TournamentDaemon();
+        for (String arg : args) {
+            if (arg.startsWith(PORT_OPTION)) {
+                daemon.listen(Integer.parseInt(arg.substring(PORT_OPTION.length())));
+                return;
+            }
+        }
+        daemon.serve(new InputStreamReader(System.in, StandardCharsets.UTF_8),
+                new PrintWriter(System.out, true, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Collects the results of tournament rounds that are played concurrently.
+ * Workers add the results of a whole chunk of rounds at once, so the counters are updated rarely and
+ * a single lock is enough. The three counters are added and read together under it,
+ * so a sequential test never sees a batch that is only partly added.
+ *
+ * @author Achikam Levy
+ * @see Tournament
+ */
+public class TournamentScore {
+
+    // Scores for each player and ties
+    private long playerAScore = 0;
+    private long playerBScore = 0;
+    private long ties = 0;
+
+    /**
+     * Constructs a new TournamentScore with all the counters at zero.
+     */
+    public TournamentScore() {
+        // nothing is need to be done
+    }
+
+    /**
+     * Adds the results of a batch of rounds.
+     *
+     * @param playerAWins The number of rounds player A won.
+     * @param playerBWins The number of rounds player B won.
+     * @param tiedRounds  The number of rounds that ended with a tie.
+     */
+    public synchronized void add(long playerAWins, long playerBWins, long tiedRounds) {
+        this.playerAScore += playerAWins;
+        this.playerBScore += playerBWins;
+        this.ties += tiedRounds;
+    }
+
+    /**
+     * Decides a sequential test on a consistent snapshot of the three counters.
+     *
+     * @param sequentialTest The test to decide.
+     * @return The decision of the test for the rounds added so far.
+     */
+    public synchronized SequentialTest.Decision decide(SequentialTest sequentialTest) {
+        return sequentialTest.decide(this.playerAScore, this.playerBScore, this.ties);
+    }
+
+    /**
+     * Retrieves the number of rounds player A won.
+     *
+     * @return The rounds won by player A.
+     */
+    public synchronized long getPlayerAScore() {
+        return this.playerAScore;
+    }
+
+    /**
+     * Retrieves the number of rounds player B won.
+     *
+     * @return The rounds won by player B.
+     */
+    public synchronized long getPlayerBScore() {
+        return this.playerBScore;
+    }
+
+    /**
+     * Retrieves the number of rounds that ended with a tie.
+     *
+     * @return The tied rounds.
+     */
+    public synchronized long getTies() {
+        return this.ties;
+    }
+}
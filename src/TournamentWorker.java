@@ -0,0 +1,80 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A worker process of a distributed tournament. It connects to a TournamentCoordinator on the loopback
+ * address and plays the chunks of rounds it is handed, one at a time, until the coordinator has no more.
+ * The line protocol:
+ * the coordinator sends "CHUNK from to size winStreak player1 player2",
+ * the worker plays rounds [from, to) exactly as Tournament.playRounds does and answers
+ * "RESULT player1Wins player2Wins ties". "DONE" or a closed connection ends the worker.
+ *
+ * @author Achikam Levy
+ * @see TournamentCoordinator
+ * @see Tournament
+ */
+public class TournamentWorker {
+
+    // protocol messages
+    public static final String CHUNK = "CHUNK";
+    public static final String RESULT = "RESULT";
+    public static final String DONE = "DONE";
+
+    // command line options
+    public static final String CONNECT_OPTION = "--connect=";
+
+    private final Renderer renderer = new VoidRenderer();  // Workers play unattended
+
+    /**
+     * Constructs a TournamentWorker.
+     * nothing is need to be done in this constructor.
+     */
+    public TournamentWorker() {
+    }
+
+    /**
+     * Connects to a coordinator and plays the chunks it hands out.
+     *
+     * @param port The loopback port of the coordinator.
+     * @throws IOException if the coordinator can't be reached.
+     */
+    public void run(int port) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            String line;
+            while ((line = in.readLine()) != null && line.startsWith(CHUNK)) {
+                String[] chunk = line.split(" ");
+                TournamentScore score = new TournamentScore();
+                Tournament.playRounds(Integer.parseInt(chunk[1]), Integer.parseInt(chunk[2]),
+                        Integer.parseInt(chunk[3]), Integer.parseInt(chunk[4]), chunk[5], chunk[6],
+                        this.renderer, null, null, score);
+                out.println(RESULT + " " + score.getPlayerAScore() + " " + score.getPlayerBScore() + " "
+                        + score.getTies());
+            }
+        }
+    }
+
+    /**
+     * Runs a worker, usually started by a TournamentCoordinator.
+     *
+     * @param args Command line arguments: --connect=N, the loopback port of the coordinator.
+     * @throws IOException if the coordinator can't be reached.
+     */
+    public static void main(String[] args) throws IOException {
+        for (String arg : args) {
+            if (arg.startsWith(CONNECT_OPTION)) {
+                new TournamentWorker().run(Integer.parseInt(arg.substring(CONNECT_OPTION.length())));
+                return;
+            }
+        }
+        System.out.println("usage: java TournamentWorker " + CONNECT_OPTION + "port");
+    }
+}
@@ -0,0 +1,131 @@
+
+/**
+ * A fixed size hash table of search results, keyed by the Zobrist hash of a position.
+ * The table never grows: it holds a power of two number of entries, each stored in two parallel
+ * long arrays (the full key and a packed value), so its memory is bounded and allocated once.
+ * When two positions map to the same entry, the new result replaces the old one if it comes from a
+ * deeper search, or if the old one was stored by an earlier search (an older generation).
+ *
+ * @author Achikam Levy
+ * @see AlphaBetaPlayer
+ */
+public class TranspositionTable {
+
+    // bound types of a stored score
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    // packed value layout: score (32 bits) | best move (16 bits) | depth (8) | bound (2) | generation (6)
+    private static final int SCORE_SHIFT = 32;
+    private static final int MOVE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 8;
+    private static final int BOUND_SHIFT = 6;
+    private static final int GENERATION_MASK = 63;
+
+    private final long[] keys;  // The hash of the position stored in each entry
+    private final long[] values;  // The packed result stored in each entry
+    private final int mask;  // Maps a hash to an entry index
+    private int generation = 0;  // Generation of the current search
+
+    /**
+     * Constructs a TranspositionTable with a fixed number of entries.
+     *
+     * @param sizeBits The table holds 2^sizeBits entries (16 bytes each).
+     */
+    public TranspositionTable(int sizeBits) {
+        this.keys = new long[1 << sizeBits];
+        this.values = new long[1 << sizeBits];
+        this.mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Starts a new search generation, entries of earlier generations become the first to be replaced.
+     */
+    public void newGeneration() {
+        this.generation = (this.generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * Looks for the entry of a position.
+     *
+     * @param hash The hash of the position.
+     * @return The packed value of the entry, or 0 if the position is not in the table.
+     */
+    public long probe(long hash) {
+        int index = (int) hash & this.mask;
+        // a stored value is never 0, since its generation or depth is set
+        return this.keys[index] == hash ? this.values[index] : 0;
+    }
+
+    /**
+     * Stores the result of searching a position, according to the replacement policy.
+     *
+     * @param hash     The hash of the position.
+     * @param score    The score of the position.
+     * @param bestMove The best move found, or -1 if there is none.
+     * @param depth    The depth the position was searched to.
+     * @param bound    EXACT, LOWER_BOUND or UPPER_BOUND.
+     */
+    public void store(long hash, int score, int bestMove, int depth, int bound) {
+        int index = (int) hash & this.mask;
+        long old = this.values[index];
+        boolean stale = generationOf(old) != this.generation;
+        if (old == 0 || stale || this.keys[index] == hash || depth >= depthOf(old)) {
+            this.keys[index] = hash;
+            this.values[index] = ((long) score << SCORE_SHIFT) | ((long) (bestMove & 0xFFFF) << MOVE_SHIFT)
+                    | ((long) (depth + 1) << DEPTH_SHIFT) | ((long) bound << BOUND_SHIFT) | this.generation;
+        }
+    }
+
+    /**
+     * Retrieves the score of a packed entry value.
+     *
+     * @param value A value returned by probe.
+     * @return The stored score.
+     */
+    public static int scoreOf(long value) {
+        return (int) (value >> SCORE_SHIFT);
+    }
+
+    /**
+     * Retrieves the best move of a packed entry value.
+     *
+     * @param value A value returned by probe.
+     * @return The stored best move, or -1 if there is none.
+     */
+    public static int moveOf(long value) {
+        int move = (int) (value >>> MOVE_SHIFT) & 0xFFFF;
+        return move == 0xFFFF ? -1 : move;
+    }
+
+    /**
+     * Retrieves the search depth of a packed entry value.
+     *
+     * @param value A value returned by probe.
+     * @return The stored depth.
+     */
+    public static int depthOf(long value) {
+        return ((int) (value >>> DEPTH_SHIFT) & 0xFF) - 1;
+    }
+
+    /**
+     * Retrieves the bound type of a packed entry value.
+     *
+     * @param value A value returned by probe.
+     * @return EXACT, LOWER_BOUND or UPPER_BOUND.
+     */
+    public static int boundOf(long value) {
+        return (int) (value >>> BOUND_SHIFT) & 3;
+    }
+
+    /**
+     * Retrieves the generation of a packed entry value.
+     *
+     * @param value A value returned by probe.
+     * @return The generation the entry was stored in.
+     */
+    private static int generationOf(long value) {
+        return (int) value & GENERATION_MASK;
+    }
+}
@@ -1,10 +1,14 @@
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Represents a player in a tic-tac-toe game that makes random moves.
  * Implements the Player interface.
  * The WhateverPlayer plays its turn by choosing random positions on the board.
- * If the selected position is already occupied, it repeats the process until a valid move is made.
+ * By default it picks a random cell from the board's index of empty cells, which takes O(1) at any stage
+ * of the game. The original mode, which repeats random positions until an empty one is found,
+ * can be chosen in the constructor, and is always used on sparse boards, which are too large to index
+ * and mostly empty anyway.
  *
  * @author Achikam Levy
  * @see Player
@@ -16,11 +20,24 @@ public class WhateverPlayer implements Player {
     // for getting random coordinates
     private final Random random = new Random();
 
+    // true to pick from the empty cells index, false to retry random positions
+    private final boolean indexedMoves;
+
     /**
-     * default constructor for WhateverPlayer class
+     * default constructor for WhateverPlayer class, picks from the empty cells index of the board.
      */
     public WhateverPlayer() {
-        // nothing is need to be done
+        this(true);
+    }
+
+    /**
+     * Constructs a WhateverPlayer.
+     *
+     * @param indexedMoves True to pick from the board's empty cells index,
+     *                     false to retry random positions until an empty one is found.
+     */
+    public WhateverPlayer(boolean indexedMoves) {
+        this.indexedMoves = indexedMoves;
     }
 
     /**
@@ -31,7 +48,27 @@ public class WhateverPlayer implements Player {
      */
     @Override
     public void playTurn(Board board, Mark mark) {
-        WhateverTurn(board, mark);
+        if (this.indexedMoves && !board.isSparse()) {
+            indexedTurn(board, mark);
+        } else {
+            WhateverTurn(board, mark);
+        }
+    }
+
+    /**
+     * Makes a random move on the board, chosen uniformly from the board's index of empty cells.
+     * Uses the random generator of the current thread, so parallel games don't share a seed.
+     *
+     * @param board The game board on which the player makes a move.
+     * @param mark  The player's mark (X or O).
+     */
+    private void indexedTurn(Board board, Mark mark) {
+        int emptyCells = board.countEmptyCells();
+        if (emptyCells == 0) {
+            return;  // the board is full, shouldn't happened
+        }
+        int cell = board.getEmptyCell(ThreadLocalRandom.current().nextInt(emptyCells));
+        board.putMark(mark, cell / board.getSize(), cell % board.getSize());
     }
 
     /**
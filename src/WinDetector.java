@@ -0,0 +1,40 @@
+
+/**
+ * Detects a winning streak by looking only at the lines that pass through the last marked cell.
+ * A new streak can only be created by the cell that was just marked, so instead of rescanning
+ * the whole board after every move, the detector counts the run of equal marks through that cell
+ * on each of the four lines (row, column and both diagonals).
+ * The count itself is done by the board storage, a BitBoardStorage does it with a few shifts of its bitboards.
+ * Each check costs O(winStreak) regardless of the board size.
+ *
+ * @author Achikam Levy
+ * @see Game
+ * @see Board
+ * @see BoardStorage
+ */
+public class WinDetector {
+
+    private final int winStreak;  // Number of consecutive marks required for a win
+
+    /**
+     * Constructs a WinDetector for the given win streak.
+     *
+     * @param winStreak The number of consecutive marks required for a win.
+     */
+    public WinDetector(int winStreak) {
+        this.winStreak = winStreak;
+    }
+
+    /**
+     * Checks if the mark placed at the given cell completed a winning streak.
+     *
+     * @param board The game board.
+     * @param mark  The mark that was placed.
+     * @param row   The row index of the last marked cell.
+     * @param col   The column index of the last marked cell.
+     * @return True if one of the lines through the cell holds a winning streak of mark, false otherwise.
+     */
+    public boolean isWinningMove(Board board, Mark mark, int row, int col) {
+        return board.isStreakThrough(mark, row, col, this.winStreak);
+    }
+}
@@ -0,0 +1,143 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Checks the WinDetector against a brute-force scan of the whole board,
+ * after every move of random games on every board storage.
+ *
+ * @author Achikam Levy
+ * @see WinDetector
+ */
+public class WinDetector_Tests {
+
+    // the four line directions: row, column, main diagonal and anti diagonal
+    private static final int[] ROW_STEPS = {0, 1, 1, 1};
+    private static final int[] COL_STEPS = {1, 0, 1, -1};
+
+    private static final int GAMES = 300;
+    private static final long SEED = 20240601L;
+
+    /**
+     * Builds an empty board on one of the storages.
+     *
+     * @param storage 0 for an ArrayBoardStorage, 1 for a BitBoardStorage, 2 for a SparseBoardStorage.
+     * @param size    The size of the board.
+     * @return The empty board.
+     */
+    private static Board emptyBoard(int storage, int size) {
+        switch (storage) {
+            case 0:
+                return new Board(new ArrayBoardStorage(size));
+            case 1:
+                return new Board(new BitBoardStorage(size));
+            default:
+                return new Board(new SparseBoardStorage(size));
+        }
+    }
+
+    /**
+     * Scans every window of winStreak cells on the board for a full streak of the mark.
+     *
+     * @param board     The board to scan.
+     * @param mark      The mark to look for.
+     * @param winStreak The number of consecutive marks required.
+     * @return True if some window holds only the mark.
+     */
+    private static boolean hasStreak(Board board, Mark mark, int winStreak) {
+        int size = board.getSize();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                for (int line = 0; line < ROW_STEPS.length; line++) {
+                    int endRow = row + ROW_STEPS[line] * (winStreak - 1);
+                    int endCol = col + COL_STEPS[line] * (winStreak - 1);
+                    if (endRow >= size || endCol < 0 || endCol >= size) {
+                        continue;
+                    }
+                    int run = 0;
+                    while (run < winStreak
+                            && board.getMark(row + ROW_STEPS[line] * run, col + COL_STEPS[line] * run) == mark) {
+                        run++;
+                    }
+                    if (run == winStreak) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void matchesFullScan() {
+        Random random = new Random(SEED);
+        for (int game = 0; game < GAMES; game++) {
+            int size = 2 + random.nextInt(10);
+            int winStreak = 2 + random.nextInt(size - 1);
+            Board board = emptyBoard(game % 3, size);
+            WinDetector detector = new WinDetector(winStreak);
+            for (int move = 0; move < size * size; move++) {
+                Mark mark = move % 2 == 0 ? Mark.X : Mark.O;
+                int cell;
+                do {
+                    cell = random.nextInt(size * size);
+                } while (board.getMark(cell / size, cell % size) != Mark.BLANK);
+                board.putMark(mark, cell / size, cell % size);
+                boolean won = detector.isWinningMove(board, mark, cell / size, cell % size);
+                // no streak was on the board before this move, so any streak now is the move's
+                Assertions.assertEquals(hasStreak(board, mark, winStreak), won,
+                        "size " + size + ", streak " + winStreak + ", move " + move);
+                if (won) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void ignoresTheOtherMarkAndOtherCells() {
+        Board board = new Board(3);
+        board.putMark(Mark.X, 0, 0);
+        board.putMark(Mark.X, 0, 1);
+        board.putMark(Mark.X, 0, 2);
+        WinDetector detector = new WinDetector(3);
+        Assertions.assertTrue(detector.isWinningMove(board, Mark.X, 0, 2));
+        Assertions.assertFalse(detector.isWinningMove(board, Mark.O, 0, 2));
+        Assertions.assertFalse(detector.isWinningMove(board, Mark.X, 1, 1));
+    }
+
+    @Test
+    public void gameEndsOnTheWinningMove() {
+        // X fills the first column while O plays the middle one
+        Player playerX = new ScriptedPlayer(new int[]{0, 3, 6});
+        Player playerO = new ScriptedPlayer(new int[]{1, 4});
+        Game game = new Game(playerX, playerO, 3, 3, new VoidRenderer());
+        Assertions.assertEquals(Mark.X, game.run());
+        Assertions.assertEquals(5, game.getBoard().getMoveCount());
+    }
+
+    /**
+     * A player that plays a fixed list of cells.
+     */
+    private static class ScriptedPlayer implements Player {
+
+        private final int[] cells;  // The cells to play, as row * size + col
+        private int next = 0;  // The next cell to play
+
+        /**
+         * Constructs a ScriptedPlayer.
+         *
+         * @param cells The cells to play in order, as row * size + col.
+         */
+        ScriptedPlayer(int[] cells) {
+            this.cells = cells;
+        }
+
+        @Override
+        public void playTurn(Board board, Mark mark) {
+            int cell = this.cells[this.next++];
+            board.putMark(mark, cell / board.getSize(), cell % board.getSize());
+        }
+    }
+}